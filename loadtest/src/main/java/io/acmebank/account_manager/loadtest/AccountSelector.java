@@ -0,0 +1,46 @@
+package io.acmebank.account_manager.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks account numbers of the population, account {@code k} (counted from the first) with a probability
+ * proportional to {@code 1 / (k + 1)^skew}: uniform for a skew of 0, a few hot accounts taking most of the
+ * traffic for a skew around 1.
+ */
+final class AccountSelector {
+    private final long firstAccount;
+    private final double[] cumulative;
+
+    AccountSelector(long firstAccount, int accounts, double skew) {
+        this.firstAccount = firstAccount;
+        this.cumulative = new double[accounts];
+        double sum = 0;
+        for (int k = 0; k < accounts; k++) {
+            sum += 1.0 / Math.pow(k + 1, skew);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < accounts; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    String next() {
+        return Long.toString(firstAccount + nextIndex());
+    }
+
+    // a second account, never the same as the given one
+    String nextOtherThan(String accountNumber) {
+        String other;
+        do {
+            other = next();
+        } while (other.equals(accountNumber));
+        return other;
+    }
+
+    private int nextIndex() {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        int item = index >= 0 ? index : -index - 1;
+        return Math.min(item, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,83 @@
+package io.acmebank.account_manager.loadtest;
+
+import io.acmebank.account_manager.AccountManagerApplication;
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.NewAccount;
+import io.acmebank.account_manager.loadtest.OpenLoopDriver.Operation;
+import io.acmebank.account_manager.service.AccountOpeningService;
+import org.javamoney.moneta.FastMoney;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends open-model traffic, balance reads and transfers, to a running instance given with {@code --target} or to
+ * one booted in process against an in-memory database seeded with the account population, then writes the report.
+ * See {@link LoadTestOptions} for the options.
+ */
+public final class LoadTest {
+    private static final int SEED_CHUNK = 1_000;
+    private static final MonetaryAmount STARTING_BALANCE = FastMoney.ofMinor(Monetary.getCurrency("HKD"), 1_000_000_000L);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext context = options.target() == null ? startApplication(options) : null;
+        try {
+            URI base = context == null
+                    ? options.target()
+                    : URI.create("http://localhost:" + context.getEnvironment().getRequiredProperty("local.server.port"));
+            Map<Operation, OperationStats> stats = new OpenLoopDriver(options, base).run();
+            LoadTestReport report = new LoadTestReport(options, stats);
+            report.write();
+            System.out.print(report.summary());
+            System.out.println("Report written to " + options.reportDir().toAbsolutePath());
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestOptions options) throws Exception {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest;MODE=MYSQL;DB_CLOSE_DELAY=-1");
+        properties.put("logging.level.root", "WARN");
+        // the whole load comes from one address, which the per-client rate limit would mostly reject
+        properties.put("account-manager.admission.enabled", "false");
+        properties.putAll(options.appProperties());
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AccountManagerApplication.class).run(args);
+        try {
+            seedAccounts(context.getBean(AccountOpeningService.class), options);
+        } catch (Exception e) {
+            context.close();
+            throw e;
+        }
+        return context;
+    }
+
+    private static void seedAccounts(AccountOpeningService accountOpeningService, LoadTestOptions options)
+            throws Exception {
+        for (int from = 0; from < options.accounts(); from += SEED_CHUNK) {
+            List<NewAccount> accounts = new ArrayList<>(SEED_CHUNK);
+            for (int i = from; i < Math.min(from + SEED_CHUNK, options.accounts()); i++) {
+                AccountNumber accountNumber = new AccountNumber(Long.toString(options.firstAccount() + i));
+                accounts.add(new NewAccount(accountNumber, STARTING_BALANCE));
+            }
+            accountOpeningService.openAccounts(accounts);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.acmebank.account_manager.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options, all given as {@code --name=value}. Options prefixed with {@code app.} are passed on to the
+ * application booted in process, e.g. {@code --app.account-manager.transfer.locking=optimistic}.
+ *
+ * @param target        base URL of a running instance, null to boot one in process on a random port
+ * @param rate          requests started per second, whatever the response times
+ * @param warmup        traffic sent before measuring, at the same rate
+ * @param duration      measured traffic
+ * @param accounts      accounts traffic is spread over, numbered from {@code firstAccount}
+ * @param firstAccount  first account number of the population, which must exist on a target
+ * @param skew          Zipf exponent of the account picked per request, 0 for uniform
+ * @param transferRatio share of transfers in the requests, the others are balance reads
+ * @param maxInFlight   requests awaiting a response beyond which new ones are counted as CLIENT_BACKLOG, not sent
+ * @param timeout       response timeout of a request
+ * @param reportDir     directory the JSON, HTML and .hgrm reports are written to
+ */
+record LoadTestOptions(URI target,
+                       int rate,
+                       Duration warmup,
+                       Duration duration,
+                       int accounts,
+                       long firstAccount,
+                       double skew,
+                       double transferRatio,
+                       int maxInFlight,
+                       Duration timeout,
+                       Path reportDir,
+                       Map<String, String> appProperties) {
+    private static final String APP_PREFIX = "app.";
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            if (name.startsWith(APP_PREFIX)) {
+                appProperties.put(name.substring(APP_PREFIX.length()), value);
+            } else {
+                options.put(name, value);
+            }
+        }
+        LoadTestOptions parsed = new LoadTestOptions(
+                options.containsKey("target") ? URI.create(options.remove("target")) : null,
+                Integer.parseInt(options.getOrDefault("rate", "500")),
+                DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s")),
+                DurationStyle.detectAndParse(options.getOrDefault("duration", "30s")),
+                Integer.parseInt(options.getOrDefault("accounts", "10000")),
+                Long.parseLong(options.getOrDefault("first-account", "10000000")),
+                Double.parseDouble(options.getOrDefault("skew", "0")),
+                Double.parseDouble(options.getOrDefault("transfer-ratio", "0.1")),
+                Integer.parseInt(options.getOrDefault("max-in-flight", "1000")),
+                DurationStyle.detectAndParse(options.getOrDefault("timeout", "5s")),
+                Path.of(options.getOrDefault("report-dir", "build/reports/loadtest")),
+                appProperties);
+        options.keySet().removeAll(List.of("rate", "warmup", "duration", "accounts", "first-account",
+                "skew", "transfer-ratio", "max-in-flight", "timeout", "report-dir"));
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + options.keySet());
+        }
+        if (parsed.rate <= 0 || parsed.accounts < 2 || parsed.maxInFlight <= 0
+                || parsed.transferRatio < 0 || parsed.transferRatio > 1 || parsed.skew < 0) {
+            throw new IllegalArgumentException("Expected rate and max-in-flight > 0, accounts >= 2, skew >= 0 "
+                    + "and transfer-ratio within [0, 1]");
+        }
+        return parsed;
+    }
+
+    // every option but the pass through ones, in a stable order for the report
+    Map<String, Object> describe() {
+        Map<String, Object> described = new LinkedHashMap<>();
+        described.put("target", target == null ? "in-process" : target.toString());
+        described.put("rate", rate);
+        described.put("warmup", warmup.toString());
+        described.put("duration", duration.toString());
+        described.put("accounts", accounts);
+        described.put("first_account", firstAccount);
+        described.put("skew", skew);
+        described.put("transfer_ratio", transferRatio);
+        described.put("max_in_flight", maxInFlight);
+        described.put("timeout", timeout.toString());
+        return described;
+    }
+}
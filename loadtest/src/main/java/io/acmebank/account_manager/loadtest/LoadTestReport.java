@@ -0,0 +1,151 @@
+package io.acmebank.account_manager.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.acmebank.account_manager.loadtest.OpenLoopDriver.Operation;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes the outcome of a run as {@code report.json}, laid out with sorted keys so two runs can be diffed, as a
+ * {@code report.html} summary, and as one HdrHistogram percentile distribution ({@code <operation>.hgrm}) per
+ * operation for plotting. Latencies are in microseconds.
+ */
+final class LoadTestReport {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final LoadTestOptions options;
+    private final Map<Operation, OperationStats> stats;
+
+    LoadTestReport(LoadTestOptions options, Map<Operation, OperationStats> stats) {
+        this.options = options;
+        this.stats = stats;
+    }
+
+    void write() throws IOException {
+        Files.createDirectories(options.reportDir());
+        Map<String, Object> report = toMap();
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .writeValue(options.reportDir().resolve("report.json").toFile(), report);
+        Files.writeString(options.reportDir().resolve("report.html"), toHtml());
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            Path distribution = options.reportDir().resolve(name(entry.getKey()) + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(distribution))) {
+                entry.getValue().histogram().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    // one line per operation, for the console
+    String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            Histogram histogram = operationStats.histogram();
+            summary.append(String.format(Locale.ROOT,
+                    "%-8s succeeded=%d failed=%d throughput=%.1f/s p50=%dus p99=%dus p99.9=%dus max=%dus errors=%s%n",
+                    name(entry.getKey()), operationStats.succeeded(), operationStats.failed(),
+                    throughput(operationStats), micros(histogram.getValueAtPercentile(50)),
+                    micros(histogram.getValueAtPercentile(99)), micros(histogram.getValueAtPercentile(99.9)),
+                    micros(histogram.getMaxValue()), operationStats.errors()));
+        }
+        return summary.toString();
+    }
+
+    private Map<String, Object> toMap() {
+        Map<String, Object> operations = new TreeMap<>();
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            Map<String, Object> operation = new LinkedHashMap<>();
+            operation.put("succeeded", operationStats.succeeded());
+            operation.put("failed", operationStats.failed());
+            operation.put("throughput_per_second", round(throughput(operationStats)));
+            operation.put("latency_micros", latencies(operationStats.histogram()));
+            operation.put("errors", operationStats.errors());
+            operations.put(name(entry.getKey()), operation);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options.describe());
+        report.put("operations", operations);
+        return report;
+    }
+
+    private static Map<String, Object> latencies(Histogram histogram) {
+        Map<String, Object> latencies = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            latencies.put(percentileName(percentile), micros(histogram.getValueAtPercentile(percentile)));
+        }
+        latencies.put("max", micros(histogram.getMaxValue()));
+        latencies.put("mean", round(histogram.getMean() / 1000.0));
+        return latencies;
+    }
+
+    private String toHtml() {
+        StringBuilder html = new StringBuilder()
+                .append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Load test report</title>")
+                .append("<style>body{font-family:sans-serif}table{border-collapse:collapse;margin-bottom:1em}")
+                .append("td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}</style></head><body>\n")
+                .append("<h1>Load test report</h1>\n<table>\n");
+        options.describe().forEach((name, value) -> html.append("<tr><th>").append(name).append("</th><td>")
+                .append(escape(String.valueOf(value))).append("</td></tr>\n"));
+        html.append("</table>\n<table>\n<tr><th>operation</th><th>succeeded</th><th>failed</th><th>throughput/s</th>");
+        for (double percentile : PERCENTILES) {
+            html.append("<th>").append(percentileName(percentile)).append(" (us)</th>");
+        }
+        html.append("<th>max (us)</th></tr>\n");
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            Histogram histogram = operationStats.histogram();
+            html.append("<tr><th>").append(name(entry.getKey())).append("</th><td>").append(operationStats.succeeded())
+                    .append("</td><td>").append(operationStats.failed()).append("</td><td>")
+                    .append(round(throughput(operationStats))).append("</td>");
+            for (double percentile : PERCENTILES) {
+                html.append("<td>").append(micros(histogram.getValueAtPercentile(percentile))).append("</td>");
+            }
+            html.append("<td>").append(micros(histogram.getMaxValue())).append("</td></tr>\n");
+        }
+        html.append("</table>\n<table>\n<tr><th>operation</th><th>error</th><th>count</th></tr>\n");
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            entry.getValue().errors().forEach((error, count) -> html.append("<tr><th>").append(name(entry.getKey()))
+                    .append("</th><td>").append(escape(error)).append("</td><td>").append(count).append("</td></tr>\n"));
+        }
+        return html.append("</table>\n</body></html>\n").toString();
+    }
+
+    private double throughput(OperationStats operationStats) {
+        return operationStats.succeeded() / (options.duration().toNanos() / 1e9);
+    }
+
+    private static String name(Operation operation) {
+        return operation.name().toLowerCase(Locale.ROOT);
+    }
+
+    // p50, p99, p99_9...
+    private static String percentileName(double percentile) {
+        return "p" + (percentile == Math.rint(percentile)
+                ? Long.toString((long) percentile)
+                : Double.toString(percentile).replace('.', '_'));
+    }
+
+    private static long micros(long nanos) {
+        return Math.round(nanos / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,145 @@
+package io.acmebank.account_manager.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: request {@code i} is due at {@code start + i / rate} and is sent then, whether or not earlier
+ * requests were answered, so a slow server faces a growing backlog instead of a slower client. Latency is measured
+ * from the time a request was due rather than the time it left, which keeps stalls of the sender itself (or of the
+ * connection pool) in the numbers instead of omitting them.
+ * <p>
+ * Error responses are counted by the {@code error} of their body, the {@code ApiError} of the service, or by their
+ * HTTP status when they have none.
+ */
+final class OpenLoopDriver {
+    enum Operation {
+        BALANCE,
+        TRANSFER
+    }
+
+    static final String CLIENT_BACKLOG = "CLIENT_BACKLOG";
+    static final String TIMEOUT = "TIMEOUT";
+    static final String IO_ERROR = "IO_ERROR";
+
+    private static final long START_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final LoadTestOptions options;
+    private final URI base;
+    private final AccountSelector accounts;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Semaphore inFlight;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+    OpenLoopDriver(LoadTestOptions options, URI base) {
+        this.options = options;
+        this.base = base;
+        this.accounts = new AccountSelector(options.firstAccount(), options.accounts(), options.skew());
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(options.timeout())
+                .build();
+        this.inFlight = new Semaphore(options.maxInFlight());
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    Map<Operation, OperationStats> run() throws InterruptedException {
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / (double) options.rate();
+        long start = System.nanoTime() + START_DELAY_NANOS;
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        for (long i = 0; ; i++) {
+            long due = start + Math.round(i * intervalNanos);
+            if (due >= end) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < due) {
+                LockSupport.parkNanos(due - now);
+            }
+            Operation operation = ThreadLocalRandom.current().nextDouble() < options.transferRatio()
+                    ? Operation.TRANSFER
+                    : Operation.BALANCE;
+            // warmup outcomes are not kept
+            OperationStats operationStats = due >= measureFrom ? stats.get(operation) : null;
+            if (!inFlight.tryAcquire()) {
+                if (operationStats != null) {
+                    operationStats.error(CLIENT_BACKLOG);
+                }
+                continue;
+            }
+            httpClient.sendAsync(request(operation), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, failure) -> {
+                        long latency = System.nanoTime() - due;
+                        inFlight.release();
+                        if (operationStats != null) {
+                            record(operationStats, latency, response, failure);
+                        }
+                    });
+        }
+        // responses still on their way are waited for, up to the request timeout
+        if (inFlight.tryAcquire(options.maxInFlight(), options.timeout().toNanos() * 2, TimeUnit.NANOSECONDS)) {
+            inFlight.release(options.maxInFlight());
+        }
+        return stats;
+    }
+
+    private HttpRequest request(Operation operation) {
+        String accountNumber = accounts.next();
+        if (operation == Operation.BALANCE) {
+            return HttpRequest.newBuilder(base.resolve("/accounts/" + accountNumber))
+                    .timeout(options.timeout())
+                    .GET()
+                    .build();
+        }
+        String body = "{\"destination_account_number\":\"" + accounts.nextOtherThan(accountNumber)
+                + "\",\"amount\":{\"amount\":0.01,\"currency\":\"HKD\"}}";
+        return HttpRequest.newBuilder(base.resolve("/accounts/" + accountNumber + "/transfer"))
+                .timeout(options.timeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private void record(OperationStats operationStats, long latencyNanos, HttpResponse<String> response,
+                        Throwable failure) {
+        if (failure != null) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause()
+                    : failure;
+            operationStats.error(cause instanceof HttpTimeoutException ? TIMEOUT : IO_ERROR);
+        } else if (response.statusCode() < 300) {
+            operationStats.success(latencyNanos);
+        } else {
+            operationStats.error(errorOf(response));
+        }
+    }
+
+    private String errorOf(HttpResponse<String> response) {
+        try {
+            JsonNode error = objectMapper.readTree(response.body()).get("error");
+            if (error != null && error.isTextual()) {
+                return error.asText();
+            }
+        } catch (Exception e) {
+            // not a JSON error body
+        }
+        return "HTTP_" + response.statusCode();
+    }
+}
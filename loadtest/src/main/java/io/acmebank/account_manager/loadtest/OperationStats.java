@@ -0,0 +1,52 @@
+package io.acmebank.account_manager.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcomes of one kind of request. Latencies of successful responses go to an HdrHistogram, measured from the time
+ * the request was due to be sent; failures are counted by their error.
+ */
+final class OperationStats {
+    private final Recorder latencies = new Recorder(3);
+    private final LongAdder succeeded = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private Histogram histogram;
+
+    void success(long latencyNanos) {
+        latencies.recordValue(latencyNanos);
+        succeeded.increment();
+    }
+
+    void error(String error) {
+        errors.computeIfAbsent(error, key -> new LongAdder()).increment();
+    }
+
+    // the latencies recorded so far, taken once the run is over
+    Histogram histogram() {
+        if (histogram == null) {
+            histogram = latencies.getIntervalHistogram();
+        }
+        return histogram;
+    }
+
+    long succeeded() {
+        return succeeded.sum();
+    }
+
+    long failed() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    // sorted by error so reports of two runs line up
+    Map<String, Long> errors() {
+        Map<String, Long> sorted = new TreeMap<>();
+        errors.forEach((error, count) -> sorted.put(error, count.sum()));
+        return sorted;
+    }
+}
@@ -0,0 +1,51 @@
+package io.acmebank.account_manager.benchmark;
+
+import io.acmebank.account_manager.service.AccountIdIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Account number to id lookups in {@link AccountIdIndex} against a {@code HashMap<String, Long>} of the same
+ * accounts. Run with the gc profiler to see that the index allocates nothing per lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AccountIdIndexBenchmark {
+    private static final int ACCOUNTS = 1_000_000;
+    private static final long FIRST_ACCOUNT_NUMBER = 10_000_000L;
+
+    private AccountIdIndex index;
+    private Map<String, Long> map;
+    private String[] accountNumbers;
+
+    @Setup
+    public void setUp() {
+        index = new AccountIdIndex(ACCOUNTS);
+        map = new HashMap<>();
+        accountNumbers = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountNumbers[i] = Long.toString(FIRST_ACCOUNT_NUMBER + i);
+            index.put(accountNumbers[i], i);
+            map.put(accountNumbers[i], (long) i);
+        }
+    }
+
+    @Benchmark
+    public long indexGet() {
+        return index.get(randomAccountNumber());
+    }
+
+    @Benchmark
+    public Long hashMapGet() {
+        return map.get(randomAccountNumber());
+    }
+
+    private String randomAccountNumber() {
+        return accountNumbers[ThreadLocalRandom.current().nextInt(ACCOUNTS)];
+    }
+}
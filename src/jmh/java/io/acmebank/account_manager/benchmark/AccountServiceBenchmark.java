@@ -0,0 +1,83 @@
+package io.acmebank.account_manager.benchmark;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.service.AccountService;
+import io.acmebank.account_manager.service.NoAccountFoundException;
+import io.acmebank.account_manager.service.TransferStatus;
+import org.javamoney.moneta.FastMoney;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single threaded cost of the service layer against H2, including repository lookups, entity hydration,
+ * transaction handling and the flush of a transfer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AccountServiceBenchmark {
+    private static final AccountNumber UNKNOWN_ACCOUNT = new AccountNumber("unknown");
+
+    @Param({"10000"})
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private List<AccountNumber> accountNumbers;
+    private MonetaryAmount amount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("service-benchmark", Map.of());
+        accountService = context.getBean(AccountService.class);
+        accountNumbers = BenchmarkContext.seedAccounts(context, accounts);
+        amount = FastMoney.ofMinor(Monetary.getCurrency("HKD"), 1L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MonetaryAmount getBalance() throws Exception {
+        return accountService.getBalance(randomAccount());
+    }
+
+    // the 404 path, once through the exception and once through the Optional result
+    @Benchmark
+    public Object getBalanceOfUnknownAccount() {
+        try {
+            return accountService.getBalance(UNKNOWN_ACCOUNT);
+        } catch (NoAccountFoundException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Optional<MonetaryAmount> findBalanceOfUnknownAccount() {
+        return accountService.findBalance(UNKNOWN_ACCOUNT);
+    }
+
+    @Benchmark
+    public TransferStatus transferFromUnknownAccount() {
+        return accountService.tryTransferMoney(UNKNOWN_ACCOUNT, randomAccount(), amount);
+    }
+
+    @Benchmark
+    public void transferMoney() throws Exception {
+        accountService.transferMoney(randomAccount(), randomAccount(), amount);
+    }
+
+    private AccountNumber randomAccount() {
+        return accountNumbers.get(ThreadLocalRandom.current().nextInt(accountNumbers.size()));
+    }
+}
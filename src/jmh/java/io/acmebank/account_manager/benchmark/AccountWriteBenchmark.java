@@ -0,0 +1,79 @@
+package io.acmebank.account_manager.benchmark;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.NewAccount;
+import io.acmebank.account_manager.service.AccountOpeningService;
+import io.acmebank.account_manager.service.AccountService;
+import org.javamoney.moneta.FastMoney;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Insert and update throughput of the JPA write path with JDBC batching off ({@code batchSize=0}, one statement per
+ * row as before batching was configured) and on. Ids come from the pooled account sequence in both cases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AccountWriteBenchmark {
+    private static final int ACCOUNTS_PER_BULK = 100;
+
+    @Param({"0", "50"})
+    public int batchSize;
+
+    @Param({"10000"})
+    public int accounts;
+
+    private final AtomicLong nextAccountNumber = new AtomicLong(50_000_000);
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private AccountOpeningService accountOpeningService;
+    private List<AccountNumber> accountNumbers;
+    private MonetaryAmount amount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("write-benchmark-" + batchSize,
+                Map.of("spring.jpa.properties.hibernate.jdbc.batch_size", batchSize));
+        accountService = context.getBean(AccountService.class);
+        accountOpeningService = context.getBean(AccountOpeningService.class);
+        accountNumbers = BenchmarkContext.seedAccounts(context, accounts);
+        amount = FastMoney.ofMinor(Monetary.getCurrency("HKD"), 1L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // scores are accounts inserted, not bulk requests
+    @Benchmark
+    @OperationsPerInvocation(ACCOUNTS_PER_BULK)
+    public void openAccounts() throws Exception {
+        List<NewAccount> newAccounts = new ArrayList<>(ACCOUNTS_PER_BULK);
+        for (int i = 0; i < ACCOUNTS_PER_BULK; i++) {
+            newAccounts.add(new NewAccount(new AccountNumber(String.valueOf(nextAccountNumber.getAndIncrement())),
+                    amount));
+        }
+        accountOpeningService.openAccounts(newAccounts);
+    }
+
+    // two balance updates and two ledger inserts per transfer
+    @Benchmark
+    public void transferMoney() throws Exception {
+        accountService.transferMoney(randomAccount(), randomAccount(), amount);
+    }
+
+    private AccountNumber randomAccount() {
+        return accountNumbers.get(ThreadLocalRandom.current().nextInt(accountNumbers.size()));
+    }
+}
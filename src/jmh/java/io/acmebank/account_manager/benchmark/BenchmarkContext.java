@@ -0,0 +1,70 @@
+package io.acmebank.account_manager.benchmark;
+
+import io.acmebank.account_manager.AccountManagerApplication;
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.repository.AccountRepository;
+import io.acmebank.account_manager.repository.entity.Account;
+import org.javamoney.moneta.FastMoney;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.money.Monetary;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the application, by default without a web server, against a private in-memory H2 database and seeds it with
+ * accounts numbered from {@code 10000000}, so benchmarks exercise the real repository and transaction stack.
+ */
+final class BenchmarkContext {
+    static final long STARTING_BALANCE = 1_000_000_000L;
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String name, Map<String, Object> properties) {
+        return start(name, properties, WebApplicationType.NONE);
+    }
+
+    // with an embedded server on a random port, read it back from "local.server.port"
+    static ConfigurableApplicationContext startServer(String name, Map<String, Object> properties) {
+        Map<String, Object> withPort = new HashMap<>(properties);
+        withPort.put("server.port", 0);
+        return start(name, withPort, WebApplicationType.SERVLET);
+    }
+
+    private static ConfigurableApplicationContext start(String name, Map<String, Object> properties,
+                                                        WebApplicationType webApplicationType) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:" + name + ";MODE=MYSQL;DB_CLOSE_DELAY=-1");
+        defaults.put("logging.level.root", "WARN");
+        // every load driver client shares one address, rate limits would measure the limiter instead of the service
+        defaults.put("account-manager.admission.enabled", false);
+        defaults.putAll(properties);
+        // passed as command line arguments so they take precedence over application.properties
+        String[] args = defaults.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(AccountManagerApplication.class)
+                .web(webApplicationType)
+                .run(args);
+    }
+
+    static List<AccountNumber> seedAccounts(ConfigurableApplicationContext context, int count) {
+        AccountRepository repository = context.getBean(AccountRepository.class);
+        List<AccountNumber> accountNumbers = new ArrayList<>(count);
+        List<Account> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AccountNumber accountNumber = new AccountNumber(String.valueOf(10_000_000 + i));
+            Account account = new Account(FastMoney.ofMinor(Monetary.getCurrency("HKD"), STARTING_BALANCE));
+            account.setAccountNumber(accountNumber.value());
+            accountNumbers.add(accountNumber);
+            accounts.add(account);
+        }
+        repository.saveAllAndFlush(accounts);
+        return accountNumbers;
+    }
+}
@@ -0,0 +1,102 @@
+package io.acmebank.account_manager.benchmark;
+
+import io.acmebank.account_manager.binary.BinaryProtocolClient;
+import io.acmebank.account_manager.binary.BinaryProtocolServer;
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.service.TransferStatus;
+import org.javamoney.moneta.FastMoney;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance reads and transfers over loopback through the REST API (HTTP/1.1 and JSON, one request at a time per
+ * connection) and through the binary protocol, one request at a time and {@value #PIPELINE_DEPTH} pipelined on one
+ * connection. Both paths end in the same account service and database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BinaryProtocolBenchmark {
+    private static final int ACCOUNTS = 10_000;
+    private static final int PIPELINE_DEPTH = 64;
+
+    private ConfigurableApplicationContext context;
+    private List<AccountNumber> accountNumbers;
+    private HttpClient httpClient;
+    private URI base;
+    private BinaryProtocolClient binaryClient;
+    private MonetaryAmount amount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startServer("binary-benchmark",
+                Map.of("account-manager.binary.enabled", true, "account-manager.binary.port", 0));
+        accountNumbers = BenchmarkContext.seedAccounts(context, ACCOUNTS);
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        base = URI.create("http://localhost:" + context.getEnvironment().getRequiredProperty("local.server.port"));
+        binaryClient = BinaryProtocolClient.connect("localhost", context.getBean(BinaryProtocolServer.class).getPort());
+        amount = FastMoney.ofMinor(Monetary.getCurrency("HKD"), 1L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        binaryClient.close();
+        context.close();
+    }
+
+    @Benchmark
+    public String restBalance() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("/accounts/" + randomAccount().value())).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    @Benchmark
+    public int restTransfer() throws Exception {
+        String body = "{\"destination_account_number\":\"" + randomAccount().value()
+                + "\",\"amount\":{\"amount\":0.01,\"currency\":\"HKD\"}}";
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("/accounts/" + randomAccount().value() + "/transfer"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public Optional<MonetaryAmount> binaryBalance() throws Exception {
+        return binaryClient.getBalance(randomAccount()).get();
+    }
+
+    @Benchmark
+    public TransferStatus binaryTransfer() throws Exception {
+        return binaryClient.transfer(randomAccount(), randomAccount(), amount).get();
+    }
+
+    // scores are transfers, not batches of them
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE_DEPTH)
+    public void binaryPipelinedTransfers() throws Exception {
+        List<CompletableFuture<TransferStatus>> outcomes = new ArrayList<>(PIPELINE_DEPTH);
+        for (int i = 0; i < PIPELINE_DEPTH; i++) {
+            outcomes.add(binaryClient.transfer(randomAccount(), randomAccount(), amount));
+        }
+        CompletableFuture.allOf(outcomes.toArray(CompletableFuture[]::new)).get();
+    }
+
+    private AccountNumber randomAccount() {
+        return accountNumbers.get(ThreadLocalRandom.current().nextInt(accountNumbers.size()));
+    }
+}
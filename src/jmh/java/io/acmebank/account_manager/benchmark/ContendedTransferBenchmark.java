@@ -0,0 +1,74 @@
+package io.acmebank.account_manager.benchmark;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.service.AccountService;
+import io.acmebank.account_manager.service.NotEnoughMoneyException;
+import org.javamoney.moneta.FastMoney;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parallel transfers over a shared account population, either spread uniformly or concentrated on a few hot
+ * accounts, for each locking mode. Transfers rejected by a lock conflict or for lack of funds are consumed rather
+ * than failing the run, so the reported throughput includes those attempts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class ContendedTransferBenchmark {
+    @Param({"1000"})
+    public int accounts;
+
+    @Param({"uniform", "zipfian"})
+    public String distribution;
+
+    @Param({"striped", "pessimistic", "optimistic"})
+    public String locking;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private List<AccountNumber> accountNumbers;
+    private ZipfianGenerator zipfian;
+    private MonetaryAmount amount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("contended-" + distribution + "-" + locking,
+                Map.of("account-manager.transfer.locking", locking));
+        accountService = context.getBean(AccountService.class);
+        accountNumbers = BenchmarkContext.seedAccounts(context, accounts);
+        zipfian = new ZipfianGenerator(accounts, 0.99);
+        amount = FastMoney.ofMinor(Monetary.getCurrency("HKD"), 1L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void transferMoney(Blackhole blackhole) throws Exception {
+        try {
+            accountService.transferMoney(nextAccount(), nextAccount(), amount);
+        } catch (NotEnoughMoneyException | ConcurrencyFailureException e) {
+            blackhole.consume(e);
+        }
+    }
+
+    private AccountNumber nextAccount() {
+        int index = "zipfian".equals(distribution)
+                ? zipfian.next()
+                : ThreadLocalRandom.current().nextInt(accountNumbers.size());
+        return accountNumbers.get(index);
+    }
+}
@@ -0,0 +1,84 @@
+package io.acmebank.account_manager.benchmark;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load: every client is a virtual thread with its own connection, issuing 90% balance reads and
+ * 10% transfers between random accounts back to back until the duration is over.
+ */
+final class HttpLoadDriver {
+
+    record Result(long requests, long errors, Duration duration, LatencyHistogram latencies) {
+
+        double throughput() {
+            return requests / (double) duration.toSeconds();
+        }
+
+        String describe() {
+            return String.format("requests=%d throughput=%.0f req/s errors=%d p50=%dus p99=%dus p99.9=%dus",
+                    requests, throughput(), errors, latencies.percentileMicros(50),
+                    latencies.percentileMicros(99), latencies.percentileMicros(99.9));
+        }
+    }
+
+    private HttpLoadDriver() {
+    }
+
+    static Result run(URI base, List<AccountNumber> accountNumbers, int clients, Duration duration) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        LatencyHistogram latencies = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                clientThreads.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = nextRequest(base, accountNumbers);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 300) {
+                                errors.increment();
+                            }
+                        } catch (Exception e) {
+                            errors.increment();
+                        }
+                        latencies.record(System.nanoTime() - start);
+                    }
+                    return null;
+                });
+            }
+        }
+        return new Result(latencies.count(), errors.sum(), duration, latencies);
+    }
+
+    private static HttpRequest nextRequest(URI base, List<AccountNumber> accountNumbers) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        AccountNumber account = accountNumbers.get(random.nextInt(accountNumbers.size()));
+        if (random.nextInt(10) > 0) {
+            return HttpRequest.newBuilder(base.resolve("/accounts/" + account.value())).GET().build();
+        }
+        AccountNumber destination = accountNumbers.get(random.nextInt(accountNumbers.size()));
+        String body = "{\"destination_account_number\":\"" + destination.value()
+                + "\",\"amount\":{\"amount\":0.01,\"currency\":\"HKD\"}}";
+        return HttpRequest.newBuilder(base.resolve("/accounts/" + account.value() + "/transfer"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
@@ -0,0 +1,111 @@
+package io.acmebank.account_manager.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import io.acmebank.account_manager.controller.AccountController.AccountResponse;
+import io.acmebank.account_manager.controller.AccountJsonHttpMessageConverter;
+import io.acmebank.account_manager.controller.AccountController.AccountTransferRequest;
+import org.javamoney.moneta.FastMoney;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.zalando.jackson.datatype.money.MoneyModule;
+
+import javax.money.Monetary;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes the controller payloads with an ObjectMapper configured the way Spring Boot configures it
+ * for this application (SNAKE_CASE naming, MoneyModule with default formatting, parameter names module), and with
+ * the streaming AccountJsonHttpMessageConverter built from the same ObjectMapper, with and without the formatted amount.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonCodecBenchmark {
+    private static final MediaType UNFORMATTED = MediaType.parseMediaType("application/json;formatted=false");
+    private ObjectWriter responseWriter;
+    private ObjectReader requestReader;
+    private AccountResponse response;
+    private byte[] request;
+    private AccountJsonHttpMessageConverter converter;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream(256);
+    private final HttpOutputMessage outputMessage = new HttpOutputMessage() {
+        private final HttpHeaders headers = new HttpHeaders();
+
+        @Override
+        public OutputStream getBody() {
+            return output;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .modulesToInstall(new MoneyModule().withDefaultFormatting())
+                .build();
+        converter = new AccountJsonHttpMessageConverter(objectMapper);
+        responseWriter = objectMapper.writerFor(AccountResponse.class);
+        requestReader = objectMapper.readerFor(AccountTransferRequest.class);
+        response = new AccountResponse(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 100_000_000L));
+        request = """
+                {"destination_account_number":"88888888","amount":{"amount":20000,"currency":"HKD"}}"""
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeAccountResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public AccountTransferRequest decodeAccountTransferRequest() throws IOException {
+        return requestReader.readValue(request);
+    }
+
+    @Benchmark
+    public byte[] encodeAccountResponseWithConverter() throws IOException {
+        output.reset();
+        converter.write(response, MediaType.APPLICATION_JSON, outputMessage);
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeUnformattedAccountResponseWithConverter() throws IOException {
+        output.reset();
+        converter.write(response, UNFORMATTED, outputMessage);
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public Object decodeAccountTransferRequestWithConverter() throws IOException {
+        return converter.read(AccountTransferRequest.class, new HttpInputMessage() {
+            @Override
+            public InputStream getBody() {
+                return new ByteArrayInputStream(request);
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return HttpHeaders.EMPTY;
+            }
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package io.acmebank.account_manager.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with 10 microsecond buckets up to 10 seconds, anything slower lands in the last bucket.
+ */
+final class LatencyHistogram {
+    private static final long BUCKET_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    private static final int BUCKETS = (int) (TimeUnit.SECONDS.toNanos(10) / BUCKET_NANOS);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long nanos) {
+        counts.incrementAndGet((int) Math.min(nanos / BUCKET_NANOS, BUCKETS - 1));
+    }
+
+    long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    // upper bound of the bucket holding the given percentile, in microseconds
+    long percentileMicros(double percentile) {
+        long threshold = (long) Math.ceil(count() * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= threshold && seen > 0) {
+                return TimeUnit.NANOSECONDS.toMicros((i + 1) * BUCKET_NANOS);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,93 @@
+package io.acmebank.account_manager.benchmark;
+
+import io.acmebank.account_manager.domain.Currencies;
+import io.acmebank.account_manager.domain.FxRates;
+import io.acmebank.account_manager.domain.FxRates.Conversion;
+import io.acmebank.account_manager.domain.FxRates.FxRate;
+import io.acmebank.account_manager.repository.entity.Account;
+import org.javamoney.moneta.FastMoney;
+import org.javamoney.moneta.function.MonetaryQueries;
+import org.openjdk.jmh.annotations.*;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance arithmetic of one transfer, as it was done on MonetaryAmount/BigDecimal ({@code legacy*})
+ * and as it is done on long minor units. Run with the gc profiler to compare bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MoneyConversionBenchmark {
+    private Account sourceAccount;
+    private Account destinationAccount;
+    private MonetaryAmount amount;
+    private long minorUnitsAmount;
+    private Conversion usdToHkd;
+    private BigDecimal usdHkdRate;
+
+    // balances of the legacy variant, kept as the BigDecimal column used to be
+    private String currency;
+    private BigDecimal legacySourceBalance;
+    private BigDecimal legacyDestinationBalance;
+
+    @Setup
+    public void setUp() {
+        sourceAccount = new Account(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 0L));
+        sourceAccount.setBalanceMinorUnits(Long.MAX_VALUE / 2);
+        destinationAccount = new Account(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 0L));
+        amount = FastMoney.ofMinor(Monetary.getCurrency("HKD"), 1L);
+        minorUnitsAmount = Currencies.toMinorUnits(amount);
+        usdHkdRate = new BigDecimal("7.8");
+        usdToHkd = FxRates.of(List.of(new FxRate("USD", "HKD", usdHkdRate))).conversion("USD", "HKD");
+        currency = "HKD";
+        legacySourceBalance = BigDecimal.valueOf(1_000_000_000_000L);
+        legacyDestinationBalance = BigDecimal.ZERO;
+    }
+
+    @Benchmark
+    public MonetaryAmount accountGetBalance() {
+        return sourceAccount.getBalance();
+    }
+
+    @Benchmark
+    public long minorUnitsTransfer() {
+        if (sourceAccount.getBalanceMinorUnits() < minorUnitsAmount) {
+            throw new IllegalStateException();
+        }
+        sourceAccount.debit(minorUnitsAmount);
+        destinationAccount.credit(minorUnitsAmount);
+        return destinationAccount.getBalanceMinorUnits();
+    }
+
+    // what Account.getBalance and AccountServiceImpl.toMinor did before balances became long minor units
+    @Benchmark
+    public BigDecimal legacyTransfer() {
+        MonetaryAmount sourceBalance = FastMoney.ofMinor(Monetary.getCurrency(currency), legacySourceBalance.longValue());
+        if (sourceBalance.isLessThan(amount)) {
+            throw new IllegalStateException();
+        }
+        legacySourceBalance = new BigDecimal(sourceBalance.subtract(amount).query(MonetaryQueries.convertMinorPart()));
+        MonetaryAmount destinationBalance = FastMoney.ofMinor(Monetary.getCurrency(currency), legacyDestinationBalance.longValue());
+        legacyDestinationBalance = new BigDecimal(destinationBalance.add(amount).query(MonetaryQueries.convertMinorPart()));
+        return legacyDestinationBalance;
+    }
+
+    // converting a cross-currency amount with the precomputed fixed-point factor, and with BigDecimal
+    @Benchmark
+    public long fixedPointConversion() {
+        return usdToHkd.convert(minorUnitsAmount);
+    }
+
+    @Benchmark
+    public long bigDecimalConversion() {
+        return BigDecimal.valueOf(minorUnitsAmount).multiply(usdHkdRate)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+}
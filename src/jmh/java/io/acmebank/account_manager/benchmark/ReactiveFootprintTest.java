@@ -0,0 +1,68 @@
+package io.acmebank.account_manager.benchmark;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the same number of concurrent connections against the MVC and the reactive stack and reports what each
+ * costs: platform threads, heap per connection and throughput per core. Heap is sampled after a GC halfway through
+ * the run and compared with the idle server, so it includes the client side of each connection, identical for both.
+ * Run with {@code ./gradlew reactiveFootprintTest -Pclients=2000 -PdurationSeconds=30}, raising {@code clients}
+ * until errors or latency show where each stack stops keeping up.
+ */
+public final class ReactiveFootprintTest {
+    private static final int ACCOUNTS = 10_000;
+
+    private ReactiveFootprintTest() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int clients = Integer.getInteger("clients", 2_000);
+        Duration duration = Duration.ofSeconds(Long.getLong("durationSeconds", 30));
+
+        run("mvc", Map.of("server.tomcat.max-connections", 20_000), clients, duration);
+        run("reactive", Map.of("spring.profiles.active", "reactive"), clients, duration);
+    }
+
+    private static void run(String stack, Map<String, Object> properties, int clients, Duration duration) throws InterruptedException {
+        try (ConfigurableApplicationContext context = BenchmarkContext.startServer("footprint-" + stack, properties)) {
+            List<AccountNumber> accountNumbers = BenchmarkContext.seedAccounts(context, ACCOUNTS);
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            long idleHeap = usedHeapAfterGc();
+            int idleThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+
+            AtomicLong loadedHeap = new AtomicLong();
+            AtomicLong loadedThreads = new AtomicLong();
+            Thread sampler = Thread.ofVirtual().start(() -> {
+                try {
+                    Thread.sleep(duration.dividedBy(2));
+                } catch (InterruptedException e) {
+                    return;
+                }
+                loadedHeap.set(usedHeapAfterGc());
+                loadedThreads.set(ManagementFactory.getThreadMXBean().getThreadCount());
+            });
+            HttpLoadDriver.Result result = HttpLoadDriver.run(URI.create("http://localhost:" + port),
+                    accountNumbers, clients, duration);
+            sampler.join();
+
+            int cores = Runtime.getRuntime().availableProcessors();
+            System.out.printf("%-8s clients=%d connections/core=%d threads=%d (idle %d) heap/connection=%dB " +
+                            "throughput/core=%.0f req/s %s%n",
+                    stack, clients, clients / cores, loadedThreads.get(), idleThreads,
+                    Math.max(0, loadedHeap.get() - idleHeap) / clients, result.throughput() / cores, result.describe());
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
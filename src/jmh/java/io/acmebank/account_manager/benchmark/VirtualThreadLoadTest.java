@@ -0,0 +1,51 @@
+package io.acmebank.account_manager.benchmark;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs {@link HttpLoadDriver} against a live server, first with Tomcat's platform thread pool and then with the
+ * virtual-threads profile.
+ * Run with {@code ./gradlew virtualThreadLoadTest -Pclients=10000 -PdurationSeconds=30}; the process may need a
+ * raised open file limit ({@code ulimit -n}) for that many connections.
+ */
+public final class VirtualThreadLoadTest {
+    private static final int ACCOUNTS = 10_000;
+    // the virtual-threads profile's connection and pool limits, given to both runs so only the threads differ
+    private static final Map<String, Object> LIMITS = Map.of(
+            "server.tomcat.max-connections", 20_000,
+            "server.tomcat.accept-count", 1_000,
+            "spring.datasource.hikari.maximum-pool-size", 32,
+            "spring.datasource.hikari.minimum-idle", 32,
+            "spring.datasource.hikari.connection-timeout", 5_000);
+
+    private VirtualThreadLoadTest() {
+    }
+
+    public static void main(String[] args) {
+        int clients = Integer.getInteger("clients", 10_000);
+        Duration duration = Duration.ofSeconds(Long.getLong("durationSeconds", 30));
+
+        run("platform", Map.of(), clients, duration);
+        run("virtual", Map.of("spring.profiles.active", "virtual-threads"), clients, duration);
+    }
+
+    private static void run(String mode, Map<String, Object> properties, int clients, Duration duration) {
+        Map<String, Object> withLimits = new HashMap<>(LIMITS);
+        withLimits.putAll(properties);
+        try (ConfigurableApplicationContext context = BenchmarkContext.startServer("load-" + mode, withLimits)) {
+            List<AccountNumber> accountNumbers = BenchmarkContext.seedAccounts(context, ACCOUNTS);
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+
+            HttpLoadDriver.Result result = HttpLoadDriver.run(URI.create("http://localhost:" + port),
+                    accountNumbers, clients, duration);
+            System.out.printf("%-8s clients=%d %s%n", mode, clients, result.describe());
+        }
+    }
+}
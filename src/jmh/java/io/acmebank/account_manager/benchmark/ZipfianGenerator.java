@@ -0,0 +1,30 @@
+package io.acmebank.account_manager.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws indexes in {@code [0, items)} where index {@code k} has probability proportional to {@code 1 / (k + 1)^skew},
+ * i.e. a handful of "hot" accounts receive most of the traffic.
+ */
+final class ZipfianGenerator {
+    private final double[] cumulative;
+
+    ZipfianGenerator(int items, double skew) {
+        cumulative = new double[items];
+        double sum = 0;
+        for (int k = 0; k < items; k++) {
+            sum += 1.0 / Math.pow(k + 1, skew);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < items; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    int next() {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        int item = index >= 0 ? index : -index - 1;
+        return Math.min(item, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,32 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Moves account ids from {@code hibernate_sequence}, one round trip per insert, to {@code account_sequence}
+ * handing out blocks of 50 to Hibernate's pooled optimizer.
+ * <p>
+ * The pooled optimizer reads each sequence value as the last id of a block, so the sequence starts a full block
+ * above the highest id already taken. That value depends on the data, hence a Java migration.
+ */
+public class V3__Create_account_sequence extends BaseJavaMigration {
+    static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            long maxId;
+            try (ResultSet resultSet = statement.executeQuery("select coalesce(max(id), 0) from accounts")) {
+                resultSet.next();
+                maxId = resultSet.getLong(1);
+            }
+            statement.execute("create sequence account_sequence start with " + (maxId + ALLOCATION_SIZE)
+                    + " increment by " + ALLOCATION_SIZE);
+            statement.execute("drop sequence hibernate_sequence");
+        }
+    }
+}
@@ -2,12 +2,18 @@ package io.acmebank.account_manager;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class AccountManagerApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(AccountManagerApplication.class, args);
+        SpringApplication application = new SpringApplication(AccountManagerApplication.class);
+        // startup steps, served on /actuator/startup
+        application.setApplicationStartup(new BufferingApplicationStartup(2048));
+        application.run(args);
     }
 
 }
@@ -2,9 +2,11 @@ package io.acmebank.account_manager;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.zalando.jackson.datatype.money.MoneyModule;
 
 @Configuration
+@EnableScheduling
 public class AccountManagerConfiguration {
 
     // jackson money module for JSON de/serialization of MonetaryAmount
@@ -0,0 +1,36 @@
+package io.acmebank.account_manager;
+
+import io.acmebank.account_manager.controller.AdmissionControlInterceptor;
+import io.acmebank.account_manager.service.AdmissionProperties;
+import io.acmebank.account_manager.service.TransferAdmission;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts {@link AdmissionControlInterceptor} in front of the transfer endpoints of the MVC stack.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "account-manager.admission.enabled", havingValue = "true")
+public class AdmissionControlConfiguration implements WebMvcConfigurer {
+    private final AdmissionProperties properties;
+    private final TransferAdmission transferAdmission;
+    private final MeterRegistry registry;
+
+    public AdmissionControlConfiguration(AdmissionProperties properties, TransferAdmission transferAdmission,
+                                         MeterRegistry registry) {
+        this.properties = properties;
+        this.transferAdmission = transferAdmission;
+        this.registry = registry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptorRegistry) {
+        interceptorRegistry.addInterceptor(new AdmissionControlInterceptor(properties, transferAdmission, registry))
+                .addPathPatterns("/accounts/*/transfer", "/accounts/transfers:batch");
+    }
+}
@@ -0,0 +1,22 @@
+package io.acmebank.account_manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.acmebank.account_manager.controller.AccountJsonHttpMessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Serves the balance, transfer and error payloads with {@link AccountJsonHttpMessageConverter} instead of the
+ * Jackson databind converter. Spring Boot puts HttpMessageConverter beans ahead of its defaults, everything the
+ * converter does not handle still goes to Jackson.
+ */
+@Configuration
+@ConditionalOnProperty(name = "account-manager.fast-json.enabled", havingValue = "true")
+public class FastJsonConfiguration {
+
+    @Bean
+    public AccountJsonHttpMessageConverter accountJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        return new AccountJsonHttpMessageConverter(objectMapper);
+    }
+}
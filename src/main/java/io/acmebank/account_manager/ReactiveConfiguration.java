@@ -0,0 +1,63 @@
+package io.acmebank.account_manager;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * R2DBC access for the {@code reactive} profile, opened on the same H2 database as the JDBC data source so the schema
+ * and seed data stay managed in one place.
+ * <p>
+ * The connection pool and its transaction manager are deliberately not beans: a {@code ConnectionFactory} bean makes
+ * Spring Boot back off from the JDBC data source (and with it JPA), and a second transaction manager bean would make
+ * every unqualified {@code @Transactional} ambiguous.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfiguration implements DisposableBean {
+    private static final String JDBC_H2_PREFIX = "jdbc:h2:";
+
+    private final ConnectionPool connectionPool;
+
+    public ReactiveConfiguration(DataSourceProperties dataSourceProperties,
+                                 @Value("${account-manager.reactive.pool-size:32}") int poolSize) {
+        String url = dataSourceProperties.determineUrl();
+        if (!url.startsWith(JDBC_H2_PREFIX)) {
+            throw new IllegalStateException("The reactive profile only supports H2, data source url is " + url);
+        }
+        H2ConnectionFactory connectionFactory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(url.substring(JDBC_H2_PREFIX.length()))
+                .username(dataSourceProperties.determineUsername())
+                .password(dataSourceProperties.determinePassword())
+                .build());
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionPool));
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+}
@@ -0,0 +1,39 @@
+package io.acmebank.account_manager;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Connection to a read replica of the primary database, used for read-only transactions once {@code url} is set.
+ * Pool settings go under {@code account-manager.replica.hikari}.
+ */
+@ConfigurationProperties(prefix = "account-manager.replica")
+public class ReadReplicaProperties {
+
+    private String url;
+    private String username;
+    private String password;
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
@@ -0,0 +1,39 @@
+package io.acmebank.account_manager;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the schema migration at startup, published as {@code account_manager.startup.migration} next to the
+ * {@code application.started.time} and {@code application.ready.time} metrics of Spring Boot.
+ */
+@Configuration
+public class SchemaMigrationConfiguration {
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaMigrationConfiguration.class);
+
+    @Bean
+    public FlywayMigrationStrategy timedFlywayMigrationStrategy(MeterRegistry registry) {
+        return flyway -> {
+            long start = System.nanoTime();
+            MigrateResult result = flyway.migrate();
+            long elapsed = System.nanoTime() - start;
+            Timer.builder("account_manager.startup.migration")
+                    .description("Time taken to migrate the schema at startup, seeding included")
+                    .register(registry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            Gauge.builder("account_manager.startup.migrations.applied", result, migrations -> migrations.migrationsExecuted)
+                    .description("Migrations applied at startup")
+                    .register(registry);
+            LOG.info("Applied {} schema migrations in {} ms", result.migrationsExecuted, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        };
+    }
+}
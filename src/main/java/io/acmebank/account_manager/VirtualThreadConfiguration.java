@@ -0,0 +1,24 @@
+package io.acmebank.account_manager;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every Tomcat request, and so every controller and transactional service call, on its own virtual thread
+ * instead of the bounded worker pool. Blocking on JDBC then parks a cheap virtual thread, the real limit on
+ * concurrent database work becomes the Hikari pool (see application-virtual-threads.properties).
+ * Transfer stripes are ReentrantLocks, so waiting on them does not pin the carrier thread.
+ */
+@Configuration
+@ConditionalOnProperty(name = "account-manager.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -0,0 +1,142 @@
+package io.acmebank.account_manager.binary;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.Currencies;
+import io.acmebank.account_manager.service.TransferStatus;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import javax.money.CurrencyUnit;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Frames of the binary protocol, big endian:
+ * <pre>
+ * frame    = length:int32 opcode:uint8 correlation-id:int64 body    (length counts the bytes after itself)
+ * string   = length:uint8 US-ASCII bytes
+ * currency = 3 US-ASCII upper case letters
+ *
+ * GET_BALANCE     0x01  account-number:string
+ * TRANSFER        0x02  source:string destination:string currency amount:int64 idempotency-key:string
+ * BALANCE_RESULT  0x81  status:uint8 [currency balance:int64 when OK]
+ * TRANSFER_RESULT 0x82  status:uint8
+ * </pre>
+ * Amounts are in minor units of their currency, an empty idempotency key transfers without one. Requests on a
+ * connection may be sent without waiting for the previous responses, which can come back in any order and are
+ * matched to their request by correlation id.
+ */
+public final class BinaryProtocol {
+    public static final int LENGTH_FIELD_LENGTH = 4;
+    public static final int HEADER_LENGTH = 1 + 8;
+
+    public static final byte GET_BALANCE = 0x01;
+    public static final byte TRANSFER = 0x02;
+    public static final byte BALANCE_RESULT = (byte) 0x81;
+    public static final byte TRANSFER_RESULT = (byte) 0x82;
+
+    public static final byte OK = 0;
+    public static final byte SOURCE_ACCOUNT_NOT_FOUND = 1;
+    public static final byte DESTINATION_ACCOUNT_NOT_FOUND = 2;
+    public static final byte NOT_ENOUGH_FUNDS = 3;
+    public static final byte UNSUPPORTED_CURRENCY_PAIR = 4;
+    public static final byte IDEMPOTENCY_KEY_IN_PROGRESS = 5;
+    public static final byte IDEMPOTENCY_KEY_REUSED = 6;
+    public static final byte AMOUNT_TOO_SMALL = 7;
+    public static final byte INVALID_AMOUNT = 8;
+    public static final byte BAD_REQUEST = 0x40;
+    public static final byte OVERLOADED = 0x41;
+    public static final byte INTERNAL_ERROR = 0x7f;
+
+    // the same limit as the Idempotency-Key header of the REST API
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+
+    private static final int CURRENCY_LENGTH = 3;
+    private static final int MAX_STRING_LENGTH = 255;
+    // units by their three letter code read as a base 26 number, resolved once per code
+    private static final AtomicReferenceArray<CurrencyUnit> CURRENCIES = new AtomicReferenceArray<>(26 * 26 * 26);
+
+    private BinaryProtocol() {
+    }
+
+    // the frame starts with a placeholder length, set by endFrame
+    public static ByteBuf startFrame(ByteBuf buffer, byte opcode, long correlationId) {
+        return buffer.writeInt(0).writeByte(opcode).writeLong(correlationId);
+    }
+
+    public static ByteBuf endFrame(ByteBuf buffer) {
+        return buffer.setInt(0, buffer.writerIndex() - LENGTH_FIELD_LENGTH);
+    }
+
+    public static void writeString(ByteBuf buffer, String value) {
+        if (value.length() > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("Strings are limited to " + MAX_STRING_LENGTH + " characters: " + value);
+        }
+        buffer.writeByte(value.length());
+        buffer.writeCharSequence(value, StandardCharsets.US_ASCII);
+    }
+
+    // decoded straight from the frame into the String, without an intermediate copy
+    public static String readString(ByteBuf buffer) {
+        int length = buffer.readUnsignedByte();
+        String value = buffer.toString(buffer.readerIndex(), length, StandardCharsets.US_ASCII);
+        buffer.skipBytes(length);
+        return value;
+    }
+
+    public static AccountNumber readAccountNumber(ByteBuf buffer) {
+        return new AccountNumber(readString(buffer));
+    }
+
+    public static void writeCurrency(ByteBuf buffer, CurrencyUnit currency) {
+        String code = currency.getCurrencyCode();
+        if (code.length() != CURRENCY_LENGTH) {
+            throw new IllegalArgumentException("Not a three letter currency code: " + code);
+        }
+        buffer.writeCharSequence(code, StandardCharsets.US_ASCII);
+    }
+
+    public static CurrencyUnit readCurrency(ByteBuf buffer) {
+        int index = 0;
+        for (int i = 0; i < CURRENCY_LENGTH; i++) {
+            int letter = buffer.readByte() - 'A';
+            if (letter < 0 || letter >= 26) {
+                throw new CorruptedFrameException("Currency codes are three upper case letters");
+            }
+            index = index * 26 + letter;
+        }
+        CurrencyUnit currency = CURRENCIES.get(index);
+        if (currency == null) {
+            currency = Currencies.of(buffer.toString(buffer.readerIndex() - CURRENCY_LENGTH, CURRENCY_LENGTH,
+                    StandardCharsets.US_ASCII));
+            CURRENCIES.set(index, currency);
+        }
+        return currency;
+    }
+
+    public static byte toStatus(TransferStatus status) {
+        return switch (status) {
+            case COMPLETED -> OK;
+            case SOURCE_ACCOUNT_NOT_FOUND -> SOURCE_ACCOUNT_NOT_FOUND;
+            case DESTINATION_ACCOUNT_NOT_FOUND -> DESTINATION_ACCOUNT_NOT_FOUND;
+            case NOT_ENOUGH_FUNDS -> NOT_ENOUGH_FUNDS;
+            case UNSUPPORTED_CURRENCY_PAIR -> UNSUPPORTED_CURRENCY_PAIR;
+            case AMOUNT_TOO_SMALL -> AMOUNT_TOO_SMALL;
+            case INVALID_AMOUNT -> INVALID_AMOUNT;
+        };
+    }
+
+    // null for the statuses that are not a transfer outcome
+    public static TransferStatus toTransferStatus(byte status) {
+        return switch (status) {
+            case OK -> TransferStatus.COMPLETED;
+            case SOURCE_ACCOUNT_NOT_FOUND -> TransferStatus.SOURCE_ACCOUNT_NOT_FOUND;
+            case DESTINATION_ACCOUNT_NOT_FOUND -> TransferStatus.DESTINATION_ACCOUNT_NOT_FOUND;
+            case NOT_ENOUGH_FUNDS -> TransferStatus.NOT_ENOUGH_FUNDS;
+            case UNSUPPORTED_CURRENCY_PAIR -> TransferStatus.UNSUPPORTED_CURRENCY_PAIR;
+            case AMOUNT_TOO_SMALL -> TransferStatus.AMOUNT_TOO_SMALL;
+            case INVALID_AMOUNT -> TransferStatus.INVALID_AMOUNT;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,180 @@
+package io.acmebank.account_manager.binary;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.Currencies;
+import io.acmebank.account_manager.service.TransferStatus;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import org.javamoney.moneta.FastMoney;
+
+import javax.money.CurrencyUnit;
+import javax.money.MonetaryAmount;
+import java.nio.channels.ClosedChannelException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client of the {@link BinaryProtocol} over a single connection. Calls return at once and may be issued from any
+ * number of threads, their requests are pipelined on the connection and each future completes when the response
+ * with its correlation id arrives. Statuses other than an account or transfer outcome complete the future with a
+ * {@link BinaryProtocolException}.
+ */
+public class BinaryProtocolClient implements AutoCloseable {
+    private static final int MAX_FRAME_LENGTH = 1024;
+
+    private final EventLoopGroup group;
+    private final Channel channel;
+    private final AtomicLong correlationIds = new AtomicLong();
+    private final Map<Long, CompletableFuture<?>> pending = new ConcurrentHashMap<>();
+
+    private BinaryProtocolClient(String host, int port) {
+        this.group = new NioEventLoopGroup(1);
+        try {
+            this.channel = new Bootstrap()
+                    .group(group)
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel channel) {
+                            channel.pipeline()
+                                    .addLast(new FlushConsolidationHandler(256, true))
+                                    .addLast(new LengthFieldBasedFrameDecoder(MAX_FRAME_LENGTH, 0,
+                                            BinaryProtocol.LENGTH_FIELD_LENGTH, 0, BinaryProtocol.LENGTH_FIELD_LENGTH))
+                                    .addLast(new ResponseHandler());
+                        }
+                    })
+                    .connect(host, port)
+                    .syncUninterruptibly()
+                    .channel();
+        } catch (RuntimeException e) {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+            throw e;
+        }
+    }
+
+    public static BinaryProtocolClient connect(String host, int port) {
+        return new BinaryProtocolClient(host, port);
+    }
+
+    /**
+     * The balance of the account, empty when it does not exist.
+     */
+    public CompletableFuture<Optional<MonetaryAmount>> getBalance(AccountNumber accountNumber) {
+        CompletableFuture<Optional<MonetaryAmount>> result = new CompletableFuture<>();
+        long correlationId = register(result);
+        ByteBuf request = BinaryProtocol.startFrame(channel.alloc().ioBuffer(), BinaryProtocol.GET_BALANCE, correlationId);
+        BinaryProtocol.writeString(request, accountNumber.value());
+        send(request, correlationId);
+        return result;
+    }
+
+    public CompletableFuture<TransferStatus> transfer(AccountNumber sourceAccountNumber,
+                                                      AccountNumber destinationAccountNumber,
+                                                      MonetaryAmount amount) {
+        return transfer(sourceAccountNumber, destinationAccountNumber, amount, "");
+    }
+
+    /**
+     * Transfers the amount, a retry with the same non-empty idempotency key returns the outcome of the first
+     * execution as the {@code Idempotency-Key} header of the REST API does.
+     */
+    public CompletableFuture<TransferStatus> transfer(AccountNumber sourceAccountNumber,
+                                                      AccountNumber destinationAccountNumber,
+                                                      MonetaryAmount amount,
+                                                      String idempotencyKey) {
+        CompletableFuture<TransferStatus> result = new CompletableFuture<>();
+        long correlationId = register(result);
+        ByteBuf request = BinaryProtocol.startFrame(channel.alloc().ioBuffer(), BinaryProtocol.TRANSFER, correlationId);
+        try {
+            BinaryProtocol.writeString(request, sourceAccountNumber.value());
+            BinaryProtocol.writeString(request, destinationAccountNumber.value());
+            BinaryProtocol.writeCurrency(request, amount.getCurrency());
+            request.writeLong(Currencies.toMinorUnits(amount));
+            BinaryProtocol.writeString(request, idempotencyKey);
+        } catch (RuntimeException e) {
+            request.release();
+            pending.remove(correlationId);
+            result.completeExceptionally(e);
+            return result;
+        }
+        send(request, correlationId);
+        return result;
+    }
+
+    private long register(CompletableFuture<?> result) {
+        long correlationId = correlationIds.incrementAndGet();
+        pending.put(correlationId, result);
+        return correlationId;
+    }
+
+    private void send(ByteBuf request, long correlationId) {
+        channel.writeAndFlush(BinaryProtocol.endFrame(request)).addListener(future -> {
+            if (!future.isSuccess()) {
+                CompletableFuture<?> result = pending.remove(correlationId);
+                if (result != null) {
+                    result.completeExceptionally(future.cause());
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        channel.close().syncUninterruptibly();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    private class ResponseHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            byte opcode = frame.readByte();
+            long correlationId = frame.readLong();
+            byte status = frame.readByte();
+            CompletableFuture<?> result = pending.remove(correlationId);
+            if (result == null) {
+                return;
+            }
+            if (opcode == BinaryProtocol.BALANCE_RESULT && status == BinaryProtocol.OK) {
+                CurrencyUnit currency = BinaryProtocol.readCurrency(frame);
+                MonetaryAmount balance = FastMoney.ofMinor(currency, frame.readLong());
+                ((CompletableFuture<Optional<MonetaryAmount>>) result).complete(Optional.of(balance));
+            } else if (opcode == BinaryProtocol.BALANCE_RESULT && status == BinaryProtocol.SOURCE_ACCOUNT_NOT_FOUND) {
+                ((CompletableFuture<Optional<MonetaryAmount>>) result).complete(Optional.empty());
+            } else if (opcode == BinaryProtocol.TRANSFER_RESULT && BinaryProtocol.toTransferStatus(status) != null) {
+                ((CompletableFuture<TransferStatus>) result).complete(BinaryProtocol.toTransferStatus(status));
+            } else {
+                result.completeExceptionally(new BinaryProtocolException(status));
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            ClosedChannelException closed = new ClosedChannelException();
+            pending.values().forEach(result -> result.completeExceptionally(closed));
+            pending.clear();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+}
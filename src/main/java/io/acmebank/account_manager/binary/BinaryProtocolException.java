@@ -0,0 +1,15 @@
+package io.acmebank.account_manager.binary;
+
+public class BinaryProtocolException extends RuntimeException {
+    private final byte status;
+
+    public BinaryProtocolException(byte status) {
+        super(String.format("Request failed with status 0x%02x", status));
+        this.status = status;
+    }
+
+    // one of the BinaryProtocol status codes
+    public byte getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,172 @@
+package io.acmebank.account_manager.binary;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.Currencies;
+import io.acmebank.account_manager.domain.Transfer;
+import io.acmebank.account_manager.service.AccountService;
+import io.acmebank.account_manager.service.IdempotencyKeyConflictException;
+import io.acmebank.account_manager.service.IdempotencyService;
+import io.acmebank.account_manager.service.TransferAdmission;
+import io.acmebank.account_manager.service.TransferStatus;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import org.javamoney.moneta.FastMoney;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.money.CurrencyUnit;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryException;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Decodes the requests of a frame on the I/O thread and hands them to the workers, which call the account service
+ * and write the response as soon as it is known. A slow transfer therefore never holds up the requests pipelined
+ * behind it on the same connection.
+ */
+@ChannelHandler.Sharable
+class BinaryProtocolHandler extends SimpleChannelInboundHandler<ByteBuf> {
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryProtocolHandler.class);
+
+    private final AccountService accountService;
+    private final IdempotencyService idempotencyService;
+    private final TransferAdmission transferAdmission;
+    private final Executor workers;
+
+    BinaryProtocolHandler(AccountService accountService, IdempotencyService idempotencyService,
+                          TransferAdmission transferAdmission, Executor workers) {
+        this.accountService = accountService;
+        this.idempotencyService = idempotencyService;
+        this.transferAdmission = transferAdmission;
+        this.workers = workers;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+        byte opcode = frame.readByte();
+        long correlationId = frame.readLong();
+        switch (opcode) {
+            case BinaryProtocol.GET_BALANCE -> {
+                AccountNumber accountNumber;
+                try {
+                    accountNumber = BinaryProtocol.readAccountNumber(frame);
+                } catch (RuntimeException e) {
+                    writeStatus(ctx, BinaryProtocol.BALANCE_RESULT, correlationId, BinaryProtocol.BAD_REQUEST);
+                    return;
+                }
+                dispatch(ctx, BinaryProtocol.BALANCE_RESULT, correlationId, () -> balance(ctx, correlationId, accountNumber));
+            }
+            case BinaryProtocol.TRANSFER -> {
+                Transfer transfer;
+                String idempotencyKey;
+                try {
+                    AccountNumber source = BinaryProtocol.readAccountNumber(frame);
+                    AccountNumber destination = BinaryProtocol.readAccountNumber(frame);
+                    CurrencyUnit currency = BinaryProtocol.readCurrency(frame);
+                    long amount = frame.readLong();
+                    idempotencyKey = BinaryProtocol.readString(frame);
+                    if (idempotencyKey.length() > BinaryProtocol.MAX_IDEMPOTENCY_KEY_LENGTH) {
+                        throw new IllegalArgumentException("Idempotency key is at most "
+                                + BinaryProtocol.MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+                    }
+                    if (amount <= 0) {
+                        // a transfer outcome like any other, answered without going to the workers
+                        writeStatus(ctx, BinaryProtocol.TRANSFER_RESULT, correlationId, BinaryProtocol.INVALID_AMOUNT);
+                        return;
+                    }
+                    transfer = new Transfer(source, destination, FastMoney.ofMinor(currency, amount));
+                } catch (RuntimeException e) {
+                    writeStatus(ctx, BinaryProtocol.TRANSFER_RESULT, correlationId, BinaryProtocol.BAD_REQUEST);
+                    return;
+                }
+                dispatch(ctx, BinaryProtocol.TRANSFER_RESULT, correlationId,
+                        () -> transfer(ctx, correlationId, transfer, idempotencyKey));
+            }
+            // the correlation id of an unknown request cannot be trusted to mean anything either
+            default -> ctx.close();
+        }
+    }
+
+    private void dispatch(ChannelHandlerContext ctx, byte resultOpcode, long correlationId, Runnable request) {
+        try {
+            workers.execute(() -> {
+                try {
+                    request.run();
+                } catch (MonetaryException | IllegalArgumentException e) {
+                    writeStatus(ctx, resultOpcode, correlationId, BinaryProtocol.BAD_REQUEST);
+                } catch (RuntimeException e) {
+                    LOG.warn("Binary protocol request {} failed", correlationId, e);
+                    writeStatus(ctx, resultOpcode, correlationId, BinaryProtocol.INTERNAL_ERROR);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            writeStatus(ctx, resultOpcode, correlationId, BinaryProtocol.OVERLOADED);
+        }
+    }
+
+    private void balance(ChannelHandlerContext ctx, long correlationId, AccountNumber accountNumber) {
+        Optional<MonetaryAmount> balance = accountService.findBalance(accountNumber);
+        if (balance.isEmpty()) {
+            writeStatus(ctx, BinaryProtocol.BALANCE_RESULT, correlationId, BinaryProtocol.SOURCE_ACCOUNT_NOT_FOUND);
+            return;
+        }
+        ByteBuf response = BinaryProtocol.startFrame(ctx.alloc().ioBuffer(32), BinaryProtocol.BALANCE_RESULT, correlationId);
+        response.writeByte(BinaryProtocol.OK);
+        BinaryProtocol.writeCurrency(response, balance.get().getCurrency());
+        response.writeLong(Currencies.toMinorUnits(balance.get()));
+        ctx.writeAndFlush(BinaryProtocol.endFrame(response), ctx.voidPromise());
+    }
+
+    private void transfer(ChannelHandlerContext ctx, long correlationId, Transfer transfer, String idempotencyKey) {
+        if (!transferAdmission.tryAcquire(TransferAdmission.Kind.TRANSFER)) {
+            writeStatus(ctx, BinaryProtocol.TRANSFER_RESULT, correlationId, BinaryProtocol.OVERLOADED);
+            return;
+        }
+        long started = System.nanoTime();
+        byte status;
+        try {
+            status = execute(transfer, idempotencyKey);
+        } finally {
+            transferAdmission.release(TransferAdmission.Kind.TRANSFER, System.nanoTime() - started);
+        }
+        writeStatus(ctx, BinaryProtocol.TRANSFER_RESULT, correlationId, status);
+    }
+
+    private byte execute(Transfer transfer, String idempotencyKey) {
+        byte status;
+        if (idempotencyKey.isEmpty()) {
+            status = BinaryProtocol.toStatus(accountService.tryTransferMoney(transfer.sourceAccountNumber(),
+                    transfer.destinationAccountNumber(), transfer.amount()));
+        } else {
+            try {
+                TransferStatus transferStatus = idempotencyService.transfer(idempotencyKey, transfer);
+                status = BinaryProtocol.toStatus(transferStatus);
+            } catch (IdempotencyKeyConflictException e) {
+                status = switch (e.getReason()) {
+                    case IN_PROGRESS -> BinaryProtocol.IDEMPOTENCY_KEY_IN_PROGRESS;
+                    case REUSED -> BinaryProtocol.IDEMPOTENCY_KEY_REUSED;
+                };
+            }
+        }
+        return status;
+    }
+
+    private static void writeStatus(ChannelHandlerContext ctx, byte opcode, long correlationId, byte status) {
+        ByteBuf response = BinaryProtocol.startFrame(ctx.alloc().ioBuffer(16), opcode, correlationId);
+        response.writeByte(status);
+        ctx.writeAndFlush(BinaryProtocol.endFrame(response), ctx.voidPromise());
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        if (!(cause instanceof IOException)) {
+            LOG.warn("Closing binary protocol connection from {}", ctx.channel().remoteAddress(), cause);
+        }
+        ctx.close();
+    }
+}
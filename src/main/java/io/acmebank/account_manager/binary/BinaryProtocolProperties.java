@@ -0,0 +1,66 @@
+package io.acmebank.account_manager.binary;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "account-manager.binary")
+public class BinaryProtocolProperties {
+
+    private boolean enabled = false;
+    // 0 binds a random port
+    private int port = 9091;
+    // threads reading and writing the connections, 0 for twice the number of cores
+    private int ioThreads = 0;
+    // threads calling the account service, which blocks on the database
+    private int workers = 64;
+    // requests decoded and waiting for a worker, further requests are answered OVERLOADED
+    private int queueCapacity = 10_000;
+    private int maxFrameLength = 1024;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    public void setIoThreads(int ioThreads) {
+        this.ioThreads = ioThreads;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+    public void setMaxFrameLength(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+}
@@ -0,0 +1,102 @@
+package io.acmebank.account_manager.binary;
+
+import io.acmebank.account_manager.service.AccountService;
+import io.acmebank.account_manager.service.IdempotencyService;
+import io.acmebank.account_manager.service.TransferAdmission;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP listener for the {@link BinaryProtocol}, next to the REST API and answering from the same account service.
+ * It is started once the application context is refreshed and stops accepting connections before the beans it
+ * calls are destroyed. Transfers share the concurrency limit of the REST endpoints, see {@link TransferAdmission};
+ * the rate limits per client and account apply to the REST endpoints only.
+ */
+@Component
+@ConditionalOnProperty(name = "account-manager.binary.enabled", havingValue = "true")
+public class BinaryProtocolServer implements SmartLifecycle {
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryProtocolServer.class);
+
+    private final BinaryProtocolProperties properties;
+    private final BinaryProtocolHandler handler;
+    private final ThreadPoolExecutor workers;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup ioGroup;
+    private volatile Channel serverChannel;
+
+    @Autowired
+    public BinaryProtocolServer(BinaryProtocolProperties properties, AccountService accountService,
+                                IdempotencyService idempotencyService, TransferAdmission transferAdmission) {
+        this.properties = properties;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(), 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()), runnable -> {
+            Thread thread = new Thread(runnable, "binary-worker-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.handler = new BinaryProtocolHandler(accountService, idempotencyService, transferAdmission, workers);
+    }
+
+    @Override
+    public void start() {
+        bossGroup = new NioEventLoopGroup(1);
+        ioGroup = new NioEventLoopGroup(properties.getIoThreads());
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(bossGroup, ioGroup)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        channel.pipeline()
+                                // responses of pipelined requests written close together leave in one flush
+                                .addLast(new FlushConsolidationHandler(256, true))
+                                .addLast(new LengthFieldBasedFrameDecoder(properties.getMaxFrameLength(), 0,
+                                        BinaryProtocol.LENGTH_FIELD_LENGTH, 0, BinaryProtocol.LENGTH_FIELD_LENGTH))
+                                .addLast(handler);
+                    }
+                });
+        serverChannel = bootstrap.bind(properties.getPort()).syncUninterruptibly().channel();
+        LOG.info("Binary protocol listening on port {}", getPort());
+    }
+
+    @Override
+    public void stop() {
+        serverChannel.close().syncUninterruptibly();
+        serverChannel = null;
+        bossGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        ioGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        workers.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return serverChannel != null;
+    }
+
+    // the bound port, the one picked by the system when configured as 0
+    public int getPort() {
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+}
@@ -0,0 +1,103 @@
+package io.acmebank.account_manager.controller;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import io.acmebank.account_manager.controller.AccountController.ErrorResponse;
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.NewAccount;
+import io.acmebank.account_manager.service.AccountAlreadyExistsException;
+import io.acmebank.account_manager.service.AccountOpeningService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.money.MonetaryAmount;
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+// mapped without a class level prefix, "/accounts" + ":bulk" would be combined into "/accounts/:bulk"
+@RestController
+@Profile("!reactive")
+public class AccountBulkController {
+    private AccountOpeningService accountOpeningService;
+
+    @Autowired
+    public AccountBulkController(AccountOpeningService accountOpeningService) {
+        this.accountOpeningService = accountOpeningService;
+    }
+
+    @PostMapping("/accounts:bulk")
+    public ResponseEntity<?> openAccounts(@Validated @RequestBody BulkAccountRequest request) {
+        if (request.getAccounts().stream().anyMatch(account -> account.getBalance().isNegative())) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<NewAccount> newAccounts = request.getAccounts().stream()
+                .map(account -> new NewAccount(new AccountNumber(account.getAccountNumber()), account.getBalance()))
+                .toList();
+        try {
+            accountOpeningService.openAccounts(newAccounts);
+            return ResponseEntity.status(HttpStatus.CREATED).body(new BulkAccountResponse(newAccounts.size()));
+        } catch (AccountAlreadyExistsException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ErrorResponse(ApiError.ACCOUNT_ALREADY_EXISTS));
+        }
+    }
+
+    public static class BulkAccountRequest {
+        @NotEmpty
+        @Size(max = 10_000)
+        private List<@Valid @NotNull BulkAccountItem> accounts;
+
+        @JsonCreator
+        public BulkAccountRequest(List<BulkAccountItem> accounts) {
+            this.accounts = accounts;
+        }
+
+        public List<BulkAccountItem> getAccounts() {
+            return accounts;
+        }
+    }
+
+    public static class BulkAccountItem {
+        @NotBlank
+        @Size(max = 255)
+        private String accountNumber;
+        @NotNull
+        private MonetaryAmount balance;
+
+        @JsonCreator
+        public BulkAccountItem(String accountNumber, MonetaryAmount balance) {
+            this.accountNumber = accountNumber;
+            this.balance = balance;
+        }
+
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+
+        public MonetaryAmount getBalance() {
+            return balance;
+        }
+    }
+
+    public static class BulkAccountResponse {
+        private int created;
+
+        @JsonCreator
+        public BulkAccountResponse(int created) {
+            this.created = created;
+        }
+
+        public int getCreated() {
+            return created;
+        }
+    }
+}
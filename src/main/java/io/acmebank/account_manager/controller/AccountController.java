@@ -1,61 +1,201 @@
 package io.acmebank.account_manager.controller;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.Transfer;
 import io.acmebank.account_manager.service.AccountService;
-import io.acmebank.account_manager.service.DestinationAccountNotFoundException;
-import io.acmebank.account_manager.service.NoAccountFoundException;
-import io.acmebank.account_manager.service.NotEnoughMoneyException;
+import io.acmebank.account_manager.service.AsyncTransferService;
+import io.acmebank.account_manager.service.AsyncTransferService.AsyncTransfer;
+import io.acmebank.account_manager.service.AsyncTransferService.State;
+import io.acmebank.account_manager.service.IdempotencyKeyConflictException;
+import io.acmebank.account_manager.service.IdempotencyService;
+import io.acmebank.account_manager.service.TransferQueueFullException;
+import io.acmebank.account_manager.service.TransferStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.money.MonetaryAmount;
+import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/accounts")
+@Profile("!reactive")
 public class AccountController {
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    private static final String RESPOND_ASYNC = "respond-async";
+
     private AccountService accountService;
+    private IdempotencyService idempotencyService;
+    private AsyncTransferService asyncTransferService;
 
     @Autowired
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, IdempotencyService idempotencyService,
+                             AsyncTransferService asyncTransferService) {
         this.accountService = accountService;
+        this.idempotencyService = idempotencyService;
+        this.asyncTransferService = asyncTransferService;
     }
 
     @GetMapping("/{accountNumber}")
     public ResponseEntity<AccountResponse> getAccount(@PathVariable String accountNumber) {
-        try {
-            return ResponseEntity.ok(
-                    new AccountResponse(accountService.getBalance(new AccountNumber(accountNumber)))
-            );
-        } catch (NoAccountFoundException e) {
-            return ResponseEntity.notFound()
-                    .build();
+        return accountService.findBalance(new AccountNumber(accountNumber))
+                .map(balance -> ResponseEntity.ok(new AccountResponse(balance)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/balances:lookup")
+    public ResponseEntity<BalanceLookupResponse> lookupBalances(@Validated @RequestBody BalanceLookupRequest request) {
+        List<AccountNumber> accountNumbers = request.getAccountNumbers().stream()
+                .map(AccountNumber::new)
+                .toList();
+        Map<AccountNumber, MonetaryAmount> found = accountService.getBalances(accountNumbers);
+        Map<String, BalanceLookupResult> balances = new LinkedHashMap<>();
+        for (AccountNumber accountNumber : accountNumbers) {
+            MonetaryAmount balance = found.get(accountNumber);
+            balances.put(accountNumber.value(), balance == null
+                    ? new BalanceLookupResult(null, ApiError.ACCOUNT_NOT_FOUND.name(), ApiError.ACCOUNT_NOT_FOUND.getValue())
+                    : new BalanceLookupResult(balance, null, null));
         }
+        return ResponseEntity.ok(new BalanceLookupResponse(balances));
     }
 
     @PostMapping("/{accountNumber}/transfer")
     public ResponseEntity<?> transfer(@PathVariable String accountNumber,
+                                      @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                      @RequestHeader(name = "Prefer", required = false) String prefer,
                                       @Validated @RequestBody AccountTransferRequest request) {
-        try {
-            accountService.transferMoney(new AccountNumber(accountNumber),
+        if (!request.getAmount().isPositive()) {
+            return invalidAmount();
+        }
+        if (prefer != null && Arrays.stream(prefer.split(",")).map(String::trim).anyMatch(RESPOND_ASYNC::equalsIgnoreCase)) {
+            if (idempotencyKey != null) {
+                return idempotentAsyncTransfer(idempotencyKey, new Transfer(new AccountNumber(accountNumber),
+                        new AccountNumber(request.getDestinationAccountNumber()),
+                        request.getAmount()));
+            }
+            return asyncTransfer(new Transfer(new AccountNumber(accountNumber),
+                    new AccountNumber(request.getDestinationAccountNumber()),
+                    request.getAmount()));
+        }
+        if (idempotencyKey != null) {
+            return idempotentTransfer(idempotencyKey, new Transfer(new AccountNumber(accountNumber),
                     new AccountNumber(request.getDestinationAccountNumber()),
-                    request.getAmount());
-            return ResponseEntity.noContent().build();
-        } catch (DestinationAccountNotFoundException e) {
-            return ResponseEntity.badRequest()
-                    .body(new ErrorResponse(ApiError.DESTINATION_ACCOUNT_NOT_FOUND));
-        } catch (NoAccountFoundException e) {
-            return ResponseEntity.notFound().build();
-        } catch (NotEnoughMoneyException e) {
-            return ResponseEntity.badRequest()
-                    .body(new ErrorResponse(ApiError.NOT_ENOUGH_FUNDS));
+                    request.getAmount()));
+        }
+        TransferStatus status = accountService.tryTransferMoney(new AccountNumber(accountNumber),
+                new AccountNumber(request.getDestinationAccountNumber()),
+                request.getAmount());
+        return toResponse(status);
+    }
+
+    private ResponseEntity<?> asyncTransfer(Transfer transfer) {
+        try {
+            return accepted(asyncTransferService.submit(transfer));
+        } catch (TransferQueueFullException e) {
+            return queueFull();
         }
     }
 
+    // a retry gets the transfer queued first, or its outcome once executed
+    private ResponseEntity<?> idempotentAsyncTransfer(String idempotencyKey, Transfer transfer) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            AsyncTransfer queued = idempotencyService.submit(idempotencyKey, transfer);
+            return queued.state() == State.PENDING ? accepted(queued.id()) : toResponse(queued.outcome());
+        } catch (IdempotencyKeyConflictException e) {
+            return toResponse(e);
+        } catch (TransferQueueFullException e) {
+            return queueFull();
+        }
+    }
+
+    private ResponseEntity<?> idempotentTransfer(String idempotencyKey, Transfer transfer) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return toResponse(idempotencyService.transfer(idempotencyKey, transfer));
+        } catch (IdempotencyKeyConflictException e) {
+            return toResponse(e);
+        }
+    }
+
+    private static ResponseEntity<?> accepted(UUID id) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/transfers/" + id))
+                .body(new TransferAcceptedResponse(id.toString()));
+    }
+
+    private static ResponseEntity<?> invalidAmount() {
+        return ResponseEntity.badRequest().body(new ErrorResponse(ApiError.INVALID_AMOUNT));
+    }
+
+    private static ResponseEntity<?> queueFull() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse(ApiError.TRANSFER_QUEUE_FULL));
+    }
+
+    private static ResponseEntity<?> toResponse(IdempotencyKeyConflictException e) {
+        return switch (e.getReason()) {
+            case IN_PROGRESS -> ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ErrorResponse(ApiError.IDEMPOTENCY_KEY_IN_PROGRESS));
+            case REUSED -> ResponseEntity.unprocessableEntity()
+                    .body(new ErrorResponse(ApiError.IDEMPOTENCY_KEY_REUSED));
+        };
+    }
+
+    private static ResponseEntity<?> toResponse(TransferStatus status) {
+        return switch (status) {
+            case COMPLETED -> ResponseEntity.noContent().build();
+            case SOURCE_ACCOUNT_NOT_FOUND -> ResponseEntity.notFound().build();
+            default -> ResponseEntity.badRequest().body(new ErrorResponse(toApiError(status)));
+        };
+    }
+
+    @PostMapping("/transfers:batch")
+    public ResponseEntity<BatchTransferResponse> transferBatch(@Validated @RequestBody BatchTransferRequest request) {
+        List<Transfer> transfers = request.getTransfers().stream()
+                .map(transfer -> new Transfer(new AccountNumber(transfer.getSourceAccountNumber()),
+                        new AccountNumber(transfer.getDestinationAccountNumber()),
+                        transfer.getAmount()))
+                .toList();
+        List<BatchTransferResult> results = accountService.transferMoney(transfers).stream()
+                .map(BatchTransferResult::new)
+                .toList();
+        return ResponseEntity.ok(new BatchTransferResponse(results));
+    }
+
+    static ApiError toApiError(TransferStatus status) {
+        return switch (status) {
+            case COMPLETED -> null;
+            case SOURCE_ACCOUNT_NOT_FOUND -> ApiError.ACCOUNT_NOT_FOUND;
+            case DESTINATION_ACCOUNT_NOT_FOUND -> ApiError.DESTINATION_ACCOUNT_NOT_FOUND;
+            case NOT_ENOUGH_FUNDS -> ApiError.NOT_ENOUGH_FUNDS;
+            case UNSUPPORTED_CURRENCY_PAIR -> ApiError.UNSUPPORTED_CURRENCY_PAIR;
+            case AMOUNT_TOO_SMALL -> ApiError.AMOUNT_TOO_SMALL;
+            case INVALID_AMOUNT -> ApiError.INVALID_AMOUNT;
+        };
+    }
+
     public static class ErrorResponse {
         private String error;
         private String message;
@@ -103,6 +243,19 @@ public class AccountController {
 
     }
 
+    public static class TransferAcceptedResponse {
+        private String transferId;
+
+        @JsonCreator
+        public TransferAcceptedResponse(String transferId) {
+            this.transferId = transferId;
+        }
+
+        public String getTransferId() {
+            return transferId;
+        }
+    }
+
     public static class AccountResponse {
         private MonetaryAmount balance;
 
@@ -115,4 +268,149 @@ public class AccountController {
             return balance;
         }
     }
+
+    public static class BalanceLookupRequest {
+        @NotEmpty
+        @Size(max = 1_000)
+        private List<@NotBlank String> accountNumbers;
+
+        @JsonCreator
+        public BalanceLookupRequest(List<String> accountNumbers) {
+            this.accountNumbers = accountNumbers;
+        }
+
+        public List<String> getAccountNumbers() {
+            return accountNumbers;
+        }
+    }
+
+    public static class BalanceLookupResponse {
+        private Map<String, BalanceLookupResult> balances;
+
+        @JsonCreator
+        public BalanceLookupResponse(Map<String, BalanceLookupResult> balances) {
+            this.balances = balances;
+        }
+
+        public Map<String, BalanceLookupResult> getBalances() {
+            return balances;
+        }
+    }
+
+    // either the balance or, for an unknown account, the error
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class BalanceLookupResult {
+        private MonetaryAmount balance;
+        private String error;
+        private String message;
+
+        @JsonCreator
+        public BalanceLookupResult(MonetaryAmount balance, String error, String message) {
+            this.balance = balance;
+            this.error = error;
+            this.message = message;
+        }
+
+        public MonetaryAmount getBalance() {
+            return balance;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    public static class BatchTransferRequest {
+        @NotEmpty
+        @Size(max = 100_000)
+        private List<@Valid @NotNull BatchTransferItem> transfers;
+
+        @JsonCreator
+        public BatchTransferRequest(List<BatchTransferItem> transfers) {
+            this.transfers = transfers;
+        }
+
+        public List<BatchTransferItem> getTransfers() {
+            return transfers;
+        }
+    }
+
+    public static class BatchTransferItem {
+        @NotBlank
+        private String sourceAccountNumber;
+        @NotBlank
+        private String destinationAccountNumber;
+        @NotNull
+        private MonetaryAmount amount;
+
+        @JsonCreator
+        public BatchTransferItem(String sourceAccountNumber, String destinationAccountNumber, MonetaryAmount amount) {
+            this.sourceAccountNumber = sourceAccountNumber;
+            this.destinationAccountNumber = destinationAccountNumber;
+            this.amount = amount;
+        }
+
+        public String getSourceAccountNumber() {
+            return sourceAccountNumber;
+        }
+
+        public String getDestinationAccountNumber() {
+            return destinationAccountNumber;
+        }
+
+        public MonetaryAmount getAmount() {
+            return amount;
+        }
+    }
+
+    public static class BatchTransferResponse {
+        private List<BatchTransferResult> results;
+
+        @JsonCreator
+        public BatchTransferResponse(List<BatchTransferResult> results) {
+            this.results = results;
+        }
+
+        public List<BatchTransferResult> getResults() {
+            return results;
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class BatchTransferResult {
+        private String status;
+        private String error;
+        private String message;
+
+        public BatchTransferResult(TransferStatus status) {
+            ApiError apiError = toApiError(status);
+            this.status = status == TransferStatus.COMPLETED ? "COMPLETED" : "FAILED";
+            this.error = apiError == null ? null : apiError.name();
+            this.message = apiError == null ? null : apiError.getValue();
+        }
+
+        //for testing, not used
+        @JsonCreator
+        public BatchTransferResult(String status, String error, String message) {
+            this.status = status;
+            this.error = error;
+            this.message = message;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
 }
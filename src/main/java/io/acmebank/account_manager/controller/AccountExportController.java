@@ -0,0 +1,93 @@
+package io.acmebank.account_manager.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.acmebank.account_manager.service.AccountExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.money.MonetaryAmount;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/accounts")
+@Profile("!reactive")
+public class AccountExportController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private AccountExportService accountExportService;
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    public AccountExportController(AccountExportService accountExportService, ObjectMapper objectMapper) {
+        this.accountExportService = accountExportService;
+        this.objectMapper = objectMapper;
+    }
+
+    // rows are written to the response as they are read, never collected
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportAccounts(@RequestParam(defaultValue = "ndjson") String format) {
+        return switch (format) {
+            case "ndjson" -> ResponseEntity.ok().contentType(NDJSON).body(this::writeNdjson);
+            case "csv" -> ResponseEntity.ok().contentType(CSV).body(this::writeCsv);
+            default -> ResponseEntity.badRequest().build();
+        };
+    }
+
+    private void writeNdjson(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            accountExportService.exportAccounts(account -> {
+                generator.writeObject(new ExportedAccount(account.getAccountNumber(), account.getBalance()));
+                generator.writeRaw('\n');
+            });
+        }
+    }
+
+    private void writeCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("account_number,currency,balance\n");
+        accountExportService.exportAccounts(account -> {
+            writer.write(account.getAccountNumber());
+            writer.write(',');
+            writer.write(account.getCurrency());
+            writer.write(',');
+            writer.write(BigDecimal.valueOf(account.getBalanceMinorUnits(),
+                    account.getCurrencyUnit().getDefaultFractionDigits()).toPlainString());
+            writer.write('\n');
+        });
+        writer.flush();
+    }
+
+    public static class ExportedAccount {
+        private String accountNumber;
+        private MonetaryAmount balance;
+
+        public ExportedAccount(String accountNumber, MonetaryAmount balance) {
+            this.accountNumber = accountNumber;
+            this.balance = balance;
+        }
+
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+
+        public MonetaryAmount getBalance() {
+            return balance;
+        }
+    }
+}
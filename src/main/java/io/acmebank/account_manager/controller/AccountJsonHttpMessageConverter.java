@@ -0,0 +1,231 @@
+package io.acmebank.account_manager.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import io.acmebank.account_manager.controller.AccountController.AccountResponse;
+import io.acmebank.account_manager.controller.AccountController.AccountTransferRequest;
+import io.acmebank.account_manager.controller.AccountController.ErrorResponse;
+import org.javamoney.moneta.Money;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryException;
+import javax.money.format.MonetaryAmountFormat;
+import javax.money.format.MonetaryFormats;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads {@link AccountTransferRequest} and writes {@link AccountResponse} and {@link ErrorResponse} with Jackson's
+ * streaming API, producing the same JSON as the ObjectMapper and MoneyModule without going through databind.
+ * Field names are translated once with the ObjectMapper's naming strategy, and the locale aware {@code formatted}
+ * amount, a MonetaryAmountFormat that is not thread safe, is kept per thread.
+ * <p>
+ * {@code formatted} is left out when the request has the {@code formatted=false} query parameter or asks for
+ * {@code application/json;formatted=false}. Every other payload is left to the Jackson converter.
+ */
+public class AccountJsonHttpMessageConverter implements HttpMessageConverter<Object> {
+    private static final String FORMATTED_PARAMETER = "formatted";
+    private static final List<MediaType> SUPPORTED_MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON);
+
+    private final JsonFactory jsonFactory;
+    private final ThreadLocal<MonetaryAmountFormat> amountFormat;
+
+    private final String destinationAccountNumberName;
+    private final String amountName;
+    private final SerializableString balanceField;
+    private final SerializableString errorField;
+    private final SerializableString messageField;
+
+    private final SerializableString amountField = new SerializedString("amount");
+    private final SerializableString currencyField = new SerializedString("currency");
+    private final SerializableString formattedField = new SerializedString("formatted");
+
+    public AccountJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+        Locale locale = objectMapper.getSerializationConfig().getLocale();
+        this.amountFormat = ThreadLocal.withInitial(() -> MonetaryFormats.getAmountFormat(locale));
+        PropertyNamingStrategy namingStrategy = objectMapper.getPropertyNamingStrategy();
+        this.destinationAccountNumberName = translate(namingStrategy, "destinationAccountNumber");
+        this.amountName = translate(namingStrategy, "amount");
+        this.balanceField = new SerializedString(translate(namingStrategy, "balance"));
+        this.errorField = new SerializedString(translate(namingStrategy, "error"));
+        this.messageField = new SerializedString(translate(namingStrategy, "message"));
+    }
+
+    private static String translate(PropertyNamingStrategy namingStrategy, String name) {
+        return namingStrategy instanceof PropertyNamingStrategies.NamingBase namingBase
+                ? namingBase.translate(name)
+                : name;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz == AccountTransferRequest.class && isSupported(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return (clazz == AccountResponse.class || clazz == ErrorResponse.class) && isSupported(mediaType);
+    }
+
+    private static boolean isSupported(MediaType mediaType) {
+        return mediaType == null || MediaType.APPLICATION_JSON.isCompatibleWith(mediaType);
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return SUPPORTED_MEDIA_TYPES;
+    }
+
+    @Override
+    public Object read(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputMessage.getBody())) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            String destinationAccountNumber = null;
+            MonetaryAmount amount = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (name.equals(destinationAccountNumberName)) {
+                    destinationAccountNumber = value == JsonToken.VALUE_NULL ? null : expectString(parser, value);
+                } else if (name.equals(amountName)) {
+                    amount = value == JsonToken.VALUE_NULL ? null : readAmount(parser, value);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new AccountTransferRequest(destinationAccountNumber, amount);
+        } catch (JsonProcessingException | MonetaryException | NumberFormatException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    // {"amount": 100.00, "currency": "HKD"}, a "formatted" field is ignored as it is by the MoneyModule
+    private MonetaryAmount readAmount(JsonParser parser, JsonToken token) throws IOException {
+        expect(token, JsonToken.START_OBJECT);
+        BigDecimal number = null;
+        CurrencyUnit currency = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (name.equals("amount")) {
+                number = value == JsonToken.VALUE_STRING ? new BigDecimal(parser.getText()) : expectNumber(parser, value);
+            } else if (name.equals("currency")) {
+                currency = Monetary.getCurrency(expectString(parser, value));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (number == null || currency == null) {
+            throw new JsonParseFailure(parser, "amount requires both amount and currency");
+        }
+        return Money.of(number, currency);
+    }
+
+    private static void expect(JsonToken token, JsonToken expected) throws JsonParseFailure {
+        if (token != expected) {
+            throw new JsonParseFailure(null, "expected " + expected + " but was " + token);
+        }
+    }
+
+    private static String expectString(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.VALUE_STRING) {
+            throw new JsonParseFailure(parser, "expected a string but was " + token);
+        }
+        return parser.getText();
+    }
+
+    private static BigDecimal expectNumber(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT) {
+            throw new JsonParseFailure(parser, "expected a number but was " + token);
+        }
+        return parser.getDecimalValue();
+    }
+
+    @Override
+    public void write(Object body, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        try (JsonGenerator generator = jsonFactory.createGenerator(StreamUtils.nonClosing(outputMessage.getBody()))) {
+            if (body instanceof AccountResponse response) {
+                writeAccountResponse(generator, response, isFormatted(contentType));
+            } else {
+                writeErrorResponse(generator, (ErrorResponse) body);
+            }
+        }
+    }
+
+    private void writeAccountResponse(JsonGenerator generator, AccountResponse response, boolean formatted)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(balanceField);
+        MonetaryAmount balance = response.getBalance();
+        if (balance == null) {
+            generator.writeNull();
+        } else {
+            writeAmount(generator, balance, formatted);
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeAmount(JsonGenerator generator, MonetaryAmount amount, boolean formatted) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(amountField);
+        // at least the currency's fraction digits, as the MoneyModule's DecimalAmountWriter writes it
+        BigDecimal number = amount.getNumber().numberValueExact(BigDecimal.class);
+        int scale = Math.max(number.scale(), amount.getCurrency().getDefaultFractionDigits());
+        generator.writeNumber(number.setScale(scale, RoundingMode.UNNECESSARY));
+        generator.writeFieldName(currencyField);
+        generator.writeString(amount.getCurrency().getCurrencyCode());
+        if (formatted) {
+            generator.writeFieldName(formattedField);
+            generator.writeString(amountFormat.get().format(amount));
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeErrorResponse(JsonGenerator generator, ErrorResponse response) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(errorField);
+        generator.writeString(response.getError());
+        generator.writeFieldName(messageField);
+        generator.writeString(response.getMessage());
+        generator.writeEndObject();
+    }
+
+    private static boolean isFormatted(MediaType contentType) {
+        if (contentType != null && "false".equalsIgnoreCase(contentType.getParameter(FORMATTED_PARAMETER))) {
+            return false;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return !(attributes instanceof ServletRequestAttributes servletAttributes)
+                || !"false".equalsIgnoreCase(servletAttributes.getRequest().getParameter(FORMATTED_PARAMETER));
+    }
+
+    private static class JsonParseFailure extends JsonProcessingException {
+        JsonParseFailure(JsonParser parser, String message) {
+            super(message, parser == null ? null : parser.getCurrentLocation());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package io.acmebank.account_manager.controller;
+
+import io.acmebank.account_manager.service.AdmissionProperties;
+import io.acmebank.account_manager.service.TokenBuckets;
+import io.acmebank.account_manager.service.TransferAdmission;
+import io.acmebank.account_manager.service.TransferAdmission.Kind;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of the transfer endpoints. A request takes a token from the bucket of its API key
+ * (its remote address without one) and, for a single transfer, from the bucket of its source account, then a slot
+ * of the {@link TransferAdmission} limit of single transfers or of batches. Any of them being exhausted rejects the
+ * request with 429 and Retry-After before it reaches the controller or the database.
+ * <ul>
+ *     <li>{@code account_manager.admission.rejected} - requests rejected, by the limit they hit</li>
+ * </ul>
+ */
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+    private static final String STARTED_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".started";
+    private static final String KIND_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".kind";
+
+    private final String apiKeyHeader;
+    private final TokenBuckets clientBuckets;
+    private final TokenBuckets accountBuckets;
+    private final TransferAdmission transferAdmission;
+    private final Counter clientRejections;
+    private final Counter accountRejections;
+
+    public AdmissionControlInterceptor(AdmissionProperties properties, TransferAdmission transferAdmission,
+                                       MeterRegistry registry) {
+        this.apiKeyHeader = properties.getApiKeyHeader();
+        this.clientBuckets = new TokenBuckets(properties.getClientRate(), properties.getClientBurst(),
+                properties.getMaximumBuckets(), properties.getBucketIdleTime());
+        this.accountBuckets = new TokenBuckets(properties.getAccountRate(), properties.getAccountBurst(),
+                properties.getMaximumBuckets(), properties.getBucketIdleTime());
+        this.transferAdmission = transferAdmission;
+        this.clientRejections = rejectedCounter(registry, "client");
+        this.accountRejections = rejectedCounter(registry, "account");
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry, String limit) {
+        return Counter.builder("account_manager.admission.rejected")
+                .description("Requests rejected by admission control")
+                .tag("limit", limit)
+                .register(registry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        long wait = clientBuckets.tryAcquire(apiKey == null || apiKey.isBlank() ? request.getRemoteAddr() : apiKey);
+        if (wait > 0) {
+            clientRejections.increment();
+            throw new AdmissionRejectedException(ApiError.RATE_LIMITED, toRetryAfterSeconds(wait));
+        }
+        String accountNumber = sourceAccountNumber(request);
+        if (accountNumber != null) {
+            wait = accountBuckets.tryAcquire(accountNumber);
+            if (wait > 0) {
+                accountRejections.increment();
+                throw new AdmissionRejectedException(ApiError.RATE_LIMITED, toRetryAfterSeconds(wait));
+            }
+        }
+        // only single transfers are addressed by their source account, a batch names its sources in the body
+        Kind kind = accountNumber != null ? Kind.TRANSFER : Kind.BATCH;
+        if (!transferAdmission.tryAcquire(kind)) {
+            throw new AdmissionRejectedException(ApiError.TOO_MANY_CONCURRENT_TRANSFERS, 1);
+        }
+        request.setAttribute(KIND_ATTRIBUTE, kind);
+        request.setAttribute(STARTED_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object started = request.getAttribute(STARTED_ATTRIBUTE);
+        if (started == null) {
+            return;
+        }
+        // a queued transfer answers before touching the database, its latency says nothing about it
+        boolean queued = response.getStatus() == HttpStatus.ACCEPTED.value();
+        transferAdmission.release((Kind) request.getAttribute(KIND_ATTRIBUTE),
+                queued ? -1 : System.nanoTime() - (long) started);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String sourceAccountNumber(HttpServletRequest request) {
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        return variables == null ? null : variables.get("accountNumber");
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,21 @@
+package io.acmebank.account_manager.controller;
+
+public class AdmissionRejectedException extends RuntimeException {
+    private final ApiError apiError;
+    private final long retryAfterSeconds;
+
+    // thrown for every request over a limit, so it is built without a stack trace
+    public AdmissionRejectedException(ApiError apiError, long retryAfterSeconds) {
+        super(apiError.getValue(), null, false, false);
+        this.apiError = apiError;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public ApiError getApiError() {
+        return apiError;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,8 +1,19 @@
 package io.acmebank.account_manager.controller;
 
 public enum ApiError {
+    ACCOUNT_NOT_FOUND("Account not found"),
+    ACCOUNT_ALREADY_EXISTS("An account with this account number already exists"),
     DESTINATION_ACCOUNT_NOT_FOUND("Destination account not found for transfer"),
-    NOT_ENOUGH_FUNDS("Not enough funds to execute transaction");
+    NOT_ENOUGH_FUNDS("Not enough funds to execute transaction"),
+    UNSUPPORTED_CURRENCY_PAIR("No exchange rate between the transfer currency and the account currencies"),
+    AMOUNT_TOO_SMALL("Amount is less than a minor unit once converted to an account currency"),
+    INVALID_AMOUNT("Amount must be positive"),
+    IDEMPOTENCY_KEY_IN_PROGRESS("A request with this idempotency key is still being processed"),
+    IDEMPOTENCY_KEY_REUSED("Idempotency key was already used for a different request"),
+    TRANSFER_QUEUE_FULL("Too many transfers are waiting, retry later"),
+    RATE_LIMITED("Too many requests, retry after the number of seconds in Retry-After"),
+    TOO_MANY_CONCURRENT_TRANSFERS("Too many transfers are in progress, retry later"),
+    TRANSFER_FAILED("Transfer could not be executed");
 
     private final String value;
 
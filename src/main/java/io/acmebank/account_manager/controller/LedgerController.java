@@ -0,0 +1,105 @@
+package io.acmebank.account_manager.controller;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.repository.entity.LedgerEntry;
+import io.acmebank.account_manager.service.LedgerService;
+import io.acmebank.account_manager.service.LedgerService.LedgerPage;
+import io.acmebank.account_manager.service.NoAccountFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.money.MonetaryAmount;
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/accounts")
+@Profile("!reactive")
+public class LedgerController {
+    private LedgerService ledgerService;
+
+    @Autowired
+    public LedgerController(LedgerService ledgerService) {
+        this.ledgerService = ledgerService;
+    }
+
+    @GetMapping("/{accountNumber}/transactions")
+    public ResponseEntity<TransactionsResponse> getTransactions(@PathVariable String accountNumber,
+                                                                @RequestParam(required = false) Long before,
+                                                                @RequestParam(defaultValue = "50") int limit) {
+        try {
+            LedgerPage page = ledgerService.getTransactions(new AccountNumber(accountNumber), before, limit);
+            List<TransactionResponse> transactions = page.entries().stream()
+                    .map(TransactionResponse::new)
+                    .toList();
+            return ResponseEntity.ok(new TransactionsResponse(transactions, page.nextCursor()));
+        } catch (NoAccountFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    public static class TransactionsResponse {
+        private List<TransactionResponse> transactions;
+        private Long nextCursor;
+
+        @JsonCreator
+        public TransactionsResponse(List<TransactionResponse> transactions, Long nextCursor) {
+            this.transactions = transactions;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<TransactionResponse> getTransactions() {
+            return transactions;
+        }
+
+        public Long getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    public static class TransactionResponse {
+        private long sequence;
+        private String counterpartyAccountNumber;
+        private MonetaryAmount amount;
+        private String idempotencyKey;
+        private Instant createdAt;
+
+        public TransactionResponse(LedgerEntry entry) {
+            this(entry.getSequence(), entry.getCounterpartyAccountNumber(), entry.getAmount(),
+                    entry.getIdempotencyKey(), entry.getCreatedAt());
+        }
+
+        @JsonCreator
+        public TransactionResponse(long sequence, String counterpartyAccountNumber, MonetaryAmount amount,
+                                   String idempotencyKey, Instant createdAt) {
+            this.sequence = sequence;
+            this.counterpartyAccountNumber = counterpartyAccountNumber;
+            this.amount = amount;
+            this.idempotencyKey = idempotencyKey;
+            this.createdAt = createdAt;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public String getCounterpartyAccountNumber() {
+            return counterpartyAccountNumber;
+        }
+
+        public MonetaryAmount getAmount() {
+            return amount;
+        }
+
+        public String getIdempotencyKey() {
+            return idempotencyKey;
+        }
+
+        public Instant getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
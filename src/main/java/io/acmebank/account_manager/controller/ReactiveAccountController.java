@@ -0,0 +1,64 @@
+package io.acmebank.account_manager.controller;
+
+import io.acmebank.account_manager.controller.AccountController.AccountResponse;
+import io.acmebank.account_manager.controller.AccountController.AccountTransferRequest;
+import io.acmebank.account_manager.controller.AccountController.ErrorResponse;
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.service.AmountTooSmallException;
+import io.acmebank.account_manager.service.DestinationAccountNotFoundException;
+import io.acmebank.account_manager.service.InvalidAmountException;
+import io.acmebank.account_manager.service.NoAccountFoundException;
+import io.acmebank.account_manager.service.NotEnoughMoneyException;
+import io.acmebank.account_manager.service.ReactiveAccountService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import javax.money.MonetaryException;
+
+/**
+ * WebFlux version of the account endpoints of {@link AccountController}, same paths, payloads and status codes.
+ */
+@RestController
+@RequestMapping("/accounts")
+@Profile("reactive")
+public class ReactiveAccountController {
+
+    private ReactiveAccountService accountService;
+
+    @Autowired
+    public ReactiveAccountController(ReactiveAccountService accountService) {
+        this.accountService = accountService;
+    }
+
+    @GetMapping("/{accountNumber}")
+    public Mono<ResponseEntity<AccountResponse>> getAccount(@PathVariable String accountNumber) {
+        return accountService.getBalance(new AccountNumber(accountNumber))
+                .map(balance -> ResponseEntity.ok(new AccountResponse(balance)))
+                .onErrorResume(NoAccountFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    @PostMapping("/{accountNumber}/transfer")
+    public Mono<ResponseEntity<?>> transfer(@PathVariable String accountNumber,
+                                            @Validated @RequestBody AccountTransferRequest request) {
+        return accountService.transferMoney(new AccountNumber(accountNumber),
+                        new AccountNumber(request.getDestinationAccountNumber()),
+                        request.getAmount())
+                .then(Mono.<ResponseEntity<?>>fromSupplier(() -> ResponseEntity.noContent().build()))
+                .onErrorResume(DestinationAccountNotFoundException.class, e -> Mono.just(ResponseEntity.badRequest()
+                        .body(new ErrorResponse(ApiError.DESTINATION_ACCOUNT_NOT_FOUND))))
+                .onErrorResume(NoAccountFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(NotEnoughMoneyException.class, e -> Mono.just(ResponseEntity.badRequest()
+                        .body(new ErrorResponse(ApiError.NOT_ENOUGH_FUNDS))))
+                .onErrorResume(InvalidAmountException.class, e -> Mono.just(ResponseEntity.badRequest()
+                        .body(new ErrorResponse(ApiError.INVALID_AMOUNT))))
+                .onErrorResume(AmountTooSmallException.class, e -> Mono.just(ResponseEntity.badRequest()
+                        .body(new ErrorResponse(ApiError.AMOUNT_TOO_SMALL))))
+                // no exchange rate between the amount's currency and an account's
+                .onErrorResume(MonetaryException.class, e -> Mono.just(ResponseEntity.badRequest()
+                        .body(new ErrorResponse(ApiError.UNSUPPORTED_CURRENCY_PAIR))));
+    }
+}
@@ -0,0 +1,87 @@
+package io.acmebank.account_manager.controller;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.acmebank.account_manager.service.AsyncTransferService;
+import io.acmebank.account_manager.service.AsyncTransferService.AsyncTransfer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/transfers")
+@Profile("!reactive")
+public class TransferController {
+    private AsyncTransferService asyncTransferService;
+
+    @Autowired
+    public TransferController(AsyncTransferService asyncTransferService) {
+        this.asyncTransferService = asyncTransferService;
+    }
+
+    @GetMapping("/{transferId}")
+    public ResponseEntity<TransferStatusResponse> getTransfer(@PathVariable String transferId) {
+        Optional<AsyncTransfer> transfer;
+        try {
+            transfer = asyncTransferService.getTransfer(UUID.fromString(transferId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+        return transfer.map(TransferStatusResponse::new)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class TransferStatusResponse {
+        private String transferId;
+        private String status;
+        private String error;
+        private String message;
+
+        public TransferStatusResponse(AsyncTransfer transfer) {
+            ApiError apiError = switch (transfer.state()) {
+                case PENDING, COMPLETED -> null;
+                case FAILED -> transfer.outcome() == null
+                        ? ApiError.TRANSFER_FAILED
+                        : AccountController.toApiError(transfer.outcome());
+            };
+            this.transferId = transfer.id().toString();
+            this.status = transfer.state().name();
+            this.error = apiError == null ? null : apiError.name();
+            this.message = apiError == null ? null : apiError.getValue();
+        }
+
+        //for testing, not used
+        @JsonCreator
+        public TransferStatusResponse(String transferId, String status, String error, String message) {
+            this.transferId = transferId;
+            this.status = status;
+            this.error = error;
+            this.message = message;
+        }
+
+        public String getTransferId() {
+            return transferId;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
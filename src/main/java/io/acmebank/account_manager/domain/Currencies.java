@@ -0,0 +1,29 @@
+package io.acmebank.account_manager.domain;
+
+import org.javamoney.moneta.function.MonetaryQueries;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Monetary.getCurrency walks the currency providers on every call, this caches the resolved units by code.
+ */
+public final class Currencies {
+    private static final ConcurrentMap<String, CurrencyUnit> UNITS = new ConcurrentHashMap<>();
+
+    private Currencies() {
+    }
+
+    public static CurrencyUnit of(String currencyCode) {
+        CurrencyUnit unit = UNITS.get(currencyCode);
+        return unit != null ? unit : UNITS.computeIfAbsent(currencyCode, Monetary::getCurrency);
+    }
+
+    // amount expressed in the minor unit of its currency, e.g. HKD 12.34 -> 1234
+    public static long toMinorUnits(MonetaryAmount amount) {
+        return amount.query(MonetaryQueries.convertMinorPart());
+    }
+}
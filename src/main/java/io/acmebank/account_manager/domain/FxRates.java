@@ -0,0 +1,143 @@
+package io.acmebank.account_manager.domain;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable set of exchange rates, with every supported direction precomputed as a fixed-point factor on
+ * minor units, so a conversion is a multiplication and a rounding division on longs.
+ * A rate given only one way is inverted for the other direction, currencies without a rate are not converted.
+ */
+public final class FxRates {
+    private static final int SCALE = 9;
+    private static final long ONE = 1_000_000_000L;
+    private static final Conversion IDENTITY = new Conversion(ONE);
+    private static final FxRates EMPTY = new FxRates(Map.of());
+
+    private final Map<String, Map<String, Conversion>> conversions;
+
+    private FxRates(Map<String, Map<String, Conversion>> conversions) {
+        this.conversions = conversions;
+    }
+
+    public static FxRates empty() {
+        return EMPTY;
+    }
+
+    public static FxRates of(Collection<FxRate> rates) {
+        Map<String, Map<String, Conversion>> conversions = new HashMap<>();
+        // explicit rates win over inverted ones, whatever their order
+        for (FxRate rate : rates) {
+            BigDecimal inverse = BigDecimal.ONE.divide(rate.rate(), MathContext.DECIMAL64);
+            conversions.computeIfAbsent(rate.quoteCurrency(), currency -> new HashMap<>())
+                    .putIfAbsent(rate.baseCurrency(), Conversion.of(inverse, rate.quoteCurrency(), rate.baseCurrency()));
+        }
+        for (FxRate rate : rates) {
+            conversions.computeIfAbsent(rate.baseCurrency(), currency -> new HashMap<>())
+                    .put(rate.quoteCurrency(), Conversion.of(rate.rate(), rate.baseCurrency(), rate.quoteCurrency()));
+        }
+        Map<String, Map<String, Conversion>> copy = new HashMap<>();
+        conversions.forEach((from, to) -> copy.put(from, Map.copyOf(to)));
+        return new FxRates(Map.copyOf(copy));
+    }
+
+    /**
+     * The conversion from one currency to another, null when there is no rate between them.
+     */
+    public Conversion conversion(String fromCurrency, String toCurrency) {
+        if (fromCurrency.equals(toCurrency)) {
+            return IDENTITY;
+        }
+        Map<String, Conversion> from = conversions.get(fromCurrency);
+        return from == null ? null : from.get(toCurrency);
+    }
+
+    /**
+     * One unit of the base currency is worth {@code rate} units of the quote currency.
+     */
+    public record FxRate(String baseCurrency, String quoteCurrency, BigDecimal rate) {
+        public FxRate {
+            if (rate.signum() <= 0) {
+                throw new IllegalArgumentException("Exchange rate must be positive: " + baseCurrency + quoteCurrency + " " + rate);
+            }
+        }
+    }
+
+    public static final class Conversion {
+        // rate adjusted for the minor units of both currencies, times 10^SCALE
+        private final long factor;
+
+        private Conversion(long factor) {
+            this.factor = factor;
+        }
+
+        static Conversion of(BigDecimal rate, String fromCurrency, String toCurrency) {
+            int minorUnitShift = Currencies.of(toCurrency).getDefaultFractionDigits()
+                    - Currencies.of(fromCurrency).getDefaultFractionDigits();
+            long factor = rate.movePointRight(minorUnitShift + SCALE).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+            if (factor <= 0) {
+                throw new IllegalArgumentException("Exchange rate too small to convert " + fromCurrency + " to " + toCurrency);
+            }
+            return new Conversion(factor);
+        }
+
+        /**
+         * Minor units of the source currency in minor units of the target currency, rounded half up.
+         */
+        public long convert(long minorUnits) {
+            return convert(minorUnits, RoundingMode.HALF_UP);
+        }
+
+        /**
+         * Minor units of the source currency in minor units of the target currency, rounded with the given mode.
+         * A transfer rounds its debit up and its credit down, so that rounding never creates money.
+         */
+        public long convert(long minorUnits, RoundingMode roundingMode) {
+            if (factor == ONE) {
+                return minorUnits;
+            }
+            long high = Math.multiplyHigh(minorUnits, factor);
+            long low = minorUnits * factor;
+            // the product fits in a long when its upper half only carries the sign of the lower half
+            if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+                long quotient = low / ONE;
+                long remainder = low % ONE;
+                switch (roundingMode) {
+                    case HALF_UP -> {
+                        if (remainder >= ONE / 2) {
+                            quotient++;
+                        } else if (remainder <= -ONE / 2) {
+                            quotient--;
+                        }
+                    }
+                    case CEILING -> {
+                        if (remainder > 0) {
+                            quotient++;
+                        }
+                    }
+                    case FLOOR -> {
+                        if (remainder < 0) {
+                            quotient--;
+                        }
+                    }
+                    default -> {
+                        return exact(minorUnits, roundingMode);
+                    }
+                }
+                return quotient;
+            }
+            return exact(minorUnits, roundingMode);
+        }
+
+        private long exact(long minorUnits, RoundingMode roundingMode) {
+            return new BigDecimal(BigInteger.valueOf(minorUnits).multiply(BigInteger.valueOf(factor)), SCALE)
+                    .setScale(0, roundingMode)
+                    .longValueExact();
+        }
+    }
+}
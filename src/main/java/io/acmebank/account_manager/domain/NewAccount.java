@@ -0,0 +1,14 @@
+package io.acmebank.account_manager.domain;
+
+import javax.money.MonetaryAmount;
+
+public record NewAccount(AccountNumber accountNumber, MonetaryAmount startingBalance) {
+    public NewAccount {
+        if (accountNumber == null || startingBalance == null) {
+            throw new IllegalArgumentException("NewAccount requires account number and starting balance");
+        }
+        if (startingBalance.isNegative()) {
+            throw new IllegalArgumentException("NewAccount requires a starting balance of zero or more");
+        }
+    }
+}
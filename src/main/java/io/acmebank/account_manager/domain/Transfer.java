@@ -0,0 +1,26 @@
+package io.acmebank.account_manager.domain;
+
+import javax.money.MonetaryAmount;
+
+/**
+ * A transfer to execute. The idempotency key is the client's, written to the ledger entries of the transfer, it is
+ * null when the client did not send one.
+ */
+public record Transfer(AccountNumber sourceAccountNumber,
+                       AccountNumber destinationAccountNumber,
+                       MonetaryAmount amount,
+                       String idempotencyKey) {
+    public Transfer {
+        if (sourceAccountNumber == null || destinationAccountNumber == null || amount == null) {
+            throw new IllegalArgumentException("Transfer requires source, destination and amount");
+        }
+    }
+
+    public Transfer(AccountNumber sourceAccountNumber, AccountNumber destinationAccountNumber, MonetaryAmount amount) {
+        this(sourceAccountNumber, destinationAccountNumber, amount, null);
+    }
+
+    public Transfer withIdempotencyKey(String idempotencyKey) {
+        return new Transfer(sourceAccountNumber, destinationAccountNumber, amount, idempotencyKey);
+    }
+}
@@ -0,0 +1,60 @@
+package io.acmebank.account_manager.engine;
+
+/**
+ * Balance of one account in minor units. Only the owning shard's thread writes it. The working balance includes
+ * every logged change and is what transfers check funds against, on the shard's thread; the durable balance only
+ * includes changes whose log record is durable and is what any other thread reads. An account loaded by a read is
+ * not logged until its first change.
+ */
+final class AccountBalance {
+    private final String currency;
+    private long minorUnits;
+    private volatile long durableMinorUnits;
+    // whether the log holds the account's Opened record, set by the owning shard's thread
+    private volatile boolean logged;
+
+    AccountBalance(String currency, long minorUnits) {
+        this(currency, minorUnits, true);
+    }
+
+    AccountBalance(String currency, long minorUnits, boolean logged) {
+        this.currency = currency;
+        this.minorUnits = minorUnits;
+        this.durableMinorUnits = minorUnits;
+        this.logged = logged;
+    }
+
+    String currency() {
+        return currency;
+    }
+
+    // owning shard's thread only
+    long minorUnits() {
+        return minorUnits;
+    }
+
+    long durableMinorUnits() {
+        return durableMinorUnits;
+    }
+
+    boolean isLogged() {
+        return logged;
+    }
+
+    void markLogged() {
+        logged = true;
+    }
+
+    void debit(long amount) {
+        minorUnits = Math.subtractExact(minorUnits, amount);
+    }
+
+    void credit(long amount) {
+        minorUnits = Math.addExact(minorUnits, amount);
+    }
+
+    // adds a change already applied to the working balance once its record is durable
+    void publish(long amount) {
+        durableMinorUnits = Math.addExact(durableMinorUnits, amount);
+    }
+}
@@ -0,0 +1,85 @@
+package io.acmebank.account_manager.engine;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A partition of the accounts with a single thread applying every change to them, so balances are checked and
+ * updated without locks. Lookups are safe from any thread, accounts are never removed. A change is staged with the
+ * log position of its record and only published to the durable balance once that position is durable.
+ */
+final class AccountShard implements AutoCloseable {
+    private final Map<String, AccountBalance> balances = new ConcurrentHashMap<>();
+    // writer thread only, by log position
+    private final PriorityQueue<Staged> staged = new PriorityQueue<>(Comparator.comparingLong(Staged::position));
+    private final ExecutorService writer;
+
+    private record Staged(long position, AccountBalance balance, long amount) {
+    }
+
+    AccountShard(int index) {
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "account-shard-" + index);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    AccountBalance get(String accountNumber) {
+        return balances.get(accountNumber);
+    }
+
+    int size() {
+        return balances.size();
+    }
+
+    // any thread, a balance added here has not been changed yet
+    AccountBalance putIfAbsent(String accountNumber, AccountBalance balance) {
+        AccountBalance existing = balances.putIfAbsent(accountNumber, balance);
+        return existing == null ? balance : existing;
+    }
+
+    // writer thread only, after applying the change to the working balance
+    void stage(long position, AccountBalance balance, long amount) {
+        staged.add(new Staged(position, balance, amount));
+    }
+
+    /**
+     * Publishes the staged changes logged up to the durable position, in log order, so a reader never sees a debit
+     * without the earlier credit that funded it.
+     */
+    CompletableFuture<Void> publish(long durablePosition) {
+        return submit(() -> {
+            while (!staged.isEmpty() && staged.peek().position() <= durablePosition) {
+                Staged change = staged.poll();
+                change.balance().publish(change.amount());
+            }
+            return null;
+        });
+    }
+
+    <T> CompletableFuture<T> submit(Callable<T> change) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        writer.execute(() -> {
+            try {
+                result.complete(change.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,56 @@
+package io.acmebank.account_manager.engine;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.Currencies;
+import io.acmebank.account_manager.repository.AccountRepository;
+import io.acmebank.account_manager.repository.entity.Account;
+import io.acmebank.account_manager.service.AccountExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.money.MonetaryAmount;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link AccountExportService} of the in-memory engine. The {@code accounts} table still lists the accounts, page by
+ * page, but their balances are the engine's, which the table stops following once an account is taken over.
+ * Accounts the engine has not taken over yet are exported from the table and are not taken over by the export.
+ */
+@Service
+@ConditionalOnProperty(name = "account-manager.engine", havingValue = "in-memory")
+public class InMemoryAccountExportService implements AccountExportService {
+    private final AccountRepository accountRepository;
+    private final InMemoryAccountService accountService;
+
+    @Autowired
+    public InMemoryAccountExportService(AccountRepository accountRepository, InMemoryAccountService accountService) {
+        this.accountRepository = accountRepository;
+        this.accountService = accountService;
+    }
+
+    @Override
+    public void exportAccounts(AccountWriter writer) throws IOException {
+        String after = "";
+        List<Account> page;
+        do {
+            page = accountRepository.findPageAfter(after, PAGE_SIZE);
+            Map<AccountNumber, MonetaryAmount> balances = accountService.getTakenOverBalances(page.stream()
+                    .map(account -> new AccountNumber(account.getAccountNumber()))
+                    .toList());
+            for (Account account : page) {
+                MonetaryAmount balance = balances.get(new AccountNumber(account.getAccountNumber()));
+                // pages are plain rows rather than managed entities, nothing is written back
+                if (balance != null) {
+                    account.setBalanceMinorUnits(Currencies.toMinorUnits(balance));
+                }
+                writer.write(account);
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getAccountNumber();
+            }
+        } while (page.size() == PAGE_SIZE);
+    }
+}
@@ -0,0 +1,375 @@
+package io.acmebank.account_manager.engine;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.Currencies;
+import io.acmebank.account_manager.domain.FxRates;
+import io.acmebank.account_manager.domain.FxRates.Conversion;
+import io.acmebank.account_manager.domain.Transfer;
+import io.acmebank.account_manager.engine.SnapshotFile.Snapshot;
+import io.acmebank.account_manager.engine.WalRecord.Exchanged;
+import io.acmebank.account_manager.engine.WalRecord.Opened;
+import io.acmebank.account_manager.engine.WalRecord.Transferred;
+import io.acmebank.account_manager.repository.AccountRepository;
+import io.acmebank.account_manager.repository.entity.Account;
+import io.acmebank.account_manager.service.AccountService;
+import io.acmebank.account_manager.service.FxRateService;
+import io.acmebank.account_manager.service.NoAccountFoundException;
+import io.acmebank.account_manager.service.TransferStatus;
+import org.javamoney.moneta.FastMoney;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.money.MonetaryAmount;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link AccountService} keeping every balance in memory, selected with {@code account-manager.engine=in-memory}.
+ * <p>
+ * Accounts are split into {@link AccountShard}s by hash of the account number and only the shard's own thread
+ * changes them. A transfer is decided on the source shard: funds are checked, one {@link Transferred} record is
+ * appended to the {@link WriteAheadLog} and the source is debited; the credit is then handed to the destination
+ * shard. Shards never wait for each other, so cross-shard transfers cannot deadlock, and credits reach a shard in
+ * the order its sources decided them. Funds are checked against every logged change, which is safe as the log is
+ * durable in order: a debit's record is never durable without the records of the credits it spends. Readers only
+ * see changes once their record is durable, the shards publish them after the caller waited for its position, and
+ * the caller returns once both sides are published.
+ * <p>
+ * Accounts are taken over from the database the first time they are used and from then on only live here, the
+ * {@code accounts} table is not updated and ledger entries are not written. Taking over writes nothing to the log,
+ * an {@link Opened} record is appended by the account's shard before the first record that changes it, so reads
+ * never write. On startup balances are rebuilt
+ * from the last snapshot plus every log segment written after it. Snapshots compact the sealed segments in the
+ * background, without pausing the shards.
+ */
+@Service
+@ConditionalOnProperty(name = "account-manager.engine", havingValue = "in-memory")
+public class InMemoryAccountService implements AccountService, DisposableBean {
+    // returned by transfer in place of a log position
+    private static final long NOT_ENOUGH_FUNDS = -1;
+    private static final long SOURCE_ACCOUNT_NOT_FOUND = -2;
+    private static final long DESTINATION_ACCOUNT_NOT_FOUND = -3;
+    private static final long UNSUPPORTED_CURRENCY_PAIR = -4;
+    private static final long AMOUNT_TOO_SMALL = -5;
+    private static final long INVALID_AMOUNT = -6;
+
+    private final AccountRepository accountRepository;
+    private final Path directory;
+    private final AccountShard[] shards;
+    private final WriteAheadLog writeAheadLog;
+    private final FxRateService fxRateService;
+
+    public InMemoryAccountService(AccountRepository accountRepository, InMemoryEngineProperties properties) throws IOException {
+        this(accountRepository, properties, FxRates::empty);
+    }
+
+    @Autowired
+    public InMemoryAccountService(AccountRepository accountRepository, InMemoryEngineProperties properties,
+                                  FxRateService fxRateService) throws IOException {
+        this.accountRepository = accountRepository;
+        this.fxRateService = fxRateService;
+        this.directory = properties.getDirectory();
+        this.shards = new AccountShard[properties.getShards()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new AccountShard(i);
+        }
+
+        Files.createDirectories(directory);
+        Snapshot snapshot = SnapshotFile.read(directory).orElseGet(Snapshot::empty);
+        Map<String, AccountBalance> balances = snapshot.balances();
+        long lastSegmentIndex = snapshot.lastSegmentIndex();
+        for (long index : WriteAheadLog.segmentIndexes(directory)) {
+            Path segmentFile = WriteAheadLog.segmentFile(directory, index);
+            if (index > snapshot.lastSegmentIndex()) {
+                AtomicInteger records = new AtomicInteger();
+                WriteAheadLog.read(segmentFile, record -> {
+                    record.applyTo(balances);
+                    records.incrementAndGet();
+                });
+                // the segment of a run that logged nothing, its index is used again rather than one per restart
+                if (records.get() == 0) {
+                    Files.delete(segmentFile);
+                    continue;
+                }
+            }
+            lastSegmentIndex = Math.max(lastSegmentIndex, index);
+        }
+        // recovery only moved the working balances, everything recovered is durable
+        balances.forEach((accountNumber, balance) -> shardOf(accountNumber).putIfAbsent(accountNumber,
+                new AccountBalance(balance.currency(), balance.minorUnits())));
+        this.writeAheadLog = new WriteAheadLog(directory, Math.toIntExact(properties.getSegmentSize().toBytes()),
+                lastSegmentIndex + 1);
+    }
+
+    @Override
+    public MonetaryAmount getBalance(AccountNumber accountNumber) throws NoAccountFoundException {
+        return findBalance(accountNumber).orElseThrow(() -> new NoAccountFoundException(accountNumber.value()));
+    }
+
+    @Override
+    public Optional<MonetaryAmount> findBalance(AccountNumber accountNumber) {
+        return find(accountNumber)
+                .map(balance -> FastMoney.ofMinor(Currencies.of(balance.currency()), balance.durableMinorUnits()));
+    }
+
+    @Override
+    public Map<AccountNumber, MonetaryAmount> getBalances(Collection<AccountNumber> accountNumbers) {
+        Map<AccountNumber, MonetaryAmount> balances = new HashMap<>();
+        for (AccountNumber accountNumber : accountNumbers) {
+            find(accountNumber).ifPresent(balance -> balances.put(accountNumber,
+                    FastMoney.ofMinor(Currencies.of(balance.currency()), balance.durableMinorUnits())));
+        }
+        return balances;
+    }
+
+    /**
+     * Balances of the accounts the engine has already taken over. Other accounts are left out rather than taken
+     * over, so nothing is loaded, and their balance is still the one in the {@code accounts} table.
+     */
+    public Map<AccountNumber, MonetaryAmount> getTakenOverBalances(Collection<AccountNumber> accountNumbers) {
+        Map<AccountNumber, MonetaryAmount> balances = new HashMap<>();
+        for (AccountNumber accountNumber : accountNumbers) {
+            AccountBalance balance = shardOf(accountNumber.value()).get(accountNumber.value());
+            if (balance != null) {
+                balances.put(accountNumber, FastMoney.ofMinor(Currencies.of(balance.currency()), balance.durableMinorUnits()));
+            }
+        }
+        return balances;
+    }
+
+    @Override
+    public TransferStatus tryTransferMoney(AccountNumber sourceAccountNumber,
+                                           AccountNumber destinationAccountNumber,
+                                           MonetaryAmount amount,
+                                           String idempotencyKey) {
+        long position = transfer(sourceAccountNumber, destinationAccountNumber, amount, idempotencyKey);
+        TransferStatus status = statusOf(position);
+        if (status == TransferStatus.COMPLETED) {
+            writeAheadLog.awaitDurable(position);
+            AccountShard sourceShard = shardOf(sourceAccountNumber.value());
+            AccountShard destinationShard = shardOf(destinationAccountNumber.value());
+            join(CompletableFuture.allOf(sourceShard.publish(position), destinationShard.publish(position)));
+        }
+        return status;
+    }
+
+    @Override
+    public List<TransferStatus> transferMoney(List<Transfer> transfers) {
+        List<TransferStatus> statuses = new ArrayList<>(transfers.size());
+        long lastPosition = 0;
+        for (Transfer transfer : transfers) {
+            long position = transfer(transfer.sourceAccountNumber(), transfer.destinationAccountNumber(),
+                    transfer.amount(), transfer.idempotencyKey() != null
+                            ? transfer.idempotencyKey()
+                            : UUID.randomUUID().toString());
+            TransferStatus status = statusOf(position);
+            if (status == TransferStatus.COMPLETED) {
+                lastPosition = Math.max(lastPosition, position);
+            }
+            statuses.add(status);
+        }
+        // the log is durable in order, waiting for the last record covers the whole batch
+        writeAheadLog.awaitDurable(lastPosition);
+        if (lastPosition > 0) {
+            publish(lastPosition);
+        }
+        return statuses;
+    }
+
+    /**
+     * Compacts the log segments written since the last snapshot into a new snapshot and deletes them. Nothing is
+     * written while nothing was logged since the last snapshot.
+     */
+    @Scheduled(fixedDelayString = "${account-manager.in-memory.snapshot-interval:PT5M}")
+    public synchronized void snapshot() {
+        try {
+            long sealedIndex = writeAheadLog.seal();
+            Snapshot previous = SnapshotFile.read(directory).orElseGet(Snapshot::empty);
+            if (sealedIndex <= previous.lastSegmentIndex()) {
+                return;
+            }
+            List<Long> segments = WriteAheadLog.segmentIndexes(directory).stream()
+                    .filter(index -> index <= sealedIndex)
+                    .toList();
+            Map<String, AccountBalance> balances = previous.balances();
+            for (long index : segments) {
+                if (index > previous.lastSegmentIndex()) {
+                    WriteAheadLog.read(WriteAheadLog.segmentFile(directory, index), record -> record.applyTo(balances));
+                }
+            }
+            SnapshotFile.write(directory, new Snapshot(sealedIndex, balances));
+            for (long index : segments) {
+                Files.deleteIfExists(WriteAheadLog.segmentFile(directory, index));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (AccountShard shard : shards) {
+            shard.close();
+        }
+        writeAheadLog.close();
+    }
+
+    // number of accounts taken over so far
+    int size() {
+        int size = 0;
+        for (AccountShard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    // returns the log position of the transfer record, or the reason it was not made
+    private long transfer(AccountNumber sourceAccountNumber,
+                          AccountNumber destinationAccountNumber,
+                          MonetaryAmount amount,
+                          String idempotencyKey) {
+        if (!amount.isPositive()) {
+            return INVALID_AMOUNT;
+        }
+        AccountBalance source = find(sourceAccountNumber).orElse(null);
+        if (source == null) {
+            return SOURCE_ACCOUNT_NOT_FOUND;
+        }
+        AccountBalance destination = find(destinationAccountNumber).orElse(null);
+        if (destination == null) {
+            return DESTINATION_ACCOUNT_NOT_FOUND;
+        }
+        FxRates rates = fxRateService.getRates();
+        Conversion toSource = rates.conversion(amount.getCurrency().getCurrencyCode(), source.currency());
+        Conversion toDestination = rates.conversion(amount.getCurrency().getCurrencyCode(), destination.currency());
+        if (toSource == null || toDestination == null) {
+            return UNSUPPORTED_CURRENCY_PAIR;
+        }
+        long minorUnits = Currencies.toMinorUnits(amount);
+        // rounded as by the JPA service, debits up and credits down
+        long debit = toSource.convert(minorUnits, RoundingMode.CEILING);
+        long credit = toDestination.convert(minorUnits, RoundingMode.FLOOR);
+        if (debit == 0 || credit == 0) {
+            return AMOUNT_TOO_SMALL;
+        }
+        WalRecord record = debit == credit
+                ? new Transferred(sourceAccountNumber.value(), destinationAccountNumber.value(), debit, idempotencyKey)
+                : new Exchanged(sourceAccountNumber.value(), destinationAccountNumber.value(), debit, credit, idempotencyKey);
+
+        AccountShard sourceShard = shardOf(sourceAccountNumber.value());
+        AccountShard destinationShard = shardOf(destinationAccountNumber.value());
+        // the destination's Opened record must precede the transfer's, so its own shard appends it first
+        if (!destination.isLogged()) {
+            join(destinationShard.submit(() -> logOpened(destinationAccountNumber, destination)));
+        }
+        CompletableFuture<Long> applied = sourceShard.<CompletableFuture<Long>>submit(() -> {
+            if (source.minorUnits() < debit) {
+                return CompletableFuture.completedFuture(NOT_ENOUGH_FUNDS);
+            }
+            logOpened(sourceAccountNumber, source);
+            // logged before anything changes, a failed append leaves the balances untouched
+            long position = writeAheadLog.append(record);
+            source.debit(debit);
+            sourceShard.stage(position, source, -debit);
+            if (sourceShard == destinationShard) {
+                destination.credit(credit);
+                sourceShard.stage(position, destination, credit);
+                return CompletableFuture.completedFuture(position);
+            }
+            return destinationShard.submit(() -> {
+                destination.credit(credit);
+                destinationShard.stage(position, destination, credit);
+                return position;
+            });
+        }).thenCompose(credited -> credited);
+
+        return join(applied);
+    }
+
+    private void publish(long durablePosition) {
+        CompletableFuture<?>[] published = new CompletableFuture<?>[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            published[i] = shards[i].publish(durablePosition);
+        }
+        join(CompletableFuture.allOf(published));
+    }
+
+    private static TransferStatus statusOf(long position) {
+        if (position == NOT_ENOUGH_FUNDS) {
+            return TransferStatus.NOT_ENOUGH_FUNDS;
+        }
+        if (position == SOURCE_ACCOUNT_NOT_FOUND) {
+            return TransferStatus.SOURCE_ACCOUNT_NOT_FOUND;
+        }
+        if (position == DESTINATION_ACCOUNT_NOT_FOUND) {
+            return TransferStatus.DESTINATION_ACCOUNT_NOT_FOUND;
+        }
+        if (position == UNSUPPORTED_CURRENCY_PAIR) {
+            return TransferStatus.UNSUPPORTED_CURRENCY_PAIR;
+        }
+        if (position == AMOUNT_TOO_SMALL) {
+            return TransferStatus.AMOUNT_TOO_SMALL;
+        }
+        if (position == INVALID_AMOUNT) {
+            return TransferStatus.INVALID_AMOUNT;
+        }
+        return TransferStatus.COMPLETED;
+    }
+
+    private Optional<AccountBalance> find(AccountNumber accountNumber) {
+        AccountShard shard = shardOf(accountNumber.value());
+        AccountBalance balance = shard.get(accountNumber.value());
+        if (balance != null) {
+            return Optional.of(balance);
+        }
+        Optional<Account> account = accountRepository.findByAccountNumber(accountNumber.value());
+        if (account.isEmpty()) {
+            return Optional.empty();
+        }
+        // slots of a hot account (see AccountSlotOperations) are part of its balance
+        long minorUnits = Math.addExact(account.get().getBalanceMinorUnits(),
+                accountRepository.sumSlots(accountNumber.value()));
+        return Optional.of(shard.putIfAbsent(accountNumber.value(),
+                new AccountBalance(account.get().getCurrency(), minorUnits, false)));
+    }
+
+    // owning shard's thread only, the balance is still the one loaded as nothing changed it before it was logged
+    private Void logOpened(AccountNumber accountNumber, AccountBalance balance) {
+        if (!balance.isLogged()) {
+            writeAheadLog.append(new Opened(accountNumber.value(), balance.currency(), balance.minorUnits()));
+            balance.markLogged();
+        }
+        return null;
+    }
+
+    private AccountShard shardOf(String accountNumber) {
+        return shards[Math.floorMod(accountNumber.hashCode(), shards.length)];
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
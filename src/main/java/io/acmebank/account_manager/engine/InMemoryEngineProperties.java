@@ -0,0 +1,39 @@
+package io.acmebank.account_manager.engine;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+@ConfigurationProperties(prefix = "account-manager.in-memory")
+public class InMemoryEngineProperties {
+
+    private int shards = Runtime.getRuntime().availableProcessors();
+    // holds the write-ahead log segments and the snapshot
+    private Path directory = Path.of("./testdata/engine");
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    public DataSize getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(DataSize segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+}
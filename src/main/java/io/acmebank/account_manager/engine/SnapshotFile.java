@@ -0,0 +1,85 @@
+package io.acmebank.account_manager.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Every balance as of the end of a given write-ahead log segment. Written to a temporary file and moved in place,
+ * so a crash while writing leaves the previous snapshot untouched.
+ */
+final class SnapshotFile {
+    private static final String NAME = "snapshot.dat";
+    private static final int MAGIC = 0x41434d45;
+
+    record Snapshot(long lastSegmentIndex, Map<String, AccountBalance> balances) {
+
+        static Snapshot empty() {
+            return new Snapshot(-1, new HashMap<>());
+        }
+    }
+
+    private SnapshotFile() {
+    }
+
+    static Optional<Snapshot> read(Path directory) throws IOException {
+        Path file = directory.resolve(NAME);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        CRC32C crc = new CRC32C();
+        try (InputStream buffered = new BufferedInputStream(Files.newInputStream(file));
+             DataInputStream in = new DataInputStream(new CheckedInputStream(buffered, crc))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an account snapshot: " + file);
+            }
+            long lastSegmentIndex = in.readLong();
+            int count = in.readInt();
+            Map<String, AccountBalance> balances = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                balances.put(in.readUTF(), new AccountBalance(in.readUTF(), in.readLong()));
+            }
+            long expected = crc.getValue();
+            if (new DataInputStream(buffered).readLong() != expected) {
+                throw new IOException("Corrupt account snapshot: " + file);
+            }
+            return Optional.of(new Snapshot(lastSegmentIndex, balances));
+        }
+    }
+
+    static void write(Path directory, Snapshot snapshot) throws IOException {
+        Path temporary = directory.resolve(NAME + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file), crc));
+            out.writeInt(MAGIC);
+            out.writeLong(snapshot.lastSegmentIndex());
+            out.writeInt(snapshot.balances().size());
+            for (Map.Entry<String, AccountBalance> entry : snapshot.balances().entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue().currency());
+                out.writeLong(entry.getValue().minorUnits());
+            }
+            out.flush();
+            // the checksum itself is left out of the checksum
+            DataOutputStream trailer = new DataOutputStream(file);
+            trailer.writeLong(crc.getValue());
+            trailer.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temporary, directory.resolve(NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,133 @@
+package io.acmebank.account_manager.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Entries of the write-ahead log. Replaying them in log order over the last snapshot rebuilds every balance.
+ */
+sealed interface WalRecord {
+    byte OPENED = 1;
+    byte TRANSFERRED = 2;
+    byte EXCHANGED = 3;
+
+    /**
+     * Applies the record to a set of balances, as done on recovery and when compacting into a snapshot.
+     */
+    void applyTo(Map<String, AccountBalance> balances);
+
+    byte[] encode();
+
+    /**
+     * An account taken over from the database with its balance at that moment.
+     */
+    record Opened(String accountNumber, String currency, long minorUnits) implements WalRecord {
+
+        @Override
+        public void applyTo(Map<String, AccountBalance> balances) {
+            balances.putIfAbsent(accountNumber, new AccountBalance(currency, minorUnits));
+        }
+
+        @Override
+        public byte[] encode() {
+            byte[] accountNumberBytes = accountNumber.getBytes(StandardCharsets.UTF_8);
+            byte[] currencyBytes = currency.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + accountNumberBytes.length + 2 + currencyBytes.length + 8);
+            buffer.put(OPENED);
+            putString(buffer, accountNumberBytes);
+            putString(buffer, currencyBytes);
+            buffer.putLong(minorUnits);
+            return buffer.array();
+        }
+    }
+
+    /**
+     * A completed transfer, both sides in one record so a transfer is never half replayed.
+     */
+    record Transferred(String sourceAccountNumber, String destinationAccountNumber, long minorUnits,
+                       String idempotencyKey) implements WalRecord {
+
+        @Override
+        public void applyTo(Map<String, AccountBalance> balances) {
+            AccountBalance source = balances.get(sourceAccountNumber);
+            AccountBalance destination = balances.get(destinationAccountNumber);
+            if (source == null || destination == null) {
+                throw new IllegalStateException("Write-ahead log transfers between accounts it never opened: " + this);
+            }
+            source.debit(minorUnits);
+            destination.credit(minorUnits);
+        }
+
+        @Override
+        public byte[] encode() {
+            byte[] sourceBytes = sourceAccountNumber.getBytes(StandardCharsets.UTF_8);
+            byte[] destinationBytes = destinationAccountNumber.getBytes(StandardCharsets.UTF_8);
+            byte[] keyBytes = idempotencyKey.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + sourceBytes.length + 2 + destinationBytes.length + 8
+                    + 2 + keyBytes.length);
+            buffer.put(TRANSFERRED);
+            putString(buffer, sourceBytes);
+            putString(buffer, destinationBytes);
+            buffer.putLong(minorUnits);
+            putString(buffer, keyBytes);
+            return buffer.array();
+        }
+    }
+
+    /**
+     * A completed transfer between accounts of different currencies, debited and credited different minor units.
+     */
+    record Exchanged(String sourceAccountNumber, String destinationAccountNumber, long debitMinorUnits,
+                     long creditMinorUnits, String idempotencyKey) implements WalRecord {
+
+        @Override
+        public void applyTo(Map<String, AccountBalance> balances) {
+            AccountBalance source = balances.get(sourceAccountNumber);
+            AccountBalance destination = balances.get(destinationAccountNumber);
+            if (source == null || destination == null) {
+                throw new IllegalStateException("Write-ahead log transfers between accounts it never opened: " + this);
+            }
+            source.debit(debitMinorUnits);
+            destination.credit(creditMinorUnits);
+        }
+
+        @Override
+        public byte[] encode() {
+            byte[] sourceBytes = sourceAccountNumber.getBytes(StandardCharsets.UTF_8);
+            byte[] destinationBytes = destinationAccountNumber.getBytes(StandardCharsets.UTF_8);
+            byte[] keyBytes = idempotencyKey.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + sourceBytes.length + 2 + destinationBytes.length + 8 + 8
+                    + 2 + keyBytes.length);
+            buffer.put(EXCHANGED);
+            putString(buffer, sourceBytes);
+            putString(buffer, destinationBytes);
+            buffer.putLong(debitMinorUnits);
+            buffer.putLong(creditMinorUnits);
+            putString(buffer, keyBytes);
+            return buffer.array();
+        }
+    }
+
+    static WalRecord decode(ByteBuffer buffer) {
+        byte type = buffer.get();
+        return switch (type) {
+            case OPENED -> new Opened(getString(buffer), getString(buffer), buffer.getLong());
+            case TRANSFERRED -> new Transferred(getString(buffer), getString(buffer), buffer.getLong(), getString(buffer));
+            case EXCHANGED -> new Exchanged(getString(buffer), getString(buffer), buffer.getLong(), buffer.getLong(),
+                    getString(buffer));
+            default -> throw new IllegalStateException("Unknown write-ahead log record type " + type);
+        };
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
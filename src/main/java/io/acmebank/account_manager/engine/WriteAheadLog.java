@@ -0,0 +1,267 @@
+package io.acmebank.account_manager.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of {@link WalRecord}s in fixed size, memory-mapped segment files {@code wal-<index>.log}.
+ * <p>
+ * Appending only copies the record into the mapped segment and returns its log position. A flusher thread forces
+ * the segment to disk whenever something was appended, so everything appended while one force is running is made
+ * durable by the next one (group commit). Writers wait for their position with {@link #awaitDurable(long)}.
+ * Every record is framed as {@code length, crc32c, payload}; reading a segment stops at the first frame that is
+ * empty or does not match its checksum, which is where a crash cut the segment short.
+ * <p>
+ * When forcing fails the flusher stops and the log is failed: waiters and later appends throw the failure rather
+ * than wait for a position that will never be durable.
+ */
+final class WriteAheadLog implements AutoCloseable {
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private final Thread flusher;
+
+    private Segment segment;
+    // positions are global, index * segmentSize + offset in the segment
+    private long appendPosition;
+    private long durablePosition;
+    private boolean closed;
+    // why the flusher stopped, set at most once
+    private RuntimeException failure;
+
+    private record Segment(long index, FileChannel channel, MappedByteBuffer buffer) {
+    }
+
+    /**
+     * Starts writing a new segment with the given index, existing segments are left for recovery and compaction.
+     */
+    WriteAheadLog(Path directory, int segmentSize, long firstSegmentIndex) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segment = openSegment(firstSegmentIndex);
+        this.appendPosition = firstSegmentIndex * segmentSize;
+        this.durablePosition = appendPosition;
+        this.flusher = new Thread(this::flushLoop, "wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Appends the record and returns the log position to wait for, the record is not durable yet.
+     */
+    long append(WalRecord record) {
+        byte[] payload = record.encode();
+        int frameSize = FRAME_HEADER_BYTES + payload.length;
+        if (frameSize > segmentSize) {
+            throw new IllegalArgumentException("Record of " + frameSize + " bytes does not fit a segment");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log is closed");
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Write-ahead log failed", failure);
+            }
+            if (segment.buffer().remaining() < frameSize) {
+                rollOver();
+            }
+            MappedByteBuffer buffer = segment.buffer();
+            buffer.putInt(payload.length);
+            buffer.putInt((int) crc.getValue());
+            buffer.put(payload);
+            appendPosition = segment.index() * segmentSize + buffer.position();
+            appended.signal();
+            return appendPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void awaitDurable(long position) {
+        lock.lock();
+        try {
+            while (durablePosition < position) {
+                if (failure != null) {
+                    throw new IllegalStateException("Write-ahead log failed before position " + position + " was written", failure);
+                }
+                if (!flusher.isAlive()) {
+                    throw new IllegalStateException("Write-ahead log closed before position " + position + " was written");
+                }
+                durable.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the current segment, even when not full, and returns the index of the newest segment that is complete so
+     * everything up to it can be compacted into a snapshot. A segment nothing was appended to is kept open, rolling
+     * it over would only start another empty one.
+     */
+    long seal() {
+        lock.lock();
+        try {
+            if (segment.buffer().position() == 0) {
+                return segment.index() - 1;
+            }
+            long sealed = segment.index();
+            rollOver();
+            return sealed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.buffer().force();
+        closeQuietly(segment.channel());
+    }
+
+    static List<Long> segmentIndexes(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static Path segmentFile(Path directory, long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    static void read(Path segmentFile, Consumer<WalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    return;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                CRC32C crc = new CRC32C();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    return;
+                }
+                consumer.accept(WalRecord.decode(payload));
+                buffer.position(buffer.position() + length);
+            }
+        }
+    }
+
+    private void flushLoop() {
+        try {
+            flushUntilClosed();
+        } catch (RuntimeException | Error e) {
+            lock.lock();
+            try {
+                failure = e instanceof RuntimeException runtimeException
+                        ? runtimeException
+                        : new IllegalStateException(e);
+                durable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private void flushUntilClosed() {
+        while (true) {
+            long target;
+            Segment toForce;
+            lock.lock();
+            try {
+                while (appendPosition == durablePosition && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (appendPosition == durablePosition) {
+                    durable.signalAll();
+                    return;
+                }
+                target = appendPosition;
+                toForce = segment;
+            } finally {
+                lock.unlock();
+            }
+
+            toForce.buffer().force();
+
+            lock.lock();
+            try {
+                durablePosition = Math.max(durablePosition, target);
+                durable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // called with the lock held, the full segment is forced here so the flusher only ever deals with the newest one
+    private void rollOver() {
+        Segment full = segment;
+        full.buffer().force();
+        closeQuietly(full.channel());
+        segment = openSegment(full.index() + 1);
+        appendPosition = segment.index() * segmentSize;
+        durablePosition = appendPosition;
+        durable.signalAll();
+    }
+
+    private Segment openSegment(long index) {
+        try {
+            FileChannel channel = FileChannel.open(segmentFile(directory, index),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(index, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // the mapping stays valid after the channel is closed
+        }
+    }
+}
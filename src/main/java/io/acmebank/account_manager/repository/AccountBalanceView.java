@@ -0,0 +1,18 @@
+package io.acmebank.account_manager.repository;
+
+/**
+ * Read-only projection of the balance columns of an account, fetched as a tuple without creating an entity.
+ */
+public interface AccountBalanceView {
+
+    long getId();
+
+    String getAccountNumber();
+
+    String getCurrency();
+
+    // in minor units of the currency
+    long getBalance();
+
+    long getVersion();
+}
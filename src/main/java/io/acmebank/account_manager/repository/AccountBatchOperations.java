@@ -0,0 +1,30 @@
+package io.acmebank.account_manager.repository;
+
+import io.acmebank.account_manager.repository.entity.Account;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Plain JDBC access for batch transfers and exports. Accounts returned here are not managed by JPA,
+ * changes to them are only written by {@link #updateBalances(List)}.
+ */
+public interface AccountBatchOperations {
+
+    // one IN query, rows ordered by account number so concurrent batches lock them in the same order
+    List<Account> findAllForBatch(Collection<String> accountNumbers, boolean forUpdate);
+
+    // JDBC batch update guarded by the version column, bumps the version of every given account
+    void updateBalances(List<Account> accounts);
+
+    // keyset page in account number order, each page is its own short query on the account_number index
+    List<Account> findPageAfter(String afterAccountNumber, int limit);
+
+    // every account number with its id, streamed from one query without building entities
+    void scanAccountIds(AccountIdConsumer consumer);
+
+    @FunctionalInterface
+    interface AccountIdConsumer {
+        void accept(String accountNumber, long id);
+    }
+}
@@ -0,0 +1,92 @@
+package io.acmebank.account_manager.repository;
+
+import io.acmebank.account_manager.repository.entity.Account;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+class AccountBatchOperationsImpl implements AccountBatchOperations {
+    private static final String SELECT_ACCOUNTS =
+            "select id, account_number, currency, balance, version from accounts " +
+                    "where account_number in (:accountNumbers) order by account_number";
+    // exported balances include the slots of hot accounts
+    private static final String SELECT_PAGE =
+            "select a.id, a.account_number, a.currency, a.version, a.balance + cast(coalesce((select sum(s.balance) " +
+                    "from account_slots s where s.account_number = a.account_number), 0) as bigint) as balance from accounts a " +
+                    "where a.account_number > :afterAccountNumber order by a.account_number limit :limit";
+    private static final String SELECT_IDS = "select id, account_number from accounts";
+    private static final int SCAN_FETCH_SIZE = 10_000;
+    private static final String UPDATE_BALANCE =
+            "update accounts set balance = ?, version = ? where id = ? and version = ?";
+
+    private static final RowMapper<Account> ACCOUNT_ROW_MAPPER = (rs, rowNum) -> {
+        Account account = new Account();
+        account.setId(rs.getLong("id"));
+        account.setAccountNumber(rs.getString("account_number"));
+        account.setCurrency(rs.getString("currency"));
+        account.setBalanceMinorUnits(rs.getLong("balance"));
+        account.setVersion(rs.getLong("version"));
+        return account;
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    AccountBatchOperationsImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Account> findAllForBatch(Collection<String> accountNumbers, boolean forUpdate) {
+        if (accountNumbers.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(forUpdate ? SELECT_ACCOUNTS + " for update" : SELECT_ACCOUNTS,
+                Map.of("accountNumbers", accountNumbers),
+                ACCOUNT_ROW_MAPPER);
+    }
+
+    @Override
+    public void updateBalances(List<Account> accounts) {
+        if (accounts.isEmpty()) {
+            return;
+        }
+        int[] updated = jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_BALANCE, accounts, accounts.size(),
+                (ps, account) -> {
+                    ps.setLong(1, account.getBalanceMinorUnits());
+                    ps.setLong(2, account.getVersion() + 1);
+                    ps.setLong(3, account.getId());
+                    ps.setLong(4, account.getVersion());
+                })[0];
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] != 1) {
+                throw new OptimisticLockingFailureException(
+                        String.format("Account '%s' was updated concurrently", accounts.get(i).getAccountNumber()));
+            }
+        }
+        accounts.forEach(account -> account.setVersion(account.getVersion() + 1));
+    }
+
+    @Override
+    public List<Account> findPageAfter(String afterAccountNumber, int limit) {
+        return jdbcTemplate.query(SELECT_PAGE,
+                Map.of("afterAccountNumber", afterAccountNumber, "limit", limit),
+                ACCOUNT_ROW_MAPPER);
+    }
+
+    @Override
+    public void scanAccountIds(AccountIdConsumer consumer) {
+        jdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_IDS);
+            statement.setFetchSize(SCAN_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getString(2), rs.getLong(1)));
+    }
+}
@@ -2,13 +2,42 @@ package io.acmebank.account_manager.repository;
 
 import io.acmebank.account_manager.repository.entity.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountBatchOperations,
+        AccountSlotOperations {
 
     Optional<Account> findByAccountNumber(@NonNull String accountNumber);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.accountNumber = :accountNumber")
+    Optional<Account> findByAccountNumberForUpdate(@NonNull @Param("accountNumber") String accountNumber);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id = :id")
+    Optional<Account> findByIdForUpdate(@NonNull @Param("id") Long id);
+
+    // the balance columns only, read without creating a managed entity
+    @Query("select a.id as id, a.accountNumber as accountNumber, a.currency as currency, a.balance as balance, " +
+            "a.version as version from Account a where a.accountNumber = :accountNumber")
+    Optional<AccountBalanceView> findBalanceByAccountNumber(@NonNull @Param("accountNumber") String accountNumber);
+
+    @Query("select a.id as id, a.accountNumber as accountNumber, a.currency as currency, a.balance as balance, " +
+            "a.version as version from Account a where a.id = :id")
+    Optional<AccountBalanceView> findBalanceById(@NonNull @Param("id") Long id);
+
+    // one IN query selecting only the balance columns, nothing is added to the persistence context
+    @Query("select a.id as id, a.accountNumber as accountNumber, a.currency as currency, a.balance as balance, " +
+            "a.version as version from Account a where a.accountNumber in :accountNumbers")
+    List<AccountBalanceView> findBalancesByAccountNumberIn(@NonNull @Param("accountNumbers") Collection<String> accountNumbers);
 }
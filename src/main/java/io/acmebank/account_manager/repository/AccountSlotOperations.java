@@ -0,0 +1,26 @@
+package io.acmebank.account_manager.repository;
+
+import java.util.List;
+
+/**
+ * Sub-balances ("slots") of hot accounts, in the {@code account_slots} table. Credits to a hot account go to one of
+ * its slots instead of its {@code accounts} row, so concurrent credits lock different rows. The balance of a hot
+ * account is the balance of its row plus the balances of all its slots.
+ */
+public interface AccountSlotOperations {
+
+    // adds the slots 0 to slots - 1 the account does not have yet, with a zero balance. Safe to run concurrently,
+    // a slot inserted by someone else in the meantime is left as it is
+    void createSlots(String accountNumber, int slots);
+
+    // single row update, does not read or lock the account row
+    void creditSlot(String accountNumber, int slot, long minorUnits);
+
+    // locks the non-empty slots and empties them in slot order until at least minorUnits are taken, returns the total taken
+    long drainSlots(String accountNumber, long minorUnits);
+
+    long sumSlots(String accountNumber);
+
+    // accounts with money in their slots, hot or no longer listed as hot
+    List<String> findAccountNumbersWithSlotBalance();
+}
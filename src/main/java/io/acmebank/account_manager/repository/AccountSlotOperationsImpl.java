@@ -0,0 +1,80 @@
+package io.acmebank.account_manager.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+class AccountSlotOperationsImpl implements AccountSlotOperations {
+    private static final String SELECT_SLOT_NUMBERS = "select slot from account_slots where account_number = ?";
+    private static final String INSERT_SLOT = "insert into account_slots (account_number, slot, balance) values (?, ?, 0)";
+    private static final String CREDIT_SLOT =
+            "update account_slots set balance = balance + ? where account_number = ? and slot = ?";
+    private static final String SELECT_SLOTS_FOR_UPDATE =
+            "select slot, balance from account_slots where account_number = ? and balance > 0 order by slot for update";
+    private static final String DEBIT_SLOT =
+            "update account_slots set balance = balance - ? where account_number = ? and slot = ?";
+    private static final String SUM_SLOTS = "select coalesce(sum(balance), 0) from account_slots where account_number = ?";
+    private static final String SELECT_ACCOUNTS_WITH_SLOT_BALANCE =
+            "select distinct account_number from account_slots where balance <> 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    AccountSlotOperationsImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void createSlots(String accountNumber, int slots) {
+        Set<Integer> existing = new HashSet<>(jdbcTemplate.queryForList(SELECT_SLOT_NUMBERS, Integer.class, accountNumber));
+        for (int slot = 0; slot < slots; slot++) {
+            if (!existing.contains(slot)) {
+                try {
+                    jdbcTemplate.update(INSERT_SLOT, accountNumber, slot);
+                } catch (DuplicateKeyException e) {
+                    // another instance starting at the same time created it
+                }
+            }
+        }
+    }
+
+    @Override
+    public void creditSlot(String accountNumber, int slot, long minorUnits) {
+        if (jdbcTemplate.update(CREDIT_SLOT, minorUnits, accountNumber, slot) != 1) {
+            throw new IllegalStateException(String.format("Account '%s' has no slot %d", accountNumber, slot));
+        }
+    }
+
+    @Override
+    public long drainSlots(String accountNumber, long minorUnits) {
+        List<Slot> slots = jdbcTemplate.query(SELECT_SLOTS_FOR_UPDATE,
+                (rs, rowNum) -> new Slot(rs.getInt("slot"), rs.getLong("balance")), accountNumber);
+        long taken = 0;
+        for (Slot slot : slots) {
+            if (taken >= minorUnits) {
+                break;
+            }
+            jdbcTemplate.update(DEBIT_SLOT, slot.balance(), accountNumber, slot.slot());
+            taken = Math.addExact(taken, slot.balance());
+        }
+        return taken;
+    }
+
+    @Override
+    public long sumSlots(String accountNumber) {
+        Long sum = jdbcTemplate.queryForObject(SUM_SLOTS, Long.class, accountNumber);
+        return sum == null ? 0 : sum;
+    }
+
+    @Override
+    public List<String> findAccountNumbersWithSlotBalance() {
+        return jdbcTemplate.queryForList(SELECT_ACCOUNTS_WITH_SLOT_BALANCE, String.class);
+    }
+
+    private record Slot(int slot, long balance) {
+    }
+}
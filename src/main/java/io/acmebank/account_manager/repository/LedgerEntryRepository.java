@@ -0,0 +1,20 @@
+package io.acmebank.account_manager.repository;
+
+import io.acmebank.account_manager.repository.entity.LedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    // newest first, both served by the (account_number, sequence) index
+    List<LedgerEntry> findByAccountNumberOrderBySequenceDesc(@NonNull String accountNumber, Pageable page);
+
+    List<LedgerEntry> findByAccountNumberAndSequenceLessThanOrderBySequenceDesc(@NonNull String accountNumber,
+                                                                                long sequence,
+                                                                                Pageable page);
+}
@@ -1,21 +1,21 @@
 package io.acmebank.account_manager.repository.entity;
 
+import io.acmebank.account_manager.domain.Currencies;
 import org.javamoney.moneta.FastMoney;
-import org.javamoney.moneta.function.MonetaryQueries;
 import org.springframework.lang.NonNull;
 
-import javax.money.Monetary;
+import javax.money.CurrencyUnit;
 import javax.money.MonetaryAmount;
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
-import javax.validation.constraints.NotNull;
-import java.math.BigDecimal;
 
 @Entity
 @Table(name = "accounts")
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    // blocks of 50 ids per sequence call, see db.migration.V3__Create_account_sequence
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_sequence")
+    @SequenceGenerator(name = "account_sequence", sequenceName = "account_sequence", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -26,13 +26,17 @@ public class Account {
     @Column(name = "currency", nullable = false)
     private String currency;
 
-    @NotNull
+    // in minor units of the currency
     @Column(name = "balance", nullable = false)
-    private BigDecimal balance;
+    private long balance;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
 
     public Account(@NonNull MonetaryAmount startingBalance) {
         this.currency = startingBalance.getCurrency().getCurrencyCode();
-        this.balance = new BigDecimal(startingBalance.query(MonetaryQueries.convertMinorPart()));
+        this.balance = Currencies.toMinorUnits(startingBalance);
     }
 
     public Account() {
@@ -56,16 +60,43 @@ public class Account {
     }
 
 
-    public void setBalance(BigDecimal balance) {
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getBalanceMinorUnits() {
+        return balance;
+    }
+
+    public void setBalanceMinorUnits(long balance) {
         this.balance = balance;
     }
 
+    public void debit(long minorUnits) {
+        this.balance = Math.subtractExact(balance, minorUnits);
+    }
+
+    public void credit(long minorUnits) {
+        this.balance = Math.addExact(balance, minorUnits);
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
 
     public void setCurrency(String currency) {
         this.currency = currency;
     }
 
+    public CurrencyUnit getCurrencyUnit() {
+        return Currencies.of(currency);
+    }
+
     public MonetaryAmount getBalance() {
-        return FastMoney.ofMinor(Monetary.getCurrency(currency), balance.longValue());
+        return FastMoney.ofMinor(getCurrencyUnit(), balance);
     }
 }
@@ -0,0 +1,89 @@
+package io.acmebank.account_manager.repository.entity;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Outcome of a transfer submitted with an Idempotency-Key. A synchronous transfer inserts the row with its outcome
+ * in the transaction that moves the money. An asynchronous one claims the row (outcome null) before it is queued,
+ * so a concurrent duplicate fails on the primary key instead of queueing a second time.
+ */
+@Entity
+@Table(name = "idempotency_keys",
+        indexes = @Index(name = "idempotency_keys_created_at_idx", columnList = "created_at"))
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
+    @Column(name = "request_fingerprint", nullable = false, length = 64)
+    private String requestFingerprint;
+
+    // null while the transfer is in progress
+    @Column(name = "outcome", length = 32)
+    private String outcome;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // the queued transfer for a key sent with Prefer: respond-async
+    @Column(name = "transfer_id", length = 36)
+    private String transferId;
+
+    // assigned ids make Spring Data merge instead of insert, this keeps the claim a plain INSERT
+    @Transient
+    private boolean isNew = true;
+
+    public IdempotencyRecord(String idempotencyKey, String requestFingerprint, Instant createdAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.requestFingerprint = requestFingerprint;
+        this.createdAt = createdAt;
+    }
+
+    public IdempotencyRecord() {
+
+    }
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public String getRequestFingerprint() {
+        return requestFingerprint;
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(String outcome) {
+        this.outcome = outcome;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getTransferId() {
+        return transferId;
+    }
+
+    public void setTransferId(String transferId) {
+        this.transferId = transferId;
+    }
+}
@@ -0,0 +1,101 @@
+package io.acmebank.account_manager.repository.entity;
+
+import io.acmebank.account_manager.domain.Currencies;
+import org.javamoney.moneta.FastMoney;
+
+import javax.money.MonetaryAmount;
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * One side of a transfer. Every transfer writes a DEBIT row for the source and a CREDIT row for the destination
+ * under the same idempotency key; rows are never updated or deleted.
+ */
+@Entity
+@Table(name = "ledger_entries",
+        indexes = @Index(name = "ledger_entries_account_sequence_idx", columnList = "account_number, sequence"),
+        uniqueConstraints = @UniqueConstraint(name = "ledger_entries_idempotency_key_uk",
+                columnNames = {"idempotency_key", "account_number", "direction"}))
+public class LedgerEntry {
+
+    public enum Direction {
+        DEBIT,
+        CREDIT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_sequence")
+    @SequenceGenerator(name = "ledger_sequence", sequenceName = "ledger_sequence", allocationSize = 50)
+    @Column(name = "sequence")
+    private Long sequence;
+
+    @Column(name = "account_number", nullable = false)
+    private String accountNumber;
+
+    @Column(name = "counterparty_account_number", nullable = false)
+    private String counterpartyAccountNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "direction", nullable = false, length = 6)
+    private Direction direction;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    // signed minor units, negative for debits
+    @Column(name = "amount", nullable = false)
+    private long amount;
+
+    @Column(name = "idempotency_key", nullable = false, length = 64)
+    private String idempotencyKey;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public LedgerEntry(String accountNumber, String counterpartyAccountNumber, Direction direction,
+                       String currency, long minorUnits, String idempotencyKey, Instant createdAt) {
+        this.accountNumber = accountNumber;
+        this.counterpartyAccountNumber = counterpartyAccountNumber;
+        this.direction = direction;
+        this.currency = currency;
+        this.amount = direction == Direction.DEBIT ? Math.negateExact(minorUnits) : minorUnits;
+        this.idempotencyKey = idempotencyKey;
+        this.createdAt = createdAt;
+    }
+
+    public LedgerEntry() {
+
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getCounterpartyAccountNumber() {
+        return counterpartyAccountNumber;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public long getAmountMinorUnits() {
+        return amount;
+    }
+
+    public MonetaryAmount getAmount() {
+        return FastMoney.ofMinor(Currencies.of(currency), amount);
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,7 @@
+package io.acmebank.account_manager.service;
+
+public class AccountAlreadyExistsException extends Exception {
+    public AccountAlreadyExistsException(String accountNumber) {
+        super(String.format("Account already exists for account number '%s'", accountNumber));
+    }
+}
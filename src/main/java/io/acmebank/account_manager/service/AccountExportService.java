@@ -0,0 +1,53 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.repository.AccountRepository;
+import io.acmebank.account_manager.repository.entity.Account;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface AccountExportService {
+
+    int PAGE_SIZE = 5_000;
+
+    @FunctionalInterface
+    interface AccountWriter {
+        void write(Account account) throws IOException;
+    }
+
+    /**
+     * Hands every account to the writer in account number order. Accounts are read one keyset page at a time,
+     * each page in its own short statement, so no more than a page is held in memory and no transaction stays
+     * open for the length of the export. A transfer committing in between may show up on one side only.
+     */
+    void exportAccounts(AccountWriter writer) throws IOException;
+
+    @Service
+    @ConditionalOnProperty(name = "account-manager.engine", havingValue = "jpa", matchIfMissing = true)
+    class AccountExportServiceImpl implements AccountExportService {
+        private final AccountRepository accountRepository;
+
+        @Autowired
+        public AccountExportServiceImpl(AccountRepository accountRepository) {
+            this.accountRepository = accountRepository;
+        }
+
+        @Override
+        public void exportAccounts(AccountWriter writer) throws IOException {
+            String after = "";
+            List<Account> page;
+            do {
+                page = accountRepository.findPageAfter(after, PAGE_SIZE);
+                for (Account account : page) {
+                    writer.write(account);
+                }
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).getAccountNumber();
+                }
+            } while (page.size() == PAGE_SIZE);
+        }
+    }
+}
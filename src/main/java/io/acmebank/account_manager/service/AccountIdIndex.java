@@ -0,0 +1,255 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.repository.AccountRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Account number to {@code accounts.id}, so accounts are read by primary key instead of through the
+ * {@code account_number} index. Numeric account numbers (without leading zeros, up to 18 digits) are kept as longs
+ * in an open-addressing table held in two direct buffers, 16 bytes a slot off the heap and no object per account.
+ * Other account numbers go to a plain map.
+ * <p>
+ * Built by a scan of the accounts table at startup and added to as accounts are opened or first found in the
+ * database. An indexed id is checked against the row it reads: when the account was deleted, or deleted and opened
+ * again under a new id, the caller looks it up by number and overwrites the entry. A miss only means the account
+ * has to be looked up by number. Lookups are lock free unless they race with an insert.
+ */
+@Component
+public class AccountIdIndex implements MeterBinder {
+    public static final long NO_ID = -1;
+
+    private static final Logger LOG = LoggerFactory.getLogger(AccountIdIndex.class);
+    // largest table whose 8 byte slots still fit in one direct buffer
+    private static final int MAXIMUM_CAPACITY = 1 << 27;
+    private static final int MAXIMUM_DIGITS = 18;
+
+    private final boolean enabled;
+    private final StampedLock lock = new StampedLock();
+    private final Map<String, Long> nonNumeric = new ConcurrentHashMap<>();
+    private Table table;
+    private int size;
+
+    @Autowired
+    public AccountIdIndex(AccountIdIndexProperties properties, AccountRepository accountRepository) {
+        this(properties.isEnabled(), properties.getExpectedSize());
+        if (enabled) {
+            long start = System.nanoTime();
+            accountRepository.scanAccountIds(this::put);
+            LOG.info("Indexed {} account numbers in {} ms", size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    public AccountIdIndex(int expectedSize) {
+        this(true, expectedSize);
+    }
+
+    private AccountIdIndex(boolean enabled, int expectedSize) {
+        this.enabled = enabled;
+        this.table = new Table(enabled ? capacityFor(expectedSize) : 1);
+    }
+
+    /**
+     * An index that never holds anything, every lookup goes to the database by account number.
+     */
+    public static AccountIdIndex disabled() {
+        return new AccountIdIndex(false, 0);
+    }
+
+    /**
+     * The id of the account, or {@link #NO_ID} when it is not indexed.
+     */
+    public long get(@NonNull AccountNumber accountNumber) {
+        return get(accountNumber.value());
+    }
+
+    public long get(@NonNull String accountNumber) {
+        if (!enabled) {
+            return NO_ID;
+        }
+        long key = encode(accountNumber);
+        if (key == NO_ID) {
+            return nonNumeric.getOrDefault(accountNumber, NO_ID);
+        }
+        long stamp = lock.tryOptimisticRead();
+        long id = table.get(key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                id = table.get(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return id;
+    }
+
+    public void put(@NonNull String accountNumber, long id) {
+        if (!enabled) {
+            return;
+        }
+        long key = encode(accountNumber);
+        if (key == NO_ID) {
+            nonNumeric.put(accountNumber, id);
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (size >= table.capacity / 4 * 3) {
+                if (table.capacity == MAXIMUM_CAPACITY) {
+                    // accounts past this point are looked up by number
+                    return;
+                }
+                table = table.grow();
+            }
+            if (table.put(key, id)) {
+                size++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public long size() {
+        long stamp = lock.readLock();
+        try {
+            return size + nonNumeric.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // bytes taken off the heap by the table
+    public long offHeapBytes() {
+        return enabled ? 2L * Long.BYTES * table.capacity : 0;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("account_manager.account_index.size", this, AccountIdIndex::size)
+                .description("Account numbers resolved to ids in memory")
+                .register(registry);
+        Gauge.builder("account_manager.account_index.off_heap", this, AccountIdIndex::offHeapBytes)
+                .description("Direct memory taken by the account id index")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long needed = Math.max(16, (long) expectedSize * 4 / 3 + 1);
+        if (needed > MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    // the account number as a non-negative long, or NO_ID when it does not read back as the same string
+    static long encode(String accountNumber) {
+        int length = accountNumber.length();
+        if (length == 0 || length > MAXIMUM_DIGITS || (length > 1 && accountNumber.charAt(0) == '0')) {
+            return NO_ID;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_ID;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static final class Table {
+        private final int capacity;
+        private final int mask;
+        // key + 1 so the zeroed memory of a new buffer reads as empty slots
+        private final LongBuffer keys;
+        private final LongBuffer ids;
+
+        Table(int capacity) {
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.keys = allocate(capacity);
+            this.ids = allocate(capacity);
+        }
+
+        private static LongBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+
+        long get(long key) {
+            long stored = key + 1;
+            int slot = slot(key);
+            // bounded, so a read racing with an insert cannot spin on a full table view
+            for (int probes = 0; probes < capacity; probes++) {
+                long current = keys.get(slot);
+                if (current == stored) {
+                    return ids.get(slot);
+                }
+                if (current == 0) {
+                    return NO_ID;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return NO_ID;
+        }
+
+        // true when the key was not in the table yet
+        boolean put(long key, long id) {
+            long stored = key + 1;
+            int slot = slot(key);
+            while (true) {
+                long current = keys.get(slot);
+                if (current == stored) {
+                    ids.put(slot, id);
+                    return false;
+                }
+                if (current == 0) {
+                    ids.put(slot, id);
+                    keys.put(slot, stored);
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        Table grow() {
+            Table grown = new Table(capacity << 1);
+            for (int slot = 0; slot < capacity; slot++) {
+                long stored = keys.get(slot);
+                if (stored != 0) {
+                    grown.put(stored - 1, ids.get(slot));
+                }
+            }
+            return grown;
+        }
+
+        private int slot(long key) {
+            // murmur3 finalizer, consecutive account numbers would otherwise fill runs of neighbouring slots
+            long h = key;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb53fe85a9ca3L;
+            h ^= h >>> 33;
+            return (int) h & mask;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package io.acmebank.account_manager.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "account-manager.account-index")
+public class AccountIdIndexProperties {
+
+    private boolean enabled = true;
+    // accounts the table is sized for up front, it doubles past three quarters full
+    private int expectedSize = 1_000_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getExpectedSize() {
+        return expectedSize;
+    }
+
+    public void setExpectedSize(int expectedSize) {
+        this.expectedSize = expectedSize;
+    }
+}
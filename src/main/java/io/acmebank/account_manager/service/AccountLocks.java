@@ -0,0 +1,86 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed pool of locks shared by all accounts, an account is guarded by the stripe its number hashes to.
+ * Stripes are always acquired in ascending index order so two transfers can never wait on each other.
+ */
+public class AccountLocks {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public AccountLocks(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("AccountLocks requires at least one stripe");
+        }
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public Held lock(AccountNumber first, AccountNumber second) {
+        int a = stripeIndex(first);
+        int b = stripeIndex(second);
+        ReentrantLock lower = stripes[Math.min(a, b)];
+        ReentrantLock upper = stripes[Math.max(a, b)];
+        lower.lock();
+        if (upper == lower) {
+            return lower::unlock;
+        }
+        try {
+            upper.lock();
+        } catch (RuntimeException e) {
+            lower.unlock();
+            throw e;
+        }
+        return () -> {
+            upper.unlock();
+            lower.unlock();
+        };
+    }
+
+    public Held lockAll(Collection<AccountNumber> accountNumbers) {
+        int[] indexes = accountNumbers.stream()
+                .mapToInt(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .toArray();
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked++;
+            }
+        } catch (RuntimeException e) {
+            unlock(indexes, locked);
+            throw e;
+        }
+        return () -> unlock(indexes, indexes.length);
+    }
+
+    private void unlock(int[] indexes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    int stripeIndex(AccountNumber accountNumber) {
+        int h = accountNumber.value().hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public interface Held extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
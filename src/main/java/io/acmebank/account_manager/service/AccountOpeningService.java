@@ -0,0 +1,81 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.domain.NewAccount;
+import io.acmebank.account_manager.repository.AccountBalanceView;
+import io.acmebank.account_manager.repository.AccountRepository;
+import io.acmebank.account_manager.repository.entity.Account;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public interface AccountOpeningService {
+
+    /**
+     * Opens all the accounts in one transaction, or none of them when an account number is taken or repeated.
+     * Accounts only go to the database, the in-memory engine takes them over on first use.
+     */
+    void openAccounts(List<NewAccount> newAccounts) throws AccountAlreadyExistsException;
+
+    @Service
+    class AccountOpeningServiceImpl implements AccountOpeningService {
+        private final AccountRepository accountRepository;
+        private final TransactionOperations transactionOperations;
+        private final AccountIdIndex accountIdIndex;
+
+        @Autowired
+        public AccountOpeningServiceImpl(AccountRepository accountRepository, TransactionOperations transactionOperations,
+                                         AccountIdIndex accountIdIndex) {
+            this.accountRepository = accountRepository;
+            this.transactionOperations = transactionOperations;
+            this.accountIdIndex = accountIdIndex;
+        }
+
+        @Override
+        public void openAccounts(List<NewAccount> newAccounts) throws AccountAlreadyExistsException {
+            Set<String> accountNumbers = new HashSet<>();
+            List<Account> accounts = new ArrayList<>(newAccounts.size());
+            for (NewAccount newAccount : newAccounts) {
+                if (!accountNumbers.add(newAccount.accountNumber().value())) {
+                    throw new AccountAlreadyExistsException(newAccount.accountNumber().value());
+                }
+                Account account = new Account(newAccount.startingBalance());
+                account.setAccountNumber(newAccount.accountNumber().value());
+                accounts.add(account);
+            }
+            String taken;
+            try {
+                taken = transactionOperations.execute(status -> {
+                    String existing = findExisting(accountNumbers);
+                    if (existing == null) {
+                        // ids come from the pooled sequence and the inserts are flushed in JDBC batches
+                        accountRepository.saveAllAndFlush(accounts);
+                    }
+                    return existing;
+                });
+            } catch (DataIntegrityViolationException e) {
+                // a concurrent request opened one of the accounts between the check and the insert
+                taken = findExisting(accountNumbers);
+                if (taken == null) {
+                    throw e;
+                }
+            }
+            if (taken != null) {
+                throw new AccountAlreadyExistsException(taken);
+            }
+            for (Account account : accounts) {
+                accountIdIndex.put(account.getAccountNumber(), account.getId());
+            }
+        }
+
+        private String findExisting(Set<String> accountNumbers) {
+            List<AccountBalanceView> existing = accountRepository.findBalancesByAccountNumberIn(accountNumbers);
+            return existing.isEmpty() ? null : existing.get(0).getAccountNumber();
+        }
+    }
+}
@@ -1,67 +1,666 @@
 package io.acmebank.account_manager.service;
 
 import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.Currencies;
+import io.acmebank.account_manager.domain.FxRates;
+import io.acmebank.account_manager.domain.FxRates.Conversion;
+import io.acmebank.account_manager.domain.Transfer;
+import io.acmebank.account_manager.repository.AccountBalanceView;
 import io.acmebank.account_manager.repository.AccountRepository;
 import io.acmebank.account_manager.repository.entity.Account;
-import org.javamoney.moneta.function.MonetaryQueries;
+import io.acmebank.account_manager.service.TransferMetrics.Phase;
+import io.acmebank.account_manager.service.TransferProperties.Locking;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.javamoney.moneta.FastMoney;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.money.MonetaryAmount;
-import javax.transaction.Transactional;
-import java.math.BigDecimal;
+import javax.money.MonetaryException;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 public interface AccountService {
 
     MonetaryAmount getBalance(AccountNumber accountNumber) throws NoAccountFoundException;
 
-    void transferMoney(AccountNumber sourceAccountNumber,
-                       AccountNumber destinationAccountNumber,
-                       MonetaryAmount amount) throws DestinationAccountNotFoundException, NoAccountFoundException, NotEnoughMoneyException;
+    /**
+     * Like {@link #getBalance(AccountNumber)}, with an unknown account as an empty result instead of an exception.
+     */
+    Optional<MonetaryAmount> findBalance(AccountNumber accountNumber);
+
+    /**
+     * Balances of the given accounts, accounts that do not exist are left out of the result.
+     */
+    Map<AccountNumber, MonetaryAmount> getBalances(Collection<AccountNumber> accountNumbers);
+
+    default void transferMoney(AccountNumber sourceAccountNumber,
+                               AccountNumber destinationAccountNumber,
+                               MonetaryAmount amount) throws DestinationAccountNotFoundException, NoAccountFoundException, NotEnoughMoneyException {
+        transferMoney(sourceAccountNumber, destinationAccountNumber, amount, UUID.randomUUID().toString());
+    }
+
+    default void transferMoney(AccountNumber sourceAccountNumber,
+                               AccountNumber destinationAccountNumber,
+                               MonetaryAmount amount,
+                               String idempotencyKey) throws DestinationAccountNotFoundException, NoAccountFoundException, NotEnoughMoneyException {
+        switch (tryTransferMoney(sourceAccountNumber, destinationAccountNumber, amount, idempotencyKey)) {
+            case SOURCE_ACCOUNT_NOT_FOUND -> throw new NoAccountFoundException(sourceAccountNumber.value());
+            case DESTINATION_ACCOUNT_NOT_FOUND -> throw new DestinationAccountNotFoundException(destinationAccountNumber.value());
+            case NOT_ENOUGH_FUNDS -> throw new NotEnoughMoneyException();
+            case UNSUPPORTED_CURRENCY_PAIR -> throw new MonetaryException(String.format(
+                    "No exchange rate to transfer %s from %s to %s", amount.getCurrency().getCurrencyCode(),
+                    sourceAccountNumber.value(), destinationAccountNumber.value()));
+            case AMOUNT_TOO_SMALL -> throw new MonetaryException(String.format(
+                    "%s %s is less than a minor unit in the currency of %s or %s", amount.getCurrency().getCurrencyCode(),
+                    amount.getNumber(), sourceAccountNumber.value(), destinationAccountNumber.value()));
+            case INVALID_AMOUNT -> throw new MonetaryException(String.format(
+                    "Transfer amount must be positive, got %s %s", amount.getCurrency().getCurrencyCode(),
+                    amount.getNumber()));
+            case COMPLETED -> {
+            }
+        }
+    }
+
+    default TransferStatus tryTransferMoney(AccountNumber sourceAccountNumber,
+                                            AccountNumber destinationAccountNumber,
+                                            MonetaryAmount amount) {
+        return tryTransferMoney(sourceAccountNumber, destinationAccountNumber, amount, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Transfers the amount, reporting an unknown account or insufficient funds as the returned status rather than
+     * an exception. The source is debited and the destination credited the amount converted to their own currency,
+     * a currency without an exchange rate to the amount's fails the transfer. Debits are rounded up and credits down,
+     * an amount that converts to nothing on either side fails the transfer, as does an amount that is not positive.
+     * The idempotency key is written to both ledger entries of the transfer,
+     * a second transfer with the same key fails on the ledger's unique constraint.
+     */
+    TransferStatus tryTransferMoney(AccountNumber sourceAccountNumber,
+                                    AccountNumber destinationAccountNumber,
+                                    MonetaryAmount amount,
+                                    String idempotencyKey);
+
+    /**
+     * Like {@link #tryTransferMoney(AccountNumber, AccountNumber, MonetaryAmount, String)}, running onCompleted once
+     * the transfer succeeded. The JPA service runs it in the transaction of the transfer, so what it writes to the
+     * database commits or rolls back with the balances, and an exception it throws fails the transfer.
+     */
+    default TransferStatus tryTransferMoney(AccountNumber sourceAccountNumber,
+                                            AccountNumber destinationAccountNumber,
+                                            MonetaryAmount amount,
+                                            String idempotencyKey,
+                                            Runnable onCompleted) {
+        TransferStatus status = tryTransferMoney(sourceAccountNumber, destinationAccountNumber, amount, idempotencyKey);
+        if (status == TransferStatus.COMPLETED) {
+            onCompleted.run();
+        }
+        return status;
+    }
+
+    /**
+     * Applies the transfers in order, each one independently succeeding or failing.
+     * Returns one status per transfer, in the same order. A transfer's idempotency key is written to its ledger
+     * entries as by {@link #tryTransferMoney(AccountNumber, AccountNumber, MonetaryAmount, String)}, a transfer
+     * without one gets a random key.
+     */
+    List<TransferStatus> transferMoney(List<Transfer> transfers);
 
     @Service
-    class AccountServiceImpl implements AccountService {
-        private AccountRepository accountRepository;
+    @ConditionalOnProperty(name = "account-manager.engine", havingValue = "jpa", matchIfMissing = true)
+    class AccountServiceImpl implements AccountService, ApplicationRunner {
+        private final AccountRepository accountRepository;
+        private final TransactionOperations transactionOperations;
+        // read-only transactions skip the flush and dirty checking and go to the replica when one is configured.
+        // Only database reads run in one, a balance served from the cache takes no connection
+        private final TransactionOperations readOnlyTransactionOperations;
+        private final TransferProperties transferProperties;
+        private final AccountLocks accountLocks;
+        private final BalanceCache balanceCache;
+        private final LedgerService ledgerService;
+        private final TransferMetrics transferMetrics;
+        private final FxRateService fxRateService;
+        private final AccountIdIndex accountIdIndex;
+
+        public AccountServiceImpl(AccountRepository accountRepository, LedgerService ledgerService) {
+            this(accountRepository, ledgerService, FxRates::empty);
+        }
+
+        public AccountServiceImpl(AccountRepository accountRepository, LedgerService ledgerService, FxRateService fxRateService) {
+            this(accountRepository, TransactionOperations.withoutTransaction(), new TransferProperties(),
+                    new BalanceCache(new BalanceCacheProperties()), ledgerService,
+                    new TransferMetrics(new SimpleMeterRegistry()), fxRateService);
+        }
+
+        public AccountServiceImpl(AccountRepository accountRepository,
+                                  TransactionOperations transactionOperations,
+                                  TransferProperties transferProperties,
+                                  BalanceCache balanceCache,
+                                  LedgerService ledgerService,
+                                  TransferMetrics transferMetrics,
+                                  FxRateService fxRateService) {
+            this(accountRepository, transactionOperations, transferProperties, balanceCache, ledgerService,
+                    transferMetrics, fxRateService, AccountIdIndex.disabled());
+        }
 
         @Autowired
-        public AccountServiceImpl(AccountRepository accountRepository) {
+        public AccountServiceImpl(AccountRepository accountRepository,
+                                  TransactionOperations transactionOperations,
+                                  TransferProperties transferProperties,
+                                  BalanceCache balanceCache,
+                                  LedgerService ledgerService,
+                                  TransferMetrics transferMetrics,
+                                  FxRateService fxRateService,
+                                  AccountIdIndex accountIdIndex) {
             this.accountRepository = accountRepository;
+            this.transactionOperations = transactionOperations;
+            this.readOnlyTransactionOperations = readOnly(transactionOperations);
+            this.transferProperties = transferProperties;
+            this.accountLocks = new AccountLocks(transferProperties.getLockStripes());
+            this.balanceCache = balanceCache;
+            this.ledgerService = ledgerService;
+            this.transferMetrics = transferMetrics;
+            this.fxRateService = fxRateService;
+            this.accountIdIndex = accountIdIndex;
+        }
+
+        @Override
+        public void run(ApplicationArguments args) {
+            prepareSlots();
+        }
+
+        /**
+         * Gives every hot account its slots and consolidates the slots left by earlier configurations. Runs once the
+         * context is started rather than while beans are created, and may run on several instances at once.
+         */
+        public void prepareSlots() {
+            for (String hotAccount : transferProperties.getHotAccounts()) {
+                accountRepository.createSlots(hotAccount, transferProperties.getHotAccountSlots());
+            }
+            consolidateHotAccounts();
+        }
+
+        private static TransactionOperations readOnly(TransactionOperations transactionOperations) {
+            if (transactionOperations instanceof TransactionTemplate template) {
+                TransactionTemplate readOnly = new TransactionTemplate(template.getTransactionManager(), template);
+                readOnly.setReadOnly(true);
+                return readOnly;
+            }
+            return transactionOperations;
         }
 
         @Override
         public MonetaryAmount getBalance(AccountNumber accountNumber) throws NoAccountFoundException {
-            return accountRepository.findByAccountNumber(accountNumber.value())
-                    .map(Account::getBalance)
-                    .orElseThrow(() -> new NoAccountFoundException(accountNumber.value()));
+            return findBalance(accountNumber).orElseThrow(() -> new NoAccountFoundException(accountNumber.value()));
         }
 
         @Override
-        @Transactional
-        public void transferMoney(AccountNumber sourceAccountNumber,
-                                  AccountNumber destinationAccountNumber,
-                                  MonetaryAmount amount) throws NoAccountFoundException, DestinationAccountNotFoundException, NotEnoughMoneyException {
-            Account sourceAccount = accountRepository.findByAccountNumber(sourceAccountNumber.value())
-                    .orElseThrow(() -> new NoAccountFoundException(sourceAccountNumber.value()));
-            Account destinationAccount = accountRepository.findByAccountNumber(destinationAccountNumber.value())
-                    .orElseThrow(() -> new DestinationAccountNotFoundException(destinationAccountNumber.value()));
+        public Optional<MonetaryAmount> findBalance(AccountNumber accountNumber) {
+            long start = System.nanoTime();
+            if (isHot(accountNumber)) {
+                Optional<MonetaryAmount> balance = readOnlyTransactionOperations.execute(
+                        status -> findHotAccountBalance(accountNumber));
+                transferMetrics.balanceLookup(false, start);
+                return balance;
+            }
+            Optional<MonetaryAmount> cached = balanceCache.get(accountNumber);
+            if (cached.isPresent()) {
+                transferMetrics.balanceLookup(true, start);
+                return cached;
+            }
+            Optional<AccountBalanceView> view = readOnlyTransactionOperations.execute(
+                    status -> findBalanceView(accountNumber));
+            transferMetrics.balanceLookup(false, start);
+            view.ifPresent(balanceCache::put);
+            return view.map(AccountServiceImpl::toBalance);
+        }
 
-            if (sourceAccount.getBalance().isLessThan(amount)) {
-                throw new NotEnoughMoneyException();
+        @Override
+        public Map<AccountNumber, MonetaryAmount> getBalances(Collection<AccountNumber> accountNumbers) {
+            Map<AccountNumber, MonetaryAmount> balances = new HashMap<>();
+            Set<AccountNumber> hot = new HashSet<>();
+            Set<String> misses = new HashSet<>();
+            for (AccountNumber accountNumber : accountNumbers) {
+                if (isHot(accountNumber)) {
+                    hot.add(accountNumber);
+                    continue;
+                }
+                balanceCache.get(accountNumber).ifPresentOrElse(
+                        balance -> balances.put(accountNumber, balance),
+                        () -> misses.add(accountNumber.value()));
+            }
+            if (hot.isEmpty() && misses.isEmpty()) {
+                return balances;
             }
+            readOnlyTransactionOperations.executeWithoutResult(status -> {
+                for (AccountNumber accountNumber : hot) {
+                    findHotAccountBalance(accountNumber).ifPresent(balance -> balances.put(accountNumber, balance));
+                }
+                if (!misses.isEmpty()) {
+                    for (AccountBalanceView view : accountRepository.findBalancesByAccountNumberIn(misses)) {
+                        balanceCache.put(view);
+                        balances.put(new AccountNumber(view.getAccountNumber()), toBalance(view));
+                    }
+                }
+            });
+            return balances;
+        }
 
-            MonetaryAmount sourceNewBalance = sourceAccount.getBalance().subtract(amount);
-            MonetaryAmount destinationNewBalance = destinationAccount.getBalance().add(amount);
+        @Override
+        public TransferStatus tryTransferMoney(AccountNumber sourceAccountNumber,
+                                               AccountNumber destinationAccountNumber,
+                                               MonetaryAmount amount,
+                                               String idempotencyKey) {
+            return tryTransferMoney(sourceAccountNumber, destinationAccountNumber, amount, idempotencyKey, () -> {
+            });
+        }
 
-            sourceAccount.setBalance(toMinor(sourceNewBalance));
-            destinationAccount.setBalance(toMinor(destinationNewBalance));
+        @Override
+        public TransferStatus tryTransferMoney(AccountNumber sourceAccountNumber,
+                                               AccountNumber destinationAccountNumber,
+                                               MonetaryAmount amount,
+                                               String idempotencyKey,
+                                               Runnable onCompleted) {
+            // a negative amount would move money out of the destination without a funds check
+            if (!amount.isPositive()) {
+                transferMetrics.outcome(TransferStatus.INVALID_AMOUNT);
+                return TransferStatus.INVALID_AMOUNT;
+            }
+            long start = System.nanoTime();
+            try {
+                TransferStatus status = switch (transferProperties.getLocking()) {
+                    case STRIPED -> {
+                        // the stripes must outlive the commit, so they are taken outside the transaction.
+                        // A credit to a hot account only locks one of its slots, its stripe is left to debits
+                        AccountNumber lockedDestination = isHot(destinationAccountNumber)
+                                ? sourceAccountNumber
+                                : destinationAccountNumber;
+                        try (AccountLocks.Held ignored = accountLocks.lock(sourceAccountNumber, lockedDestination)) {
+                            transferMetrics.record(Phase.LOCK_WAIT, start);
+                            yield transferInTransaction(sourceAccountNumber, destinationAccountNumber, amount,
+                                    idempotencyKey, onCompleted);
+                        }
+                    }
+                    case PESSIMISTIC -> transferInTransaction(sourceAccountNumber, destinationAccountNumber, amount,
+                            idempotencyKey, onCompleted);
+                    case OPTIMISTIC -> transferWithRetries(sourceAccountNumber, destinationAccountNumber, amount,
+                            idempotencyKey, onCompleted);
+                };
+                transferMetrics.outcome(status);
+                return status;
+            } catch (RuntimeException e) {
+                transferMetrics.error();
+                throw e;
+            } finally {
+                transferMetrics.record(Phase.TOTAL, start);
+            }
+        }
+
+        @Override
+        public List<TransferStatus> transferMoney(List<Transfer> transfers) {
+            List<TransferStatus> statuses = new ArrayList<>(transfers.size());
+            int chunkSize = transferProperties.getBatchChunkSize();
+            for (int from = 0; from < transfers.size(); from += chunkSize) {
+                List<Transfer> chunk = transfers.subList(from, Math.min(from + chunkSize, transfers.size()));
+                statuses.addAll(transferChunk(chunk));
+            }
+            return statuses;
+        }
+
+        private List<TransferStatus> transferChunk(List<Transfer> chunk) {
+            Set<AccountNumber> accountNumbers = new HashSet<>();
+            for (Transfer transfer : chunk) {
+                accountNumbers.add(transfer.sourceAccountNumber());
+                accountNumbers.add(transfer.destinationAccountNumber());
+            }
+            long start = System.nanoTime();
+            try {
+                List<TransferStatus> statuses = transferChunkWithLocking(chunk, accountNumbers, start);
+                statuses.forEach(transferMetrics::outcome);
+                return statuses;
+            } catch (RuntimeException e) {
+                transferMetrics.error();
+                throw e;
+            } finally {
+                transferMetrics.record(Phase.TOTAL, start);
+            }
+        }
 
-            accountRepository.saveAllAndFlush(List.of(sourceAccount, destinationAccount));
+        private List<TransferStatus> transferChunkWithLocking(List<Transfer> chunk, Set<AccountNumber> accountNumbers, long start) {
+            switch (transferProperties.getLocking()) {
+                case STRIPED -> {
+                    try (AccountLocks.Held ignored = accountLocks.lockAll(accountNumbers)) {
+                        transferMetrics.record(Phase.LOCK_WAIT, start);
+                        return transferChunkInTransaction(chunk, accountNumbers);
+                    }
+                }
+                case PESSIMISTIC -> {
+                    return transferChunkInTransaction(chunk, accountNumbers);
+                }
+                default -> {
+                    int attempt = 1;
+                    while (true) {
+                        try {
+                            return transferChunkInTransaction(chunk, accountNumbers);
+                        } catch (OptimisticLockingFailureException e) {
+                            if (attempt++ >= transferProperties.getOptimisticMaxAttempts()) {
+                                throw e;
+                            }
+                            transferMetrics.optimisticRetry();
+                        }
+                    }
+                }
+            }
+        }
+
+        private List<TransferStatus> transferChunkInTransaction(List<Transfer> chunk, Set<AccountNumber> accountNumbers) {
+            return transactionOperations.execute(status -> {
+                long start = System.nanoTime();
+                List<String> numbers = accountNumbers.stream().map(AccountNumber::value).toList();
+                Map<String, Account> accounts = new HashMap<>();
+                Map<String, Account> changed = new TreeMap<>();
+                for (Account account : accountRepository.findAllForBatch(numbers,
+                        transferProperties.getLocking() == Locking.PESSIMISTIC)) {
+                    accounts.put(account.getAccountNumber(), account);
+                }
+                transferMetrics.record(Phase.LOAD, start);
+
+                FxRates rates = fxRateService.getRates();
+                // credits to hot accounts, added to one random slot per account once the chunk is applied
+                Map<String, Long> hotCredits = new TreeMap<>();
+                List<TransferStatus> statuses = new ArrayList<>(chunk.size());
+                for (Transfer transfer : chunk) {
+                    statuses.add(applyTransfer(transfer, accounts, changed, hotCredits, rates));
+                }
+
+                long flushStart = System.nanoTime();
+                hotCredits.forEach((accountNumber, credit) -> accountRepository.creditSlot(accountNumber,
+                        ThreadLocalRandom.current().nextInt(transferProperties.getHotAccountSlots()), credit));
+                accountRepository.updateBalances(new ArrayList<>(changed.values()));
+                transferMetrics.record(Phase.FLUSH, flushStart);
+                balanceCache.putAllAfterCommit(changed.values());
+                return statuses;
+            });
+        }
+
+        private TransferStatus applyTransfer(Transfer transfer, Map<String, Account> accounts, Map<String, Account> changed,
+                                             Map<String, Long> hotCredits, FxRates rates) {
+            if (!transfer.amount().isPositive()) {
+                return TransferStatus.INVALID_AMOUNT;
+            }
+            Account sourceAccount = accounts.get(transfer.sourceAccountNumber().value());
+            if (sourceAccount == null) {
+                return TransferStatus.SOURCE_ACCOUNT_NOT_FOUND;
+            }
+            Account destinationAccount = accounts.get(transfer.destinationAccountNumber().value());
+            if (destinationAccount == null) {
+                return TransferStatus.DESTINATION_ACCOUNT_NOT_FOUND;
+            }
+            String currency = transfer.amount().getCurrency().getCurrencyCode();
+            Conversion toSource = rates.conversion(currency, sourceAccount.getCurrency());
+            Conversion toDestination = rates.conversion(currency, destinationAccount.getCurrency());
+            if (toSource == null || toDestination == null) {
+                return TransferStatus.UNSUPPORTED_CURRENCY_PAIR;
+            }
+            long amount = Currencies.toMinorUnits(transfer.amount());
+            long debit = toSource.convert(amount, RoundingMode.CEILING);
+            long credit = toDestination.convert(amount, RoundingMode.FLOOR);
+            if (debit == 0 || credit == 0) {
+                return TransferStatus.AMOUNT_TOO_SMALL;
+            }
+            String sourceAccountNumber = sourceAccount.getAccountNumber();
+            if (sourceAccount.getBalanceMinorUnits() < debit && isHot(transfer.sourceAccountNumber())) {
+                // credits earlier in the chunk first, then only as much of the slots as the debit is short
+                Long credited = hotCredits.remove(sourceAccountNumber);
+                if (credited != null) {
+                    sourceAccount.credit(credited);
+                    changed.put(sourceAccountNumber, sourceAccount);
+                }
+                if (sourceAccount.getBalanceMinorUnits() < debit) {
+                    sourceAccount.credit(accountRepository.drainSlots(sourceAccountNumber,
+                            debit - sourceAccount.getBalanceMinorUnits()));
+                    changed.put(sourceAccountNumber, sourceAccount);
+                }
+            }
+            if (sourceAccount.getBalanceMinorUnits() < debit) {
+                return TransferStatus.NOT_ENOUGH_FUNDS;
+            }
+            sourceAccount.debit(debit);
+            if (isHot(transfer.destinationAccountNumber())) {
+                hotCredits.merge(destinationAccount.getAccountNumber(), credit, Math::addExact);
+            } else {
+                destinationAccount.credit(credit);
+                changed.put(destinationAccount.getAccountNumber(), destinationAccount);
+            }
+            // a client's key guards against executing the transfer twice, as in tryTransferMoney
+            String idempotencyKey = transfer.idempotencyKey() != null
+                    ? transfer.idempotencyKey()
+                    : UUID.randomUUID().toString();
+            ledgerService.record(idempotencyKey, transfer.sourceAccountNumber(),
+                    transfer.destinationAccountNumber(), sourceAccount.getCurrency(), debit,
+                    destinationAccount.getCurrency(), credit);
+            changed.put(sourceAccountNumber, sourceAccount);
+            return TransferStatus.COMPLETED;
+        }
+
+        private TransferStatus transferWithRetries(AccountNumber sourceAccountNumber,
+                                                   AccountNumber destinationAccountNumber,
+                                                   MonetaryAmount amount,
+                                                   String idempotencyKey,
+                                                   Runnable onCompleted) {
+            int attempt = 1;
+            while (true) {
+                try {
+                    return transferInTransaction(sourceAccountNumber, destinationAccountNumber, amount, idempotencyKey,
+                            onCompleted);
+                } catch (OptimisticLockingFailureException e) {
+                    if (attempt++ >= transferProperties.getOptimisticMaxAttempts()) {
+                        throw e;
+                    }
+                    transferMetrics.optimisticRetry();
+                }
+            }
+        }
+
+        private TransferStatus transferInTransaction(AccountNumber sourceAccountNumber,
+                                                     AccountNumber destinationAccountNumber,
+                                                     MonetaryAmount amount,
+                                                     String idempotencyKey,
+                                                     Runnable onCompleted) {
+            return transactionOperations.execute(status -> {
+                TransferStatus transferStatus = transfer(sourceAccountNumber, destinationAccountNumber, amount, idempotencyKey);
+                // a hot source may have drained its slots before coming up short
+                if (transferStatus != TransferStatus.COMPLETED) {
+                    status.setRollbackOnly();
+                } else {
+                    onCompleted.run();
+                }
+                return transferStatus;
+            });
+        }
+
+        private TransferStatus transfer(AccountNumber sourceAccountNumber,
+                                        AccountNumber destinationAccountNumber,
+                                        MonetaryAmount amount,
+                                        String idempotencyKey) {
+            long start = System.nanoTime();
+            Optional<Account> sourceAccount;
+            Optional<Account> destinationAccount;
+            boolean hotDestination = isHot(destinationAccountNumber);
+            if (transferProperties.getLocking() == Locking.STRIPED || hotDestination) {
+                sourceAccount = findAccount(sourceAccountNumber);
+                if (sourceAccount.isEmpty()) {
+                    return TransferStatus.SOURCE_ACCOUNT_NOT_FOUND;
+                }
+                // the row of a hot destination is only read, never locked or written
+                destinationAccount = hotDestination
+                        ? findAccount(destinationAccountNumber, false)
+                        : findAccount(destinationAccountNumber);
+            } else {
+                // rows are read (and flushed) in account number order so opposite transfers cannot deadlock
+                boolean sourceFirst = sourceAccountNumber.value().compareTo(destinationAccountNumber.value()) <= 0;
+                Optional<Account> first = findAccount(sourceFirst ? sourceAccountNumber : destinationAccountNumber);
+                Optional<Account> second = findAccount(sourceFirst ? destinationAccountNumber : sourceAccountNumber);
+                sourceAccount = sourceFirst ? first : second;
+                destinationAccount = sourceFirst ? second : first;
+                if (sourceAccount.isEmpty()) {
+                    return TransferStatus.SOURCE_ACCOUNT_NOT_FOUND;
+                }
+            }
+            if (destinationAccount.isEmpty()) {
+                return TransferStatus.DESTINATION_ACCOUNT_NOT_FOUND;
+            }
+            Account source = sourceAccount.get();
+            Account destination = destinationAccount.get();
+
+            long loaded = transferMetrics.record(Phase.LOAD, start);
+
+            // both sides are converted with the same snapshot of the rates
+            FxRates rates = fxRateService.getRates();
+            String currency = amount.getCurrency().getCurrencyCode();
+            Conversion toSource = rates.conversion(currency, source.getCurrency());
+            Conversion toDestination = rates.conversion(currency, destination.getCurrency());
+            if (toSource == null || toDestination == null) {
+                return TransferStatus.UNSUPPORTED_CURRENCY_PAIR;
+            }
+            long minorUnits = Currencies.toMinorUnits(amount);
+            // rounding never creates money, at worst the bank keeps a fraction of a minor unit
+            long debit = toSource.convert(minorUnits, RoundingMode.CEILING);
+            long credit = toDestination.convert(minorUnits, RoundingMode.FLOOR);
+            if (debit == 0 || credit == 0) {
+                return TransferStatus.AMOUNT_TOO_SMALL;
+            }
+            if (source.getBalanceMinorUnits() < debit && isHot(sourceAccountNumber)) {
+                source.credit(accountRepository.drainSlots(sourceAccountNumber.value(),
+                        debit - source.getBalanceMinorUnits()));
+            }
+            if (source.getBalanceMinorUnits() < debit) {
+                return TransferStatus.NOT_ENOUGH_FUNDS;
+            }
+
+            source.debit(debit);
+            if (hotDestination) {
+                accountRepository.creditSlot(destinationAccountNumber.value(),
+                        ThreadLocalRandom.current().nextInt(transferProperties.getHotAccountSlots()), credit);
+            } else {
+                destination.credit(credit);
+            }
+
+            accountRepository.saveAllAndFlush(List.of(source, destination));
+            long flushed = transferMetrics.record(Phase.FLUSH, loaded);
+            ledgerService.record(idempotencyKey, sourceAccountNumber, destinationAccountNumber,
+                    source.getCurrency(), debit, destination.getCurrency(), credit);
+            transferMetrics.record(Phase.LEDGER, flushed);
+            // hot accounts end up in the cache as well, but their balances are never read from it
+            balanceCache.putAfterCommit(sourceAccountNumber, source, destinationAccountNumber, destination);
+            return TransferStatus.COMPLETED;
+        }
+
+        /**
+         * Moves the slot balances of every hot account back onto its row, so that debits rarely have to drain slots.
+         * Accounts no longer listed as hot but with money left in their slots are consolidated as well, their reads
+         * and debits only see the row. The first round runs as the application starts, see {@link #prepareSlots()}.
+         */
+        @Scheduled(fixedDelayString = "${account-manager.transfer.hot-account-consolidation-interval:PT10S}")
+        public void consolidateHotAccounts() {
+            Set<String> accountNumbers = new TreeSet<>(transferProperties.getHotAccounts());
+            accountNumbers.addAll(accountRepository.findAccountNumbersWithSlotBalance());
+            for (String slotted : accountNumbers) {
+                AccountNumber accountNumber = new AccountNumber(slotted);
+                try {
+                    if (transferProperties.getLocking() == Locking.STRIPED) {
+                        try (AccountLocks.Held ignored = accountLocks.lock(accountNumber, accountNumber)) {
+                            consolidate(accountNumber);
+                        }
+                    } else {
+                        consolidate(accountNumber);
+                    }
+                } catch (OptimisticLockingFailureException e) {
+                    // a transfer changed the row first, the slots are left for the next round
+                }
+            }
+        }
+
+        private void consolidate(AccountNumber accountNumber) {
+            transactionOperations.executeWithoutResult(status -> findAccount(accountNumber).ifPresent(account -> {
+                long drained = accountRepository.drainSlots(accountNumber.value(), Long.MAX_VALUE);
+                if (drained > 0) {
+                    account.credit(drained);
+                    accountRepository.saveAndFlush(account);
+                    balanceCache.putAllAfterCommit(List.of(account));
+                }
+            }));
+        }
+
+        private boolean isHot(AccountNumber accountNumber) {
+            return transferProperties.getHotAccounts().contains(accountNumber.value());
+        }
+
+        // slots change without touching the row, so hot balances are summed on every read instead of cached
+        private Optional<MonetaryAmount> findHotAccountBalance(AccountNumber accountNumber) {
+            return findBalanceView(accountNumber)
+                    .map(view -> FastMoney.ofMinor(Currencies.of(view.getCurrency()),
+                            Math.addExact(view.getBalance(), accountRepository.sumSlots(accountNumber.value()))));
+        }
+
+        private Optional<Account> findAccount(AccountNumber accountNumber) {
+            return findAccount(accountNumber, transferProperties.getLocking() == Locking.PESSIMISTIC);
+        }
+
+        // by primary key when the id is known, accounts found by number are indexed for the next time
+        private Optional<Account> findAccount(AccountNumber accountNumber, boolean forUpdate) {
+            long id = accountIdIndex.get(accountNumber);
+            if (id != AccountIdIndex.NO_ID) {
+                Optional<Account> account = (forUpdate ? accountRepository.findByIdForUpdate(id) : accountRepository.findById(id))
+                        .filter(found -> found.getAccountNumber().equals(accountNumber.value()));
+                // a stale id, of an account deleted and opened again, falls back to the number and is replaced
+                if (account.isPresent()) {
+                    return account;
+                }
+            }
+            Optional<Account> account = forUpdate
+                    ? accountRepository.findByAccountNumberForUpdate(accountNumber.value())
+                    : accountRepository.findByAccountNumber(accountNumber.value());
+            account.filter(found -> found.getId() != null)
+                    .ifPresent(found -> accountIdIndex.put(found.getAccountNumber(), found.getId()));
+            return account;
+        }
+
+        private Optional<AccountBalanceView> findBalanceView(AccountNumber accountNumber) {
+            long id = accountIdIndex.get(accountNumber);
+            if (id != AccountIdIndex.NO_ID) {
+                Optional<AccountBalanceView> view = accountRepository.findBalanceById(id)
+                        .filter(found -> found.getAccountNumber().equals(accountNumber.value()));
+                if (view.isPresent()) {
+                    return view;
+                }
+            }
+            Optional<AccountBalanceView> view = accountRepository.findBalanceByAccountNumber(accountNumber.value());
+            view.ifPresent(found -> accountIdIndex.put(found.getAccountNumber(), found.getId()));
+            return view;
         }
 
-        private BigDecimal toMinor(MonetaryAmount amount){
-            return new BigDecimal(amount.query(MonetaryQueries.convertMinorPart()));
+        private static MonetaryAmount toBalance(AccountBalanceView view) {
+            return FastMoney.ofMinor(Currencies.of(view.getCurrency()), view.getBalance());
         }
     }
 }
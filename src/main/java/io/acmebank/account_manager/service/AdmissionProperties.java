@@ -0,0 +1,159 @@
+package io.acmebank.account_manager.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "account-manager.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = false;
+    // transfers per second and burst per source account
+    private double accountRate = 20;
+    private int accountBurst = 40;
+    // requests per second and burst per API key, or per remote address without one
+    private double clientRate = 200;
+    private int clientBurst = 400;
+    private String apiKeyHeader = "X-Api-Key";
+    // buckets kept per kind, and how long an unused one is kept
+    private long maximumBuckets = 100_000;
+    private Duration bucketIdleTime = Duration.ofMinutes(1);
+    // transfers executing at once, adapted between min and max to keep their latency under the target
+    private int initialConcurrency = 32;
+    private int minConcurrency = 4;
+    private int maxConcurrency = 256;
+    private Duration targetLatency = Duration.ofMillis(50);
+    // batches executing at once, REST and asynchronous, adapted the same way against a target of their own
+    private int batchInitialConcurrency = 4;
+    private int batchMinConcurrency = 1;
+    private int batchMaxConcurrency = 32;
+    private Duration batchTargetLatency = Duration.ofSeconds(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getAccountRate() {
+        return accountRate;
+    }
+
+    public void setAccountRate(double accountRate) {
+        this.accountRate = accountRate;
+    }
+
+    public int getAccountBurst() {
+        return accountBurst;
+    }
+
+    public void setAccountBurst(int accountBurst) {
+        this.accountBurst = accountBurst;
+    }
+
+    public double getClientRate() {
+        return clientRate;
+    }
+
+    public void setClientRate(double clientRate) {
+        this.clientRate = clientRate;
+    }
+
+    public int getClientBurst() {
+        return clientBurst;
+    }
+
+    public void setClientBurst(int clientBurst) {
+        this.clientBurst = clientBurst;
+    }
+
+    public String getApiKeyHeader() {
+        return apiKeyHeader;
+    }
+
+    public void setApiKeyHeader(String apiKeyHeader) {
+        this.apiKeyHeader = apiKeyHeader;
+    }
+
+    public long getMaximumBuckets() {
+        return maximumBuckets;
+    }
+
+    public void setMaximumBuckets(long maximumBuckets) {
+        this.maximumBuckets = maximumBuckets;
+    }
+
+    public Duration getBucketIdleTime() {
+        return bucketIdleTime;
+    }
+
+    public void setBucketIdleTime(Duration bucketIdleTime) {
+        this.bucketIdleTime = bucketIdleTime;
+    }
+
+    public int getInitialConcurrency() {
+        return initialConcurrency;
+    }
+
+    public void setInitialConcurrency(int initialConcurrency) {
+        this.initialConcurrency = initialConcurrency;
+    }
+
+    public int getMinConcurrency() {
+        return minConcurrency;
+    }
+
+    public void setMinConcurrency(int minConcurrency) {
+        this.minConcurrency = minConcurrency;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public Duration getTargetLatency() {
+        return targetLatency;
+    }
+
+    public void setTargetLatency(Duration targetLatency) {
+        this.targetLatency = targetLatency;
+    }
+
+    public int getBatchInitialConcurrency() {
+        return batchInitialConcurrency;
+    }
+
+    public void setBatchInitialConcurrency(int batchInitialConcurrency) {
+        this.batchInitialConcurrency = batchInitialConcurrency;
+    }
+
+    public int getBatchMinConcurrency() {
+        return batchMinConcurrency;
+    }
+
+    public void setBatchMinConcurrency(int batchMinConcurrency) {
+        this.batchMinConcurrency = batchMinConcurrency;
+    }
+
+    public int getBatchMaxConcurrency() {
+        return batchMaxConcurrency;
+    }
+
+    public void setBatchMaxConcurrency(int batchMaxConcurrency) {
+        this.batchMaxConcurrency = batchMaxConcurrency;
+    }
+
+    public Duration getBatchTargetLatency() {
+        return batchTargetLatency;
+    }
+
+    public void setBatchTargetLatency(Duration batchTargetLatency) {
+        this.batchTargetLatency = batchTargetLatency;
+    }
+}
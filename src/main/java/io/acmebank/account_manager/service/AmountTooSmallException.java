@@ -0,0 +1,22 @@
+package io.acmebank.account_manager.service;
+
+import javax.money.MonetaryAmount;
+
+public class AmountTooSmallException extends Exception {
+    private final transient MonetaryAmount amount;
+
+    public AmountTooSmallException(MonetaryAmount amount) {
+        super(null, null, false, false);
+        this.amount = amount;
+    }
+
+    public MonetaryAmount getAmount() {
+        return amount;
+    }
+
+    @Override
+    public String getMessage() {
+        return String.format("%s %s is less than a minor unit once converted to an account currency",
+                amount.getCurrency().getCurrencyCode(), amount.getNumber());
+    }
+}
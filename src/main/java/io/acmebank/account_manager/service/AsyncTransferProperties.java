@@ -0,0 +1,58 @@
+package io.acmebank.account_manager.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "account-manager.async-transfer")
+public class AsyncTransferProperties {
+
+    // transfers waiting for a worker, further submissions are rejected with 429
+    private int queueCapacity = 10_000;
+    private int workers = 4;
+    // transfers taken from the queue per transaction, at most account-manager.transfer.batch-chunk-size
+    private int maxBatchSize = 500;
+    // how long the outcome of a transfer can be polled
+    private Duration statusTimeToLive = Duration.ofHours(1);
+    private long statusMaximumSize = 1_000_000;
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public Duration getStatusTimeToLive() {
+        return statusTimeToLive;
+    }
+
+    public void setStatusTimeToLive(Duration statusTimeToLive) {
+        this.statusTimeToLive = statusTimeToLive;
+    }
+
+    public long getStatusMaximumSize() {
+        return statusMaximumSize;
+    }
+
+    public void setStatusMaximumSize(long statusMaximumSize) {
+        this.statusMaximumSize = statusMaximumSize;
+    }
+}
@@ -0,0 +1,230 @@
+package io.acmebank.account_manager.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.acmebank.account_manager.domain.Transfer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public interface AsyncTransferService {
+
+    enum State {
+        PENDING,
+        COMPLETED,
+        FAILED
+    }
+
+    /**
+     * A submitted transfer. The outcome is set once a worker executed it, it stays empty for a transfer
+     * that failed with an unexpected error.
+     */
+    record AsyncTransfer(UUID id, State state, TransferStatus outcome) {
+
+        static AsyncTransfer executed(UUID id, TransferStatus outcome) {
+            return new AsyncTransfer(id, outcome == TransferStatus.COMPLETED ? State.COMPLETED : State.FAILED, outcome);
+        }
+    }
+
+    /**
+     * Queues the transfer and returns the id to poll its outcome with, without waiting for it to execute.
+     */
+    default UUID submit(Transfer transfer) throws TransferQueueFullException {
+        UUID id = UUID.randomUUID();
+        submit(id, transfer, outcome -> {
+        });
+        return id;
+    }
+
+    /**
+     * Queues the transfer under the given id. Once it is executed the outcome is passed to the callback, on a
+     * worker thread, or null when the transfer failed with an unexpected error and nothing was committed. A transfer
+     * still queued when the application stops is not executed, its callback gets null as well.
+     */
+    void submit(UUID id, Transfer transfer, Consumer<TransferStatus> onOutcome) throws TransferQueueFullException;
+
+    /**
+     * A transfer is found while it is queued or executing, whatever the number of transfers submitted since. Its
+     * outcome is then kept for account-manager.async-transfer.status-time-to-live, or less when more than
+     * status-maximum-size outcomes are newer; unknown ids and those outcomes are empty.
+     */
+    Optional<AsyncTransfer> getTransfer(UUID id);
+
+    /**
+     * Bounded in-memory queue drained by a fixed pool of workers. Each worker takes whatever is queued, up to one
+     * batch chunk, and executes it with {@link AccountService#transferMoney(List)}, so transfers arriving together
+     * share one transaction. A chunk of the JPA service commits or rolls back as a whole, so when a batch fails
+     * its transfers are executed again one by one to find the failing one. A worker waits for the batch
+     * concurrency limit of {@link TransferAdmission} before executing its chunk.
+     * <p>
+     * Transfers still queued when the application stops are not executed, they fail without an outcome once the
+     * workers stopped.
+     * <ul>
+     *     <li>{@code account_manager.transfer.queue.depth} - transfers waiting for a worker</li>
+     *     <li>{@code account_manager.transfer.queue.latency} - time from submission to outcome</li>
+     *     <li>{@code account_manager.transfer.queue.rejected} - submissions refused because the queue was full</li>
+     * </ul>
+     */
+    @Service
+    class AsyncTransferServiceImpl implements AsyncTransferService, DisposableBean {
+        private static final Logger LOG = LoggerFactory.getLogger(AsyncTransferServiceImpl.class);
+
+        private final AccountService accountService;
+        private final TransferAdmission transferAdmission;
+        private final BlockingQueue<QueuedTransfer> queue;
+        private final int queueCapacity;
+        private final int maxBatchSize;
+        // until executed, bounded by the queue capacity and the batches in progress
+        private final Map<UUID, AsyncTransfer> pending = new ConcurrentHashMap<>();
+        private final Cache<UUID, AsyncTransfer> outcomes;
+        private final ExecutorService workers;
+        private final Timer latency;
+        private final Counter rejected;
+
+        @Autowired
+        public AsyncTransferServiceImpl(AccountService accountService,
+                                        AsyncTransferProperties properties,
+                                        TransferProperties transferProperties,
+                                        TransferAdmission transferAdmission,
+                                        MeterRegistry registry) {
+            this.accountService = accountService;
+            this.transferAdmission = transferAdmission;
+            this.queueCapacity = properties.getQueueCapacity();
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.maxBatchSize = Math.min(properties.getMaxBatchSize(), transferProperties.getBatchChunkSize());
+            this.outcomes = Caffeine.newBuilder()
+                    .maximumSize(properties.getStatusMaximumSize())
+                    .expireAfterWrite(properties.getStatusTimeToLive())
+                    .build();
+            Gauge.builder("account_manager.transfer.queue.depth", queue, BlockingQueue::size)
+                    .description("Asynchronous transfers waiting for a worker")
+                    .register(registry);
+            this.latency = Timer.builder("account_manager.transfer.queue.latency")
+                    .description("Time from accepting an asynchronous transfer to its outcome")
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.rejected = Counter.builder("account_manager.transfer.queue.rejected")
+                    .description("Asynchronous transfers refused because the queue was full")
+                    .register(registry);
+
+            AtomicInteger threads = new AtomicInteger();
+            this.workers = Executors.newFixedThreadPool(properties.getWorkers(), runnable -> {
+                Thread thread = new Thread(runnable, "transfer-worker-" + threads.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (int i = 0; i < properties.getWorkers(); i++) {
+                workers.execute(this::drain);
+            }
+        }
+
+        @Override
+        public void submit(UUID id, Transfer transfer, Consumer<TransferStatus> onOutcome) throws TransferQueueFullException {
+            // stored before queueing, so a worker finishing first is never overwritten by PENDING
+            pending.put(id, new AsyncTransfer(id, State.PENDING, null));
+            if (!queue.offer(new QueuedTransfer(id, transfer, onOutcome, System.nanoTime()))) {
+                pending.remove(id);
+                rejected.increment();
+                throw new TransferQueueFullException(queueCapacity);
+            }
+        }
+
+        @Override
+        public Optional<AsyncTransfer> getTransfer(UUID id) {
+            // the outcome is stored before the pending entry is removed, a poll in between finds either
+            AsyncTransfer transfer = outcomes.getIfPresent(id);
+            return Optional.ofNullable(transfer != null ? transfer : pending.get(id));
+        }
+
+        @Override
+        public void destroy() throws InterruptedException {
+            workers.shutdownNow();
+            workers.awaitTermination(30, TimeUnit.SECONDS);
+            // an idempotency key claimed for these is released, so a retry queues the transfer again
+            List<QueuedTransfer> notExecuted = new ArrayList<>();
+            queue.drainTo(notExecuted);
+            notExecuted.forEach(queued -> complete(queued, null));
+        }
+
+        private void drain() {
+            List<QueuedTransfer> batch = new ArrayList<>(maxBatchSize);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.drainTo(batch, maxBatchSize - 1);
+                execute(batch);
+                batch.clear();
+            }
+        }
+
+        private void execute(List<QueuedTransfer> batch) {
+            // a worker waits for the batch limit rather than failing, the queue filling up pushes back on clients
+            try {
+                transferAdmission.acquire(TransferAdmission.Kind.BATCH);
+            } catch (InterruptedException e) {
+                batch.forEach(queued -> complete(queued, null));
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long started = System.nanoTime();
+            List<TransferStatus> statuses;
+            try {
+                statuses = accountService.transferMoney(batch.stream().map(QueuedTransfer::transfer).toList());
+            } catch (RuntimeException e) {
+                batch.forEach(this::executeAlone);
+                return;
+            } finally {
+                transferAdmission.release(TransferAdmission.Kind.BATCH, System.nanoTime() - started);
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), statuses.get(i));
+            }
+        }
+
+        private void executeAlone(QueuedTransfer queued) {
+            try {
+                complete(queued, accountService.transferMoney(List.of(queued.transfer())).get(0));
+            } catch (RuntimeException e) {
+                complete(queued, null);
+            }
+        }
+
+        private void complete(QueuedTransfer queued, TransferStatus outcome) {
+            outcomes.put(queued.id(), AsyncTransfer.executed(queued.id(), outcome));
+            pending.remove(queued.id());
+            latency.record(System.nanoTime() - queued.submittedNanos(), TimeUnit.NANOSECONDS);
+            try {
+                queued.onOutcome().accept(outcome);
+            } catch (RuntimeException e) {
+                LOG.warn("Could not hand over the outcome of transfer {}", queued.id(), e);
+            }
+        }
+
+        private record QueuedTransfer(UUID id, Transfer transfer, Consumer<TransferStatus> onOutcome,
+                                      long submittedNanos) {
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package io.acmebank.account_manager.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.Currencies;
+import io.acmebank.account_manager.repository.AccountBalanceView;
+import io.acmebank.account_manager.repository.entity.Account;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.javamoney.moneta.FastMoney;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.money.CurrencyUnit;
+import javax.money.MonetaryAmount;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded, TTL evicted cache of account balances keyed by account number.
+ * Entries carry the account version so a late write of an older balance never replaces a newer one.
+ * Balances changed outside of this instance (other nodes, manual SQL) are only picked up once the entry expires.
+ */
+@Component
+public class BalanceCache implements MeterBinder {
+    private final Cache<String, Snapshot> cache;
+
+    @Autowired
+    public BalanceCache(BalanceCacheProperties properties) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTimeToLive())
+                .recordStats()
+                .build();
+    }
+
+    public Optional<MonetaryAmount> get(AccountNumber accountNumber) {
+        return Optional.ofNullable(cache.getIfPresent(accountNumber.value()))
+                .map(Snapshot::toMonetaryAmount);
+    }
+
+    public void put(AccountNumber accountNumber, Account account) {
+        put(accountNumber.value(), Snapshot.of(account));
+    }
+
+    public void put(AccountBalanceView view) {
+        put(view.getAccountNumber(), new Snapshot(Currencies.of(view.getCurrency()), view.getBalance(), view.getVersion()));
+    }
+
+    /**
+     * Caches the balances once the surrounding transaction commits, or right away when there is none.
+     * The snapshots are taken now so later changes to the (soon detached) entities are not picked up.
+     */
+    public void putAfterCommit(AccountNumber accountNumber, Account account,
+                               AccountNumber otherAccountNumber, Account otherAccount) {
+        Snapshot snapshot = Snapshot.of(account);
+        Snapshot otherSnapshot = Snapshot.of(otherAccount);
+        afterCommit(() -> {
+            put(accountNumber.value(), snapshot);
+            put(otherAccountNumber.value(), otherSnapshot);
+        });
+    }
+
+    public void putAllAfterCommit(Collection<Account> accounts) {
+        Map<String, Snapshot> snapshots = accounts.stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Snapshot::of, (first, second) -> second));
+        afterCommit(() -> snapshots.forEach(this::put));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "balances");
+    }
+
+    private void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    private void put(String accountNumber, Snapshot snapshot) {
+        cache.asMap().merge(accountNumber, snapshot,
+                (cached, fresh) -> fresh.version() >= cached.version() ? fresh : cached);
+    }
+
+    record Snapshot(CurrencyUnit currency, long minorUnits, long version) {
+        static Snapshot of(Account account) {
+            return new Snapshot(account.getCurrencyUnit(), account.getBalanceMinorUnits(), account.getVersion());
+        }
+
+        MonetaryAmount toMonetaryAmount() {
+            return FastMoney.ofMinor(currency, minorUnits);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package io.acmebank.account_manager.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "account-manager.balance-cache")
+public class BalanceCacheProperties {
+
+    // 0 disables the cache
+    private long maximumSize = 100_000;
+    private Duration timeToLive = Duration.ofSeconds(30);
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public void setTimeToLive(Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+}
@@ -0,0 +1,77 @@
+package io.acmebank.account_manager.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps the number of operations in flight at a limit that follows their latency (additive increase,
+ * multiplicative decrease): a sample slower than the target cuts the limit by a tenth, at most once per target
+ * latency so one slow burst is not counted many times over, and a fast sample taken while at least half the
+ * limit was in use raises it by one. Counters are updated with compare-and-set only.
+ */
+public class ConcurrencyLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lastDecrease;
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration targetLatency) {
+        this(initialLimit, minLimit, maxLimit, targetLatency, System::nanoTime);
+    }
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration targetLatency, LongSupplier nanoClock) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.nanoClock = nanoClock;
+        this.limit = new AtomicInteger(Math.max(minLimit, Math.min(maxLimit, initialLimit)));
+        this.lastDecrease = new AtomicLong(nanoClock.getAsLong() - targetLatencyNanos);
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends an operation admitted by {@link #tryAcquire()}, adapting the limit to its latency unless it is negative.
+     */
+    public void release(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (latencyNanos < 0) {
+            return;
+        }
+        if (latencyNanos > targetLatencyNanos) {
+            long now = nanoClock.getAsLong();
+            long previous = lastDecrease.get();
+            if (now - previous >= targetLatencyNanos && lastDecrease.compareAndSet(previous, now)) {
+                limit.updateAndGet(current -> Math.max(minLimit, current - Math.max(1, current / 10)));
+            }
+        } else if (inFlightBefore * 2 >= limit.get()) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -1,7 +1,19 @@
 package io.acmebank.account_manager.service;
 
 public class DestinationAccountNotFoundException extends Exception {
+    private final String accountNumber;
+
     public DestinationAccountNotFoundException(String accountNumber) {
-        super(String.format("Destination account not found when executing transfer, account number '%s'", accountNumber));
+        super(null, null, false, false);
+        this.accountNumber = accountNumber;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    @Override
+    public String getMessage() {
+        return String.format("Destination account not found when executing transfer, account number '%s'", accountNumber);
     }
 }
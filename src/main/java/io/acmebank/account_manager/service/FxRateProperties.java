@@ -0,0 +1,29 @@
+package io.acmebank.account_manager.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "account-manager.fx")
+public class FxRateProperties {
+
+    // a CSV with a BASE,QUOTE,RATE header, one unit of BASE being worth RATE units of QUOTE
+    private String ratesLocation = "classpath:fx/rates.csv";
+    private Duration refreshInterval = Duration.ofMinutes(1);
+
+    public String getRatesLocation() {
+        return ratesLocation;
+    }
+
+    public void setRatesLocation(String ratesLocation) {
+        this.ratesLocation = ratesLocation;
+    }
+
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+}
@@ -0,0 +1,91 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.domain.FxRates;
+import io.acmebank.account_manager.domain.FxRates.FxRate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public interface FxRateService {
+
+    /**
+     * The current rates. A transfer should take them once and convert both of its sides with the same snapshot.
+     */
+    FxRates getRates();
+
+    @Service
+    class FxRateServiceImpl implements FxRateService {
+        private static final Logger LOG = LoggerFactory.getLogger(FxRateServiceImpl.class);
+
+        private final ResourceLoader resourceLoader;
+        private final FxRateProperties properties;
+        // replaced as a whole on refresh, readers never see a partly loaded table
+        private volatile FxRates rates;
+
+        @Autowired
+        public FxRateServiceImpl(ResourceLoader resourceLoader, FxRateProperties properties) {
+            this.resourceLoader = resourceLoader;
+            this.properties = properties;
+            this.rates = load(true);
+        }
+
+        @Override
+        public FxRates getRates() {
+            return rates;
+        }
+
+        @Scheduled(fixedDelayString = "${account-manager.fx.refresh-interval:PT1M}")
+        public void refresh() {
+            try {
+                rates = load(false);
+            } catch (RuntimeException e) {
+                LOG.warn("Could not reload exchange rates from {}, keeping the previous ones", properties.getRatesLocation(), e);
+            }
+        }
+
+        // a missing file only means no rates at startup, later it is a failed reload like any other
+        private FxRates load(boolean initial) {
+            Resource resource = resourceLoader.getResource(properties.getRatesLocation());
+            if (!resource.exists()) {
+                if (!initial) {
+                    throw new IllegalStateException("No exchange rates at " + properties.getRatesLocation());
+                }
+                LOG.warn("No exchange rates at {}, only same currency transfers are possible", properties.getRatesLocation());
+                return FxRates.empty();
+            }
+            List<FxRate> loaded = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+                reader.readLine();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    String[] columns = line.split(",");
+                    if (columns.length != 3) {
+                        throw new IllegalArgumentException("Expected BASE,QUOTE,RATE but was: " + line);
+                    }
+                    loaded.add(new FxRate(columns[0].trim().toUpperCase(Locale.ROOT), columns[1].trim().toUpperCase(Locale.ROOT),
+                            new BigDecimal(columns[2].trim())));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return FxRates.of(loaded);
+        }
+    }
+}
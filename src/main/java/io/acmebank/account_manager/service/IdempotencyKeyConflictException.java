@@ -0,0 +1,22 @@
+package io.acmebank.account_manager.service;
+
+public class IdempotencyKeyConflictException extends Exception {
+
+    public enum Reason {
+        // the first request with this key has not finished yet
+        IN_PROGRESS,
+        // the key was already used for a different transfer
+        REUSED
+    }
+
+    private final Reason reason;
+
+    public IdempotencyKeyConflictException(String idempotencyKey, Reason reason) {
+        super(String.format("Idempotency key '%s' conflicts with an earlier request (%s)", idempotencyKey, reason));
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
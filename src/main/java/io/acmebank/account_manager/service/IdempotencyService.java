@@ -0,0 +1,227 @@
+package io.acmebank.account_manager.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.acmebank.account_manager.domain.Currencies;
+import io.acmebank.account_manager.domain.Transfer;
+import io.acmebank.account_manager.repository.IdempotencyRecordRepository;
+import io.acmebank.account_manager.repository.entity.IdempotencyRecord;
+import io.acmebank.account_manager.service.AsyncTransferService.AsyncTransfer;
+import io.acmebank.account_manager.service.AsyncTransferService.State;
+import io.acmebank.account_manager.service.IdempotencyKeyConflictException.Reason;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface IdempotencyService {
+
+    /**
+     * Executes the transfer once per idempotency key. Repeating a key with the same transfer returns the
+     * status of the first execution without touching the accounts. The key is stored with the outcome in the
+     * transaction of the transfer, a concurrent duplicate fails on the ledger's or the key's unique constraint and
+     * returns the outcome of the one that committed.
+     */
+    TransferStatus transfer(String idempotencyKey, Transfer transfer) throws IdempotencyKeyConflictException;
+
+    /**
+     * Queues the transfer with the {@link AsyncTransferService} once per idempotency key. Repeating a key with the
+     * same transfer returns the transfer queued first: pending until a worker executed it, then with its outcome,
+     * for as long as the key is kept rather than the status of the queued transfer.
+     */
+    AsyncTransfer submit(String idempotencyKey, Transfer transfer) throws IdempotencyKeyConflictException, TransferQueueFullException;
+
+    @Service
+    class IdempotencyServiceImpl implements IdempotencyService {
+        private static final Logger LOG = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+        private final AccountService accountService;
+        private final AsyncTransferService asyncTransferService;
+        private final IdempotencyRecordRepository repository;
+        private final IdempotencyProperties properties;
+        private final Clock clock;
+        // completed outcomes only, an in progress key always goes to the database
+        private final Cache<String, Outcome> outcomes;
+
+        @Autowired
+        public IdempotencyServiceImpl(AccountService accountService,
+                                      AsyncTransferService asyncTransferService,
+                                      IdempotencyRecordRepository repository,
+                                      IdempotencyProperties properties) {
+            this(accountService, asyncTransferService, repository, properties, Clock.systemUTC());
+        }
+
+        public IdempotencyServiceImpl(AccountService accountService,
+                                      AsyncTransferService asyncTransferService,
+                                      IdempotencyRecordRepository repository,
+                                      IdempotencyProperties properties,
+                                      Clock clock) {
+            this.accountService = accountService;
+            this.asyncTransferService = asyncTransferService;
+            this.repository = repository;
+            this.properties = properties;
+            this.clock = clock;
+            this.outcomes = Caffeine.newBuilder()
+                    .maximumSize(properties.getCacheMaximumSize())
+                    .expireAfterWrite(properties.getTimeToLive())
+                    .build();
+        }
+
+        @Override
+        public TransferStatus transfer(String idempotencyKey, Transfer transfer) throws IdempotencyKeyConflictException {
+            String fingerprint = fingerprint(transfer);
+
+            Outcome cached = outcomes.getIfPresent(idempotencyKey);
+            if (cached != null) {
+                return cached.replay(idempotencyKey, fingerprint);
+            }
+
+            Optional<IdempotencyRecord> stored = repository.findById(idempotencyKey);
+            if (stored.isPresent()) {
+                return replay(idempotencyKey, fingerprint, stored.get());
+            }
+
+            TransferStatus status;
+            try {
+                // the record of a completed transfer commits with its balances, a crash leaves both or neither
+                status = accountService.tryTransferMoney(transfer.sourceAccountNumber(),
+                        transfer.destinationAccountNumber(), transfer.amount(), idempotencyKey,
+                        () -> repository.saveAndFlush(executed(idempotencyKey, fingerprint, TransferStatus.COMPLETED)));
+                if (status != TransferStatus.COMPLETED) {
+                    // nothing was changed, the outcome is only remembered
+                    repository.saveAndFlush(executed(idempotencyKey, fingerprint, status));
+                }
+            } catch (DataIntegrityViolationException e) {
+                // a concurrent request with the same key, or one queued with it, went first
+                return replay(idempotencyKey, fingerprint, repository.findById(idempotencyKey)
+                        .orElseThrow(() -> new IdempotencyKeyConflictException(idempotencyKey, Reason.IN_PROGRESS)));
+            }
+            outcomes.put(idempotencyKey, new Outcome(fingerprint, status, null));
+            return status;
+        }
+
+        private IdempotencyRecord executed(String idempotencyKey, String fingerprint, TransferStatus status) {
+            IdempotencyRecord record = new IdempotencyRecord(idempotencyKey, fingerprint, clock.instant());
+            record.setOutcome(status.name());
+            return record;
+        }
+
+        @Override
+        public AsyncTransfer submit(String idempotencyKey, Transfer transfer) throws IdempotencyKeyConflictException, TransferQueueFullException {
+            String fingerprint = fingerprint(transfer);
+
+            Outcome cached = outcomes.getIfPresent(idempotencyKey);
+            if (cached != null) {
+                return cached.replayQueued(idempotencyKey, fingerprint);
+            }
+
+            Optional<IdempotencyRecord> stored = repository.findById(idempotencyKey);
+            if (stored.isPresent()) {
+                return replayQueued(idempotencyKey, fingerprint, stored.get());
+            }
+
+            UUID transferId = UUID.randomUUID();
+            IdempotencyRecord claim = new IdempotencyRecord(idempotencyKey, fingerprint, clock.instant());
+            claim.setTransferId(transferId.toString());
+            try {
+                repository.saveAndFlush(claim);
+            } catch (DataIntegrityViolationException e) {
+                // a concurrent request with the same key claimed it first
+                return replayQueued(idempotencyKey, fingerprint, repository.findById(idempotencyKey)
+                        .orElseThrow(() -> new IdempotencyKeyConflictException(idempotencyKey, Reason.IN_PROGRESS)));
+            }
+
+            try {
+                asyncTransferService.submit(transferId, transfer.withIdempotencyKey(idempotencyKey), status -> {
+                    if (status == null) {
+                        // nothing was committed, release the key so the client can retry
+                        repository.delete(claim);
+                    } else {
+                        complete(claim, fingerprint, status);
+                    }
+                });
+            } catch (TransferQueueFullException e) {
+                repository.delete(claim);
+                throw e;
+            }
+            return new AsyncTransfer(transferId, State.PENDING, null);
+        }
+
+        private void complete(IdempotencyRecord claim, String fingerprint, TransferStatus status) {
+            claim.setOutcome(status.name());
+            repository.save(claim);
+            outcomes.put(claim.getId(), new Outcome(fingerprint, status, transferId(claim)));
+        }
+
+        @Scheduled(fixedDelayString = "${account-manager.idempotency.cleanup-interval:PT1M}")
+        public void expireKeys() {
+            int deleted = repository.deleteCreatedBefore(clock.instant().minus(properties.getTimeToLive()));
+            if (deleted > 0) {
+                LOG.debug("Expired {} idempotency keys", deleted);
+            }
+        }
+
+        private TransferStatus replay(String idempotencyKey, String fingerprint, IdempotencyRecord record) throws IdempotencyKeyConflictException {
+            if (!record.getRequestFingerprint().equals(fingerprint)) {
+                throw new IdempotencyKeyConflictException(idempotencyKey, Reason.REUSED);
+            }
+            if (record.getOutcome() == null) {
+                throw new IdempotencyKeyConflictException(idempotencyKey, Reason.IN_PROGRESS);
+            }
+            Outcome outcome = new Outcome(fingerprint, TransferStatus.valueOf(record.getOutcome()), transferId(record));
+            outcomes.put(idempotencyKey, outcome);
+            return outcome.status();
+        }
+
+        // a key still in progress is only a conflict when it was claimed by a synchronous transfer
+        private AsyncTransfer replayQueued(String idempotencyKey, String fingerprint, IdempotencyRecord record) throws IdempotencyKeyConflictException {
+            if (record.getRequestFingerprint().equals(fingerprint) && record.getOutcome() == null
+                    && record.getTransferId() != null) {
+                return new AsyncTransfer(transferId(record), State.PENDING, null);
+            }
+            TransferStatus status = replay(idempotencyKey, fingerprint, record);
+            return AsyncTransfer.executed(transferId(record), status);
+        }
+
+        private static UUID transferId(IdempotencyRecord record) {
+            return record.getTransferId() == null ? null : UUID.fromString(record.getTransferId());
+        }
+
+        private static String fingerprint(Transfer transfer) {
+            String request = transfer.sourceAccountNumber().value() + '\n'
+                    + transfer.destinationAccountNumber().value() + '\n'
+                    + transfer.amount().getCurrency().getCurrencyCode() + '\n'
+                    + Currencies.toMinorUnits(transfer.amount());
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+                return Base64.getEncoder().encodeToString(digest);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is required to be available on every JVM", e);
+            }
+        }
+
+        // transferId is null for synchronous transfers
+        private record Outcome(String fingerprint, TransferStatus status, UUID transferId) {
+            TransferStatus replay(String idempotencyKey, String requestFingerprint) throws IdempotencyKeyConflictException {
+                if (!fingerprint.equals(requestFingerprint)) {
+                    throw new IdempotencyKeyConflictException(idempotencyKey, Reason.REUSED);
+                }
+                return status;
+            }
+
+            AsyncTransfer replayQueued(String idempotencyKey, String requestFingerprint) throws IdempotencyKeyConflictException {
+                return AsyncTransfer.executed(transferId, replay(idempotencyKey, requestFingerprint));
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package io.acmebank.account_manager.service;
+
+import javax.money.MonetaryAmount;
+
+public class InvalidAmountException extends Exception {
+    private final transient MonetaryAmount amount;
+
+    public InvalidAmountException(MonetaryAmount amount) {
+        super(null, null, false, false);
+        this.amount = amount;
+    }
+
+    public MonetaryAmount getAmount() {
+        return amount;
+    }
+
+    @Override
+    public String getMessage() {
+        return String.format("Transfer amount must be positive, got %s %s", amount.getCurrency().getCurrencyCode(),
+                amount.getNumber());
+    }
+}
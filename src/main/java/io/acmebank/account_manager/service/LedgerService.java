@@ -0,0 +1,90 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.repository.AccountRepository;
+import io.acmebank.account_manager.repository.LedgerEntryRepository;
+import io.acmebank.account_manager.repository.entity.LedgerEntry;
+import io.acmebank.account_manager.repository.entity.LedgerEntry.Direction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+public interface LedgerService {
+
+    int MAX_PAGE_SIZE = 500;
+
+    /**
+     * Writes the debit and credit entries of a transfer, must be called inside the transaction updating the balances.
+     * Each entry is in the currency of its own account.
+     */
+    void record(String idempotencyKey,
+                AccountNumber sourceAccountNumber,
+                AccountNumber destinationAccountNumber,
+                String sourceCurrency,
+                long debitMinorUnits,
+                String destinationCurrency,
+                long creditMinorUnits);
+
+    /**
+     * Entries of an account, newest first, strictly older than {@code beforeSequence} when given.
+     */
+    LedgerPage getTransactions(AccountNumber accountNumber, Long beforeSequence, int limit) throws NoAccountFoundException;
+
+    record LedgerPage(List<LedgerEntry> entries, Long nextCursor) {
+    }
+
+    @Service
+    class LedgerServiceImpl implements LedgerService {
+        private final LedgerEntryRepository ledgerEntryRepository;
+        private final AccountRepository accountRepository;
+        private final Clock clock;
+
+        @Autowired
+        public LedgerServiceImpl(LedgerEntryRepository ledgerEntryRepository, AccountRepository accountRepository) {
+            this(ledgerEntryRepository, accountRepository, Clock.systemUTC());
+        }
+
+        public LedgerServiceImpl(LedgerEntryRepository ledgerEntryRepository, AccountRepository accountRepository, Clock clock) {
+            this.ledgerEntryRepository = ledgerEntryRepository;
+            this.accountRepository = accountRepository;
+            this.clock = clock;
+        }
+
+        @Override
+        public void record(String idempotencyKey,
+                           AccountNumber sourceAccountNumber,
+                           AccountNumber destinationAccountNumber,
+                           String sourceCurrency,
+                           long debitMinorUnits,
+                           String destinationCurrency,
+                           long creditMinorUnits) {
+            Instant now = clock.instant();
+            ledgerEntryRepository.saveAll(List.of(
+                    new LedgerEntry(sourceAccountNumber.value(), destinationAccountNumber.value(), Direction.DEBIT,
+                            sourceCurrency, debitMinorUnits, idempotencyKey, now),
+                    new LedgerEntry(destinationAccountNumber.value(), sourceAccountNumber.value(), Direction.CREDIT,
+                            destinationCurrency, creditMinorUnits, idempotencyKey, now)
+            ));
+        }
+
+        @Override
+        public LedgerPage getTransactions(AccountNumber accountNumber, Long beforeSequence, int limit) throws NoAccountFoundException {
+            PageRequest page = PageRequest.ofSize(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+            List<LedgerEntry> entries = beforeSequence == null
+                    ? ledgerEntryRepository.findByAccountNumberOrderBySequenceDesc(accountNumber.value(), page)
+                    : ledgerEntryRepository.findByAccountNumberAndSequenceLessThanOrderBySequenceDesc(
+                    accountNumber.value(), beforeSequence, page);
+
+            // only an empty page needs to tell a quiet account from a missing one
+            if (entries.isEmpty() && accountRepository.findByAccountNumber(accountNumber.value()).isEmpty()) {
+                throw new NoAccountFoundException(accountNumber.value());
+            }
+            Long nextCursor = entries.size() < page.getPageSize() ? null : entries.get(entries.size() - 1).getSequence();
+            return new LedgerPage(entries, nextCursor);
+        }
+    }
+}
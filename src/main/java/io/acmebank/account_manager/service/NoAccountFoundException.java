@@ -1,8 +1,21 @@
 package io.acmebank.account_manager.service;
 
 public class NoAccountFoundException extends Exception {
+    private final String accountNumber;
 
+    // thrown for every unknown account a client asks about, so there is no stack trace and the message is only
+    // formatted when it is read
     public NoAccountFoundException(String accountNumber) {
-        super(String.format("No account found for account number '%s'", accountNumber));
+        super(null, null, false, false);
+        this.accountNumber = accountNumber;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    @Override
+    public String getMessage() {
+        return String.format("No account found for account number '%s'", accountNumber);
     }
 }
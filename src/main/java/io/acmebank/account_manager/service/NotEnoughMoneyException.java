@@ -2,5 +2,6 @@ package io.acmebank.account_manager.service;
 
 public class NotEnoughMoneyException extends Exception {
     public NotEnoughMoneyException() {
+        super(null, null, false, false);
     }
 }
@@ -0,0 +1,220 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.Currencies;
+import io.acmebank.account_manager.domain.FxRates;
+import io.acmebank.account_manager.domain.FxRates.Conversion;
+import org.javamoney.moneta.FastMoney;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryException;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of {@link AccountService} for the {@code reactive} profile, working on the same tables
+ * through R2DBC. Errors are signalled with the same exceptions the blocking service throws.
+ */
+public interface ReactiveAccountService {
+
+    Mono<MonetaryAmount> getBalance(AccountNumber accountNumber);
+
+    Mono<Void> transferMoney(AccountNumber sourceAccountNumber,
+                             AccountNumber destinationAccountNumber,
+                             MonetaryAmount amount);
+
+    @Service
+    @Profile("reactive")
+    class ReactiveAccountServiceImpl implements ReactiveAccountService {
+        private final DatabaseClient databaseClient;
+        private final TransactionalOperator transactionalOperator;
+        private final FxRateService fxRateService;
+        private final Clock clock;
+
+        @Autowired
+        public ReactiveAccountServiceImpl(DatabaseClient databaseClient, TransactionalOperator transactionalOperator,
+                                          FxRateService fxRateService) {
+            this(databaseClient, transactionalOperator, fxRateService, Clock.systemUTC());
+        }
+
+        public ReactiveAccountServiceImpl(DatabaseClient databaseClient, TransactionalOperator transactionalOperator,
+                                          FxRateService fxRateService, Clock clock) {
+            this.databaseClient = databaseClient;
+            this.transactionalOperator = transactionalOperator;
+            this.fxRateService = fxRateService;
+            this.clock = clock;
+        }
+
+        @Override
+        public Mono<MonetaryAmount> getBalance(AccountNumber accountNumber) {
+            // slots of a hot account (see AccountSlotOperations) are part of its balance
+            return databaseClient.sql("select a.currency, a.balance + cast(coalesce((select sum(s.balance) " +
+                            "from account_slots s where s.account_number = a.account_number), 0) as bigint) as balance " +
+                            "from accounts a where a.account_number = :accountNumber")
+                    .bind("accountNumber", accountNumber.value())
+                    .map((row, metadata) -> (MonetaryAmount) FastMoney.ofMinor(
+                            Currencies.of(row.get("currency", String.class)), row.get("balance", Long.class)))
+                    .one()
+                    .switchIfEmpty(Mono.error(() -> new NoAccountFoundException(accountNumber.value())));
+        }
+
+        @Override
+        public Mono<Void> transferMoney(AccountNumber sourceAccountNumber,
+                                        AccountNumber destinationAccountNumber,
+                                        MonetaryAmount amount) {
+            if (!amount.isPositive()) {
+                return Mono.error(new InvalidAmountException(amount));
+            }
+            long minorUnits = Currencies.toMinorUnits(amount);
+            String currency = amount.getCurrency().getCurrencyCode();
+            // both rows are locked by one statement, in account number order so opposite transfers cannot deadlock
+            return databaseClient.sql("select account_number, currency, balance from accounts " +
+                            "where account_number in (:accountNumbers) order by account_number for update")
+                    .bind("accountNumbers", List.of(sourceAccountNumber.value(), destinationAccountNumber.value()))
+                    .map((row, metadata) -> new Balance(row.get("account_number", String.class),
+                            row.get("currency", String.class), row.get("balance", Long.class)))
+                    .all()
+                    .collect(Collectors.toMap(Balance::accountNumber, Function.identity()))
+                    .flatMap(balances -> {
+                        Balance source = balances.get(sourceAccountNumber.value());
+                        if (source == null) {
+                            return Mono.error(new NoAccountFoundException(sourceAccountNumber.value()));
+                        }
+                        Balance destination = balances.get(destinationAccountNumber.value());
+                        if (destination == null) {
+                            return Mono.error(new DestinationAccountNotFoundException(destinationAccountNumber.value()));
+                        }
+                        // converted as by the blocking service, both sides with one snapshot of the rates
+                        FxRates rates = fxRateService.getRates();
+                        Conversion toSource = rates.conversion(currency, source.currency());
+                        Conversion toDestination = rates.conversion(currency, destination.currency());
+                        if (toSource == null || toDestination == null) {
+                            return Mono.error(new MonetaryException(String.format("No exchange rate to transfer %s from %s to %s",
+                                    currency, sourceAccountNumber.value(), destinationAccountNumber.value())));
+                        }
+                        // rounding never creates money, debits are rounded up and credits down
+                        long debit = toSource.convert(minorUnits, RoundingMode.CEILING);
+                        long credit = toDestination.convert(minorUnits, RoundingMode.FLOOR);
+                        if (debit == 0 || credit == 0) {
+                            return Mono.error(new AmountTooSmallException(amount));
+                        }
+                        // a hot source short on its row is topped up with its slots, as on the blocking stack
+                        Mono<Long> available = source.minorUnits() < debit
+                                ? drainSlots(sourceAccountNumber).map(drained -> Math.addExact(source.minorUnits(), drained))
+                                : Mono.just(source.minorUnits());
+                        return available.flatMap(sourceMinorUnits -> {
+                            if (sourceMinorUnits < debit) {
+                                return Mono.error(new NotEnoughMoneyException());
+                            }
+                            return applyTransfer(sourceMinorUnits, destination.minorUnits(), sourceAccountNumber,
+                                    destinationAccountNumber, source.currency(), debit, destination.currency(), credit);
+                        });
+                    })
+                    .as(transactionalOperator::transactional);
+        }
+
+        private Mono<Void> applyTransfer(long sourceMinorUnits,
+                                         long destinationMinorUnits,
+                                         AccountNumber sourceAccountNumber,
+                                         AccountNumber destinationAccountNumber,
+                                         String sourceCurrency,
+                                         long debit,
+                                         String destinationCurrency,
+                                         long credit) {
+            // a transfer to the same account only loses what rounding kept
+            long sourceBalance = Math.subtractExact(sourceMinorUnits, debit);
+            long destinationBalance = sourceAccountNumber.equals(destinationAccountNumber)
+                    ? sourceBalance + credit
+                    : Math.addExact(destinationMinorUnits, credit);
+            return updateBalance(sourceAccountNumber, sourceBalance)
+                    .then(updateBalance(destinationAccountNumber, destinationBalance))
+                    .then(nextLedgerSequence().zipWhen(debitSequence -> nextLedgerSequence()))
+                    .flatMap(sequences -> {
+                        String idempotencyKey = UUID.randomUUID().toString();
+                        Instant now = clock.instant();
+                        return insertLedgerEntry(sequences.getT1(), sourceAccountNumber, destinationAccountNumber,
+                                "DEBIT", sourceCurrency, Math.negateExact(debit), idempotencyKey, now)
+                                .then(insertLedgerEntry(sequences.getT2(), destinationAccountNumber, sourceAccountNumber,
+                                        "CREDIT", destinationCurrency, credit, idempotencyKey, now));
+                    });
+        }
+
+        // empties every slot of the account that has a balance, the slots stay locked until the transaction ends.
+        // Each slot is debited by what was read, as AccountSlotOperations does, never set to zero
+        private Mono<Long> drainSlots(AccountNumber accountNumber) {
+            return databaseClient.sql("select slot, balance from account_slots " +
+                            "where account_number = :accountNumber and balance > 0 order by slot for update")
+                    .bind("accountNumber", accountNumber.value())
+                    .map((row, metadata) -> new Slot(row.get("slot", Integer.class), row.get("balance", Long.class)))
+                    .all()
+                    .concatMap(slot -> databaseClient.sql("update account_slots set balance = balance - :taken " +
+                                    "where account_number = :accountNumber and slot = :slot")
+                            .bind("taken", slot.balance())
+                            .bind("accountNumber", accountNumber.value())
+                            .bind("slot", slot.slot())
+                            .then()
+                            .thenReturn(slot.balance()))
+                    .reduce(0L, Math::addExact);
+        }
+
+        // bumps the version as well, so optimistic transfers on the blocking stack still see the change
+        private Mono<Void> updateBalance(AccountNumber accountNumber, long minorUnits) {
+            return databaseClient.sql("update accounts set balance = :balance, version = version + 1 " +
+                            "where account_number = :accountNumber")
+                    .bind("balance", minorUnits)
+                    .bind("accountNumber", accountNumber.value())
+                    .then();
+        }
+
+        // every value fetched from ledger_sequence is left alone by Hibernate, which only hands out values from
+        // the blocks of the values it fetched itself, so one fetch is made per ledger entry
+        private Mono<Long> nextLedgerSequence() {
+            return databaseClient.sql("select next value for ledger_sequence")
+                    .map((row, metadata) -> row.get(0, Long.class))
+                    .one();
+        }
+
+        private Mono<Void> insertLedgerEntry(long sequence,
+                                             AccountNumber accountNumber,
+                                             AccountNumber counterpartyAccountNumber,
+                                             String direction,
+                                             String currency,
+                                             long amount,
+                                             String idempotencyKey,
+                                             Instant createdAt) {
+            return databaseClient.sql("insert into ledger_entries (sequence, account_number, counterparty_account_number, " +
+                            "direction, currency, amount, idempotency_key, created_at) " +
+                            "values (:sequence, :accountNumber, :counterpartyAccountNumber, :direction, :currency, " +
+                            ":amount, :idempotencyKey, :createdAt)")
+                    .bind("sequence", sequence)
+                    .bind("accountNumber", accountNumber.value())
+                    .bind("counterpartyAccountNumber", counterpartyAccountNumber.value())
+                    .bind("direction", direction)
+                    .bind("currency", currency)
+                    .bind("amount", amount)
+                    .bind("idempotencyKey", idempotencyKey)
+                    // as Hibernate writes an Instant to a timestamp column, in the JVM time zone
+                    .bind("createdAt", LocalDateTime.ofInstant(createdAt, ZoneId.systemDefault()))
+                    .then();
+        }
+
+        private record Balance(String accountNumber, String currency, long minorUnits) {
+        }
+
+        private record Slot(int slot, long balance) {
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.acmebank.account_manager.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limits keyed by a string, each allowing {@code ratePerSecond} requests with bursts of up to {@code burst}.
+ * A bucket is a single theoretical arrival time (GCRA): a request is admitted when that time is no further ahead
+ * of now than the burst allows, and moves it on by one emission interval with a compare-and-set, so there is
+ * no lock and no refill timer. Buckets left idle for {@code idleTime} are evicted, which loses nothing once the
+ * idle time covers a full refill.
+ */
+public class TokenBuckets {
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Cache<String, AtomicLong> buckets;
+    private final LongSupplier nanoClock;
+
+    public TokenBuckets(double ratePerSecond, int burst, long maximumSize, Duration idleTime) {
+        this(ratePerSecond, burst, maximumSize, idleTime, System::nanoTime);
+    }
+
+    public TokenBuckets(double ratePerSecond, int burst, long maximumSize, Duration idleTime, LongSupplier nanoClock) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(idleTime)
+                .build();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes a token for the key. Returns 0 when admitted, otherwise the nanoseconds until a request would be.
+     */
+    public long tryAcquire(String key) {
+        AtomicLong theoreticalArrival = buckets.getIfPresent(key);
+        if (theoreticalArrival == null) {
+            AtomicLong created = new AtomicLong(Long.MIN_VALUE);
+            AtomicLong existing = buckets.asMap().putIfAbsent(key, created);
+            theoreticalArrival = existing == null ? created : existing;
+        }
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long current = theoreticalArrival.get();
+            long arrival = Math.max(current, now);
+            if (arrival - now > burstToleranceNanos) {
+                return arrival - burstToleranceNanos - now;
+            }
+            if (theoreticalArrival.compareAndSet(current, arrival + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.acmebank.account_manager.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Adaptive concurrency limits of the transfers executed by {@link AccountService}, whichever way they come in: the
+ * REST endpoints, the binary protocol or the asynchronous workers. Single transfers and batches have a
+ * {@link ConcurrencyLimiter} each, as a batch takes many times longer than one transfer and would otherwise cut the
+ * limit of single transfers down to its minimum. Everything is admitted while admission control is disabled.
+ * <ul>
+ *     <li>{@code account_manager.admission.rejected} - operations rejected, {@code limit} being
+ *     {@code concurrency} or {@code batch_concurrency}</li>
+ *     <li>{@code account_manager.admission.concurrency.limit} - operations currently allowed at once, by
+ *     {@code kind}</li>
+ *     <li>{@code account_manager.admission.concurrency.in_flight} - operations executing, by {@code kind}</li>
+ * </ul>
+ */
+@Service
+public class TransferAdmission {
+    private static final long ACQUIRE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    public enum Kind {
+        TRANSFER("transfer", "concurrency"),
+        BATCH("batch", "batch_concurrency");
+
+        private final String tag;
+        private final String limit;
+
+        Kind(String tag, String limit) {
+            this.tag = tag;
+            this.limit = limit;
+        }
+    }
+
+    private final Map<Kind, ConcurrencyLimiter> limiters = new EnumMap<>(Kind.class);
+    private final Map<Kind, Counter> rejections = new EnumMap<>(Kind.class);
+
+    public TransferAdmission(AdmissionProperties properties, MeterRegistry registry) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        limiters.put(Kind.TRANSFER, new ConcurrencyLimiter(properties.getInitialConcurrency(),
+                properties.getMinConcurrency(), properties.getMaxConcurrency(), properties.getTargetLatency()));
+        limiters.put(Kind.BATCH, new ConcurrencyLimiter(properties.getBatchInitialConcurrency(),
+                properties.getBatchMinConcurrency(), properties.getBatchMaxConcurrency(),
+                properties.getBatchTargetLatency()));
+        limiters.forEach((kind, limiter) -> {
+            rejections.put(kind, Counter.builder("account_manager.admission.rejected")
+                    .description("Requests rejected by admission control")
+                    .tag("limit", kind.limit)
+                    .register(registry));
+            Gauge.builder("account_manager.admission.concurrency.limit", limiter, ConcurrencyLimiter::getLimit)
+                    .description("Operations the adaptive limiter currently allows at once")
+                    .tag("kind", kind.tag)
+                    .register(registry);
+            Gauge.builder("account_manager.admission.concurrency.in_flight", limiter, ConcurrencyLimiter::getInFlight)
+                    .description("Operations admitted and not yet completed")
+                    .tag("kind", kind.tag)
+                    .register(registry);
+        });
+    }
+
+    /**
+     * Admits an operation if the limit of its kind allows, to be ended by {@link #release(Kind, long)}.
+     */
+    public boolean tryAcquire(Kind kind) {
+        ConcurrencyLimiter limiter = limiters.get(kind);
+        if (limiter == null || limiter.tryAcquire()) {
+            return true;
+        }
+        rejections.get(kind).increment();
+        return false;
+    }
+
+    /**
+     * Waits until an operation is admitted, for callers that have nobody to reject to, such as queue workers.
+     */
+    public void acquire(Kind kind) throws InterruptedException {
+        ConcurrencyLimiter limiter = limiters.get(kind);
+        if (limiter == null) {
+            return;
+        }
+        while (!limiter.tryAcquire()) {
+            LockSupport.parkNanos(ACQUIRE_POLL_NANOS);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Ends an admitted operation, adapting the limit of its kind to its latency unless it is negative.
+     */
+    public void release(Kind kind, long latencyNanos) {
+        ConcurrencyLimiter limiter = limiters.get(kind);
+        if (limiter != null) {
+            limiter.release(latencyNanos);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.acmebank.account_manager.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters of {@link AccountService}. Every meter is registered up front and tagged only with a fixed
+ * set of values (phase, outcome, source), never with account numbers, so recording is a map lookup and an add.
+ * <ul>
+ *     <li>{@code account_manager.transfer.phase} - time spent per phase of a transfer or batch chunk</li>
+ *     <li>{@code account_manager.transfers} - transfers by outcome, batch items included</li>
+ *     <li>{@code account_manager.transfer.optimistic.retries} - attempts repeated after a version conflict</li>
+ *     <li>{@code account_manager.balance.lookup} - balance reads by where they were served from</li>
+ * </ul>
+ */
+@Component
+public class TransferMetrics {
+
+    public enum Phase {
+        // waiting for the striped in-process locks
+        LOCK_WAIT,
+        // reading the accounts, including the row lock wait when pessimistic
+        LOAD,
+        // writing the balances
+        FLUSH,
+        // writing the ledger entries
+        LEDGER,
+        // the whole transfer or chunk, from the first lock to the commit
+        TOTAL
+    }
+
+    private final Map<Phase, Timer> phases = new EnumMap<>(Phase.class);
+    private final Map<TransferStatus, Counter> outcomes = new EnumMap<>(TransferStatus.class);
+    private final Counter errors;
+    private final Counter optimisticRetries;
+    private final Timer cachedBalanceLookups;
+    private final Timer databaseBalanceLookups;
+
+    @Autowired
+    public TransferMetrics(MeterRegistry registry) {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, Timer.builder("account_manager.transfer.phase")
+                    .description("Time spent in each phase of a transfer")
+                    .tag("phase", tagValue(phase.name()))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (TransferStatus status : TransferStatus.values()) {
+            outcomes.put(status, transfersCounter(registry, tagValue(status.name())));
+        }
+        this.errors = transfersCounter(registry, "error");
+        this.optimisticRetries = Counter.builder("account_manager.transfer.optimistic.retries")
+                .description("Transfers retried after an optimistic locking conflict")
+                .register(registry);
+        this.cachedBalanceLookups = balanceLookupTimer(registry, "cache");
+        this.databaseBalanceLookups = balanceLookupTimer(registry, "database");
+    }
+
+    /**
+     * Records the time since {@code startNanos} and returns the current {@link System#nanoTime()},
+     * so consecutive phases can be chained without reading the clock twice.
+     */
+    public long record(Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        phases.get(phase).record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void outcome(TransferStatus status) {
+        outcomes.get(status).increment();
+    }
+
+    // anything else ending a transfer: currency mismatch, exhausted optimistic retries, database errors
+    public void error() {
+        errors.increment();
+    }
+
+    public void optimisticRetry() {
+        optimisticRetries.increment();
+    }
+
+    public void balanceLookup(boolean cached, long startNanos) {
+        (cached ? cachedBalanceLookups : databaseBalanceLookups).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Counter transfersCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("account_manager.transfers")
+                .description("Transfers by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Timer balanceLookupTimer(MeterRegistry registry, String source) {
+        return Timer.builder("account_manager.balance.lookup")
+                .description("Balance reads")
+                .tag("source", source)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static String tagValue(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,80 @@
+package io.acmebank.account_manager.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import java.util.Set;
+
+@ConfigurationProperties(prefix = "account-manager.transfer")
+@Validated
+public class TransferProperties {
+
+    public enum Locking {
+        // in-process lock stripes keyed by account number, held until the transaction commits
+        STRIPED,
+        // SELECT ... FOR UPDATE on both account rows
+        PESSIMISTIC,
+        // @Version check on flush, retried up to optimisticMaxAttempts times
+        OPTIMISTIC
+    }
+
+    private Locking locking = Locking.STRIPED;
+    private int lockStripes = 1024;
+    private int optimisticMaxAttempts = 5;
+    // transfers of a batch committed per transaction
+    @Min(1)
+    private int batchChunkSize = 500;
+    // accounts whose credits are spread over hotAccountSlots sub-balances instead of their own row
+    private Set<String> hotAccounts = Set.of();
+    @Min(1)
+    private int hotAccountSlots = 16;
+
+    public Locking getLocking() {
+        return locking;
+    }
+
+    public void setLocking(Locking locking) {
+        this.locking = locking;
+    }
+
+    public int getLockStripes() {
+        return lockStripes;
+    }
+
+    public void setLockStripes(int lockStripes) {
+        this.lockStripes = lockStripes;
+    }
+
+    public int getOptimisticMaxAttempts() {
+        return optimisticMaxAttempts;
+    }
+
+    public void setOptimisticMaxAttempts(int optimisticMaxAttempts) {
+        this.optimisticMaxAttempts = optimisticMaxAttempts;
+    }
+
+    public int getBatchChunkSize() {
+        return batchChunkSize;
+    }
+
+    public void setBatchChunkSize(int batchChunkSize) {
+        this.batchChunkSize = batchChunkSize;
+    }
+
+    public Set<String> getHotAccounts() {
+        return hotAccounts;
+    }
+
+    public void setHotAccounts(Set<String> hotAccounts) {
+        this.hotAccounts = hotAccounts;
+    }
+
+    public int getHotAccountSlots() {
+        return hotAccountSlots;
+    }
+
+    public void setHotAccountSlots(int hotAccountSlots) {
+        this.hotAccountSlots = hotAccountSlots;
+    }
+}
@@ -0,0 +1,7 @@
+package io.acmebank.account_manager.service;
+
+public class TransferQueueFullException extends Exception {
+    public TransferQueueFullException(int capacity) {
+        super(String.format("Transfer queue is full, %d transfers are waiting", capacity));
+    }
+}
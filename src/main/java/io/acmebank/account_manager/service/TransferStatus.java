@@ -0,0 +1,12 @@
+package io.acmebank.account_manager.service;
+
+public enum TransferStatus {
+    COMPLETED,
+    SOURCE_ACCOUNT_NOT_FOUND,
+    DESTINATION_ACCOUNT_NOT_FOUND,
+    NOT_ENOUGH_FUNDS,
+    UNSUPPORTED_CURRENCY_PAIR,
+    AMOUNT_TOO_SMALL,
+    // zero or negative
+    INVALID_AMOUNT
+}
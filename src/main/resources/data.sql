@@ -1,3 +0,0 @@
-INSERT IGNORE INTO accounts (id, account_number, currency, balance)
-VALUES ('1', '12345678', 'HKD', '100000000'),
-       ('2', '88888888', 'HKD', '100000000');
\ No newline at end of file
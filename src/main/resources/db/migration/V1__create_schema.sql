@@ -0,0 +1,37 @@
+create sequence hibernate_sequence start with 1 increment by 1;
+create sequence ledger_sequence start with 1 increment by 50;
+
+create table accounts
+(
+    id             bigint       not null primary key,
+    account_number varchar(255) not null,
+    currency       varchar(255) not null,
+    balance        bigint       not null,
+    version        bigint       not null,
+    constraint accounts_account_number_uk unique (account_number)
+);
+
+create table ledger_entries
+(
+    sequence                    bigint       not null primary key,
+    account_number              varchar(255) not null,
+    counterparty_account_number varchar(255) not null,
+    direction                   varchar(6)   not null,
+    currency                    varchar(3)   not null,
+    amount                      bigint       not null,
+    idempotency_key             varchar(64)  not null,
+    created_at                  timestamp    not null,
+    constraint ledger_entries_idempotency_key_uk unique (idempotency_key, account_number, direction)
+);
+
+create index ledger_entries_account_sequence_idx on ledger_entries (account_number, sequence);
+
+create table idempotency_keys
+(
+    idempotency_key     varchar(64) not null primary key,
+    request_fingerprint varchar(64) not null,
+    outcome             varchar(32),
+    created_at          timestamp   not null
+);
+
+create index idempotency_keys_created_at_idx on idempotency_keys (created_at);
@@ -0,0 +1,5 @@
+-- H2 streams the CSV into a single insert, the seed size only affects the first start of a database
+insert into accounts (id, account_number, currency, balance, version)
+select next value for hibernate_sequence, seed.account_number, seed.currency, cast(seed.balance as bigint), 0
+from csvread('${seed_location}') seed
+where not exists (select 1 from accounts existing where existing.account_number = seed.account_number);
@@ -0,0 +1,8 @@
+-- sub-balances of hot accounts, an account's balance is its accounts row plus all of its slots
+create table account_slots
+(
+    account_number varchar(255) not null,
+    slot           int          not null,
+    balance        bigint       not null,
+    constraint account_slots_pk primary key (account_number, slot)
+);
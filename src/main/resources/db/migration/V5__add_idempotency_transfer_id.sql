@@ -0,0 +1,2 @@
+-- id of the asynchronous transfer a key was claimed for, null for synchronous transfers
+alter table idempotency_keys add column transfer_id varchar(36);
@@ -1,17 +1,33 @@
 package io.acmebank.account_manager;
 
+import io.acmebank.account_manager.controller.AccountBulkController.BulkAccountItem;
+import io.acmebank.account_manager.controller.AccountBulkController.BulkAccountRequest;
+import io.acmebank.account_manager.controller.AccountBulkController.BulkAccountResponse;
 import io.acmebank.account_manager.controller.AccountController.AccountResponse;
+import io.acmebank.account_manager.controller.AccountController.BatchTransferItem;
+import io.acmebank.account_manager.controller.AccountController.BatchTransferRequest;
+import io.acmebank.account_manager.controller.AccountController.BatchTransferResponse;
+import io.acmebank.account_manager.controller.AccountController.BatchTransferResult;
 import io.acmebank.account_manager.controller.AccountController.AccountTransferRequest;
 import io.acmebank.account_manager.controller.AccountController.ErrorResponse;
+import io.acmebank.account_manager.controller.AccountController.TransferAcceptedResponse;
 import io.acmebank.account_manager.controller.ApiError;
+import io.acmebank.account_manager.controller.LedgerController.TransactionResponse;
+import io.acmebank.account_manager.controller.LedgerController.TransactionsResponse;
+import io.acmebank.account_manager.controller.TransferController.TransferStatusResponse;
 import io.acmebank.account_manager.repository.AccountRepository;
+import io.acmebank.account_manager.repository.IdempotencyRecordRepository;
+import io.acmebank.account_manager.repository.LedgerEntryRepository;
 import io.acmebank.account_manager.repository.entity.Account;
+import io.acmebank.account_manager.service.BalanceCache;
 import org.javamoney.moneta.FastMoney;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -19,6 +35,7 @@ import javax.money.Monetary;
 import javax.money.MonetaryAmount;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -30,9 +47,21 @@ public class AccountWebTest {
     @Autowired
     private AccountRepository repository;
 
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
     @AfterEach
     public void tearDown() {
         repository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        idempotencyRecordRepository.deleteAll();
+        balanceCache.invalidateAll();
     }
 
     @Test
@@ -101,6 +130,33 @@ public class AccountWebTest {
         );
     }
 
+    @Test
+    public void shouldTransferBetweenAccountsDeletedAndOpenedAgain() {
+        //given facts
+        repository.saveAllAndFlush(List.of(sampleAccount("123456"), sampleAccount("111111")));
+        AccountTransferRequest request = new AccountTransferRequest("111111", mockBalance());
+        // indexes the ids of both accounts
+        restTemplate.postForEntity("/accounts/123456/transfer", request, Void.TYPE);
+        repository.deleteAll();
+        balanceCache.invalidateAll();
+        repository.saveAllAndFlush(List.of(sampleAccount("123456"), sampleAccount("111111")));
+
+        //when
+        ResponseEntity<Void> response =
+                restTemplate.postForEntity("/accounts/123456/transfer", request, Void.TYPE);
+        ResponseEntity<AccountResponse> destination =
+                restTemplate.getForEntity("/accounts/111111", AccountResponse.class);
+
+        //then
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertEquals(HttpStatus.OK, destination.getStatusCode());
+        assertNotNull(destination.getBody());
+        assertTrue(destination.getBody().getBalance()
+                .isEqualTo(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 20_000L)));
+        assertTrue(repository.findByAccountNumber("123456").orElseThrow().getBalance()
+                .isEqualTo(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 0L)));
+    }
+
     @Test
     public void shouldReturn404ForTransferWhenSourceAccountIsMissing() {
         //given facts
@@ -156,6 +212,309 @@ public class AccountWebTest {
         assertEquals(ApiError.DESTINATION_ACCOUNT_NOT_FOUND.getValue(), response.getBody().getMessage());
     }
 
+    @Test
+    public void shouldReturnResultPerTransferWhenCallingTransferBatch() {
+        //given facts
+        repository.saveAllAndFlush(
+                List.of(
+                        sampleAccount("123456"),
+                        sampleAccount("111111")
+                )
+        );
+        BatchTransferRequest request = new BatchTransferRequest(List.of(
+                new BatchTransferItem("123456", "111111", mockBalance()),
+                new BatchTransferItem("123456", "111111", mockBalance()),
+                new BatchTransferItem("123456", "999999", mockBalance()),
+                new BatchTransferItem("999999", "123456", mockBalance())
+        ));
+
+        //when
+        ResponseEntity<BatchTransferResponse> response =
+                restTemplate.postForEntity("/accounts/transfers:batch", request, BatchTransferResponse.class);
+
+        //then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        List<BatchTransferResult> results = response.getBody().getResults();
+        assertEquals(4, results.size());
+        assertEquals("COMPLETED", results.get(0).getStatus());
+        assertNull(results.get(0).getError());
+        assertEquals(ApiError.NOT_ENOUGH_FUNDS.name(), results.get(1).getError());
+        assertEquals(ApiError.DESTINATION_ACCOUNT_NOT_FOUND.name(), results.get(2).getError());
+        assertEquals(ApiError.ACCOUNT_NOT_FOUND.name(), results.get(3).getError());
+        assertEquals(ApiError.ACCOUNT_NOT_FOUND.getValue(), results.get(3).getMessage());
+
+        assertTrue(repository.findByAccountNumber("123456").orElseThrow().getBalance()
+                .isEqualTo(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 0L)));
+        assertTrue(repository.findByAccountNumber("111111").orElseThrow().getBalance()
+                .isEqualTo(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 20_000L)));
+    }
+
+    @Test
+    public void shouldReturnTransactionsNewestFirstWhenCallingGetTransactions() {
+        //given facts
+        repository.saveAllAndFlush(
+                List.of(
+                        sampleAccount("123456"),
+                        sampleAccount("111111")
+                )
+        );
+        restTemplate.postForEntity("/accounts/123456/transfer",
+                new AccountTransferRequest("111111", FastMoney.ofMinor(Monetary.getCurrency("HKD"), 100L)), Void.TYPE);
+        restTemplate.postForEntity("/accounts/111111/transfer",
+                new AccountTransferRequest("123456", FastMoney.ofMinor(Monetary.getCurrency("HKD"), 30L)), Void.TYPE);
+        restTemplate.postForEntity("/accounts/123456/transfer",
+                new AccountTransferRequest("111111", FastMoney.ofMinor(Monetary.getCurrency("HKD"), 5L)), Void.TYPE);
+
+        //when
+        ResponseEntity<TransactionsResponse> firstPage =
+                restTemplate.getForEntity("/accounts/123456/transactions?limit=2", TransactionsResponse.class);
+        assertNotNull(firstPage.getBody());
+        ResponseEntity<TransactionsResponse> secondPage =
+                restTemplate.getForEntity("/accounts/123456/transactions?limit=2&before=" + firstPage.getBody().getNextCursor(),
+                        TransactionsResponse.class);
+
+        //then
+        assertEquals(HttpStatus.OK, firstPage.getStatusCode());
+        List<TransactionResponse> transactions = firstPage.getBody().getTransactions();
+        assertEquals(2, transactions.size());
+        assertTrue(FastMoney.ofMinor(Monetary.getCurrency("HKD"), -5L).isEqualTo(transactions.get(0).getAmount()));
+        assertTrue(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 30L).isEqualTo(transactions.get(1).getAmount()));
+        assertEquals("111111", transactions.get(0).getCounterpartyAccountNumber());
+
+        assertEquals(HttpStatus.OK, secondPage.getStatusCode());
+        assertNotNull(secondPage.getBody());
+        assertEquals(1, secondPage.getBody().getTransactions().size());
+        assertTrue(FastMoney.ofMinor(Monetary.getCurrency("HKD"), -100L)
+                .isEqualTo(secondPage.getBody().getTransactions().get(0).getAmount()));
+        assertNull(secondPage.getBody().getNextCursor());
+    }
+
+    @Test
+    public void shouldReturn404ForMissingAccountWhenCallingGetTransactions() {
+        //when
+        ResponseEntity<TransactionsResponse> response =
+                restTemplate.getForEntity("/accounts/11111/transactions", TransactionsResponse.class);
+
+        //then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    public void shouldExecuteTransferOnceWhenRetriedWithSameIdempotencyKey() {
+        //given facts
+        repository.saveAllAndFlush(
+                List.of(
+                        sampleAccount("123456"),
+                        sampleAccount("111111")
+                )
+        );
+        HttpEntity<AccountTransferRequest> request = withIdempotencyKey(UUID.randomUUID().toString(),
+                new AccountTransferRequest("111111", FastMoney.ofMinor(Monetary.getCurrency("HKD"), 6_000L)));
+
+        //when
+        ResponseEntity<Void> first = restTemplate.postForEntity("/accounts/123456/transfer", request, Void.TYPE);
+        ResponseEntity<Void> retry = restTemplate.postForEntity("/accounts/123456/transfer", request, Void.TYPE);
+
+        //then
+        assertEquals(HttpStatus.NO_CONTENT, first.getStatusCode());
+        assertEquals(HttpStatus.NO_CONTENT, retry.getStatusCode());
+        assertTrue(repository.findByAccountNumber("123456").orElseThrow().getBalance()
+                .isEqualTo(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 4_000L)));
+    }
+
+    @Test
+    public void shouldReturn422WhenIdempotencyKeyIsReusedForDifferentTransfer() {
+        //given facts
+        repository.saveAllAndFlush(
+                List.of(
+                        sampleAccount("123456"),
+                        sampleAccount("111111")
+                )
+        );
+        String idempotencyKey = UUID.randomUUID().toString();
+        restTemplate.postForEntity("/accounts/123456/transfer",
+                withIdempotencyKey(idempotencyKey, new AccountTransferRequest("111111", mockBalance())), Void.TYPE);
+
+        //when
+        ResponseEntity<ErrorResponse> response = restTemplate.postForEntity("/accounts/123456/transfer",
+                withIdempotencyKey(idempotencyKey,
+                        new AccountTransferRequest("111111", FastMoney.ofMinor(Monetary.getCurrency("HKD"), 1L))),
+                ErrorResponse.class);
+
+        //then
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(ApiError.IDEMPOTENCY_KEY_REUSED.name(), response.getBody().getError());
+    }
+
+    private HttpEntity<AccountTransferRequest> withIdempotencyKey(String idempotencyKey, AccountTransferRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Idempotency-Key", idempotencyKey);
+        return new HttpEntity<>(request, headers);
+    }
+
+    @Test
+    public void shouldQueueTransferAndReportItsOutcomeWhenRespondAsyncIsPreferred() throws Exception {
+        //given facts
+        repository.saveAllAndFlush(
+                List.of(
+                        sampleAccount("123456"),
+                        sampleAccount("111111")
+                )
+        );
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Prefer", "respond-async");
+        HttpEntity<AccountTransferRequest> request = new HttpEntity<>(
+                new AccountTransferRequest("111111", FastMoney.ofMinor(Monetary.getCurrency("HKD"), 6_000L)), headers);
+
+        //when
+        ResponseEntity<TransferAcceptedResponse> accepted =
+                restTemplate.postForEntity("/accounts/123456/transfer", request, TransferAcceptedResponse.class);
+        assertEquals(HttpStatus.ACCEPTED, accepted.getStatusCode());
+        assertNotNull(accepted.getBody());
+        String location = "/transfers/" + accepted.getBody().getTransferId();
+        assertEquals(location, accepted.getHeaders().getLocation().toString());
+        TransferStatusResponse status = restTemplate.getForObject(location, TransferStatusResponse.class);
+        for (int i = 0; i < 100 && "PENDING".equals(status.getStatus()); i++) {
+            Thread.sleep(50);
+            status = restTemplate.getForObject(location, TransferStatusResponse.class);
+        }
+
+        //then
+        assertEquals("COMPLETED", status.getStatus());
+        assertNull(status.getError());
+        assertTrue(repository.findByAccountNumber("123456").orElseThrow().getBalance()
+                .isEqualTo(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 4_000L)));
+    }
+
+    @Test
+    public void shouldQueueAsynchronousTransferOncePerIdempotencyKey() throws Exception {
+        //given facts
+        repository.saveAllAndFlush(
+                List.of(
+                        sampleAccount("123456"),
+                        sampleAccount("111111")
+                )
+        );
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Prefer", "respond-async");
+        headers.set("Idempotency-Key", UUID.randomUUID().toString());
+        HttpEntity<AccountTransferRequest> request = new HttpEntity<>(
+                new AccountTransferRequest("111111", FastMoney.ofMinor(Monetary.getCurrency("HKD"), 6_000L)), headers);
+
+        //when
+        ResponseEntity<TransferAcceptedResponse> accepted =
+                restTemplate.postForEntity("/accounts/123456/transfer", request, TransferAcceptedResponse.class);
+        assertEquals(HttpStatus.ACCEPTED, accepted.getStatusCode());
+        assertNotNull(accepted.getBody());
+        String location = "/transfers/" + accepted.getBody().getTransferId();
+        TransferStatusResponse status = restTemplate.getForObject(location, TransferStatusResponse.class);
+        for (int i = 0; i < 100 && "PENDING".equals(status.getStatus()); i++) {
+            Thread.sleep(50);
+            status = restTemplate.getForObject(location, TransferStatusResponse.class);
+        }
+        ResponseEntity<Void> retried = restTemplate.postForEntity("/accounts/123456/transfer", request, Void.class);
+
+        //then
+        assertEquals("COMPLETED", status.getStatus());
+        assertEquals(HttpStatus.NO_CONTENT, retried.getStatusCode());
+        assertTrue(repository.findByAccountNumber("123456").orElseThrow().getBalance()
+                .isEqualTo(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 4_000L)));
+    }
+
+    @Test
+    public void shouldReturn404ForUnknownTransfer() {
+        //when
+        ResponseEntity<TransferStatusResponse> response =
+                restTemplate.getForEntity("/transfers/" + UUID.randomUUID(), TransferStatusResponse.class);
+
+        //then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    public void shouldExportEveryAccountAsCsv() {
+        //given facts
+        repository.deleteAll();
+        repository.saveAllAndFlush(List.of(sampleAccount("123456"), sampleAccount("111111")));
+
+        //when
+        ResponseEntity<String> response = restTemplate.getForEntity("/accounts?format=csv", String.class);
+
+        //then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("account_number,currency,balance\n111111,HKD,100.00\n123456,HKD,100.00\n", response.getBody());
+    }
+
+    @Test
+    public void shouldExportOneJsonDocumentPerLine() {
+        //given facts
+        repository.deleteAll();
+        repository.saveAllAndFlush(List.of(sampleAccount("123456"), sampleAccount("111111")));
+
+        //when
+        ResponseEntity<String> response = restTemplate.getForEntity("/accounts?format=ndjson", String.class);
+
+        //then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        String[] lines = response.getBody().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("111111"));
+        assertTrue(lines[1].contains("123456"));
+    }
+
+    @Test
+    public void shouldReturn400ForUnknownExportFormat() {
+        //when
+        ResponseEntity<String> response = restTemplate.getForEntity("/accounts?format=xml", String.class);
+
+        //then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void shouldOpenEveryAccountWhenCallingBulk() {
+        //given facts
+        BulkAccountRequest request = new BulkAccountRequest(List.of(
+                new BulkAccountItem("200001", mockBalance()),
+                new BulkAccountItem("200002", mockBalance()),
+                new BulkAccountItem("200003", FastMoney.ofMinor(Monetary.getCurrency("HKD"), 0L))
+        ));
+
+        //when
+        ResponseEntity<BulkAccountResponse> response =
+                restTemplate.postForEntity("/accounts:bulk", request, BulkAccountResponse.class);
+
+        //then
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(3, response.getBody().getCreated());
+        assertTrue(repository.findByAccountNumber("200001").orElseThrow().getBalance().isEqualTo(mockBalance()));
+        assertTrue(repository.findByAccountNumber("200003").orElseThrow().getBalance().isZero());
+    }
+
+    @Test
+    public void shouldOpenNoAccountWhenBulkContainsExistingAccount() {
+        //given facts
+        repository.saveAndFlush(sampleAccount("200002"));
+        BulkAccountRequest request = new BulkAccountRequest(List.of(
+                new BulkAccountItem("200001", mockBalance()),
+                new BulkAccountItem("200002", mockBalance())
+        ));
+
+        //when
+        ResponseEntity<ErrorResponse> response =
+                restTemplate.postForEntity("/accounts:bulk", request, ErrorResponse.class);
+
+        //then
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(ApiError.ACCOUNT_ALREADY_EXISTS.name(), response.getBody().getError());
+        assertTrue(repository.findByAccountNumber("200001").isEmpty());
+    }
+
     private Account sampleAccount(String accountNumber) {
         Account account = new Account(mockBalance());
         account.setAccountNumber(accountNumber);
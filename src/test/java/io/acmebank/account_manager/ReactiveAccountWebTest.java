@@ -0,0 +1,208 @@
+package io.acmebank.account_manager;
+
+import io.acmebank.account_manager.controller.AccountController.AccountResponse;
+import io.acmebank.account_manager.controller.AccountController.AccountTransferRequest;
+import io.acmebank.account_manager.controller.AccountController.ErrorResponse;
+import io.acmebank.account_manager.controller.ApiError;
+import io.acmebank.account_manager.repository.AccountRepository;
+import io.acmebank.account_manager.repository.LedgerEntryRepository;
+import io.acmebank.account_manager.repository.entity.Account;
+import io.acmebank.account_manager.repository.entity.LedgerEntry;
+import org.javamoney.moneta.FastMoney;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+public class ReactiveAccountWebTest {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private AccountRepository repository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        repository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        jdbcTemplate.update("delete from account_slots");
+    }
+
+    @Test
+    public void shouldReturnAccountWith200WhenCallingGetAccount() {
+        //given facts
+        repository.saveAndFlush(sampleAccount("123456"));
+
+        //when
+        AccountResponse response = webTestClient.get().uri("/accounts/123456")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AccountResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        //then
+        assertNotNull(response);
+        assertTrue(mockBalance().isEqualTo(response.getBalance()));
+    }
+
+    @Test
+    public void shouldReturn404ForMissingAccountWhenCallingGetAccount() {
+        //when //then
+        webTestClient.get().uri("/accounts/11111")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void shouldMoveBalanceAndRecordLedgerWhenCallingTransfer() {
+        //given facts
+        repository.saveAllAndFlush(List.of(sampleAccount("123456"), sampleAccount("111111")));
+
+        //when
+        webTestClient.post().uri("/accounts/123456/transfer")
+                .bodyValue(new AccountTransferRequest("111111", mockBalance()))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        //then
+        assertEquals(0L, repository.findByAccountNumber("123456").orElseThrow().getBalanceMinorUnits());
+        assertEquals(20_000L, repository.findByAccountNumber("111111").orElseThrow().getBalanceMinorUnits());
+        List<LedgerEntry> debits = ledgerEntryRepository.findByAccountNumberOrderBySequenceDesc("123456", Pageable.ofSize(10));
+        List<LedgerEntry> credits = ledgerEntryRepository.findByAccountNumberOrderBySequenceDesc("111111", Pageable.ofSize(10));
+        assertEquals(1, debits.size());
+        assertEquals(1, credits.size());
+        assertEquals(LedgerEntry.Direction.DEBIT, debits.get(0).getDirection());
+        assertEquals(debits.get(0).getIdempotencyKey(), credits.get(0).getIdempotencyKey());
+    }
+
+    @Test
+    public void shouldCountSlotBalancesAsFundsWhenCallingTransfer() {
+        //given facts
+        repository.saveAllAndFlush(List.of(sampleAccount("123456"), sampleAccount("111111")));
+        repository.createSlots("123456", 2);
+        repository.creditSlot("123456", 1, 5_000L);
+
+        //when
+        webTestClient.post().uri("/accounts/123456/transfer")
+                .bodyValue(new AccountTransferRequest("111111", FastMoney.ofMinor(Monetary.getCurrency("HKD"), 12_000L)))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        //then
+        assertEquals(3_000L, repository.findByAccountNumber("123456").orElseThrow().getBalanceMinorUnits());
+        assertEquals(0L, repository.sumSlots("123456"));
+        assertEquals(22_000L, repository.findByAccountNumber("111111").orElseThrow().getBalanceMinorUnits());
+        List<LedgerEntry> debits = ledgerEntryRepository.findByAccountNumberOrderBySequenceDesc("123456", Pageable.ofSize(10));
+        List<LedgerEntry> credits = ledgerEntryRepository.findByAccountNumberOrderBySequenceDesc("111111", Pageable.ofSize(10));
+        assertTrue(debits.get(0).getSequence() < credits.get(0).getSequence());
+    }
+
+    @Test
+    public void shouldConvertAmountIntoAccountCurrencyWhenCallingTransfer() {
+        //given facts
+        repository.saveAllAndFlush(List.of(sampleAccount("123456"), sampleAccount("111111")));
+
+        //when
+        webTestClient.post().uri("/accounts/123456/transfer")
+                .bodyValue(new AccountTransferRequest("111111", FastMoney.ofMinor(Monetary.getCurrency("USD"), 1_000L)))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        //then USD 10.00 at 7.8 HKD
+        assertEquals(2_200L, repository.findByAccountNumber("123456").orElseThrow().getBalanceMinorUnits());
+        assertEquals(17_800L, repository.findByAccountNumber("111111").orElseThrow().getBalanceMinorUnits());
+        LedgerEntry credit = ledgerEntryRepository.findByAccountNumberOrderBySequenceDesc("111111", Pageable.ofSize(10)).get(0);
+        assertEquals(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 7_800L), credit.getAmount());
+    }
+
+    @Test
+    public void shouldReturn400AndKeepBalancesWhenNotEnoughFunds() {
+        //given facts
+        repository.saveAllAndFlush(List.of(sampleAccount("123456"), sampleAccount("111111")));
+
+        //when
+        ErrorResponse response = webTestClient.post().uri("/accounts/123456/transfer")
+                .bodyValue(new AccountTransferRequest("111111", FastMoney.ofMinor(Monetary.getCurrency("HKD"), 10_001L)))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ErrorResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        //then
+        assertNotNull(response);
+        assertEquals(ApiError.NOT_ENOUGH_FUNDS.name(), response.getError());
+        assertEquals(10_000L, repository.findByAccountNumber("123456").orElseThrow().getBalanceMinorUnits());
+        assertEquals(10_000L, repository.findByAccountNumber("111111").orElseThrow().getBalanceMinorUnits());
+    }
+
+    @Test
+    public void shouldReturn400WhenDestinationAccountIsMissing() {
+        //given facts
+        repository.saveAndFlush(sampleAccount("123456"));
+
+        //when
+        ErrorResponse response = webTestClient.post().uri("/accounts/123456/transfer")
+                .bodyValue(new AccountTransferRequest("111111", mockBalance()))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ErrorResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        //then
+        assertNotNull(response);
+        assertEquals(ApiError.DESTINATION_ACCOUNT_NOT_FOUND.name(), response.getError());
+    }
+
+    @Test
+    public void shouldReturn400AndKeepBalancesForNegativeAmount() {
+        //given facts
+        repository.saveAllAndFlush(List.of(sampleAccount("123456"), sampleAccount("111111")));
+
+        //when
+        ErrorResponse response = webTestClient.post().uri("/accounts/123456/transfer")
+                .bodyValue(new AccountTransferRequest("111111", FastMoney.ofMinor(Monetary.getCurrency("HKD"), -5_000L)))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ErrorResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        //then
+        assertNotNull(response);
+        assertEquals(ApiError.INVALID_AMOUNT.name(), response.getError());
+        assertEquals(10_000L, repository.findByAccountNumber("123456").orElseThrow().getBalanceMinorUnits());
+        assertEquals(10_000L, repository.findByAccountNumber("111111").orElseThrow().getBalanceMinorUnits());
+    }
+
+    private Account sampleAccount(String accountNumber) {
+        Account account = new Account(mockBalance());
+        account.setAccountNumber(accountNumber);
+        return account;
+    }
+
+    private MonetaryAmount mockBalance() {
+        return FastMoney.ofMinor(Monetary.getCurrency("HKD"), 10_000L);
+    }
+}
@@ -0,0 +1,47 @@
+package io.acmebank.account_manager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReadReplicaRoutingDataSourceTest {
+
+    @Test
+    public void shouldSendOnlyReadOnlyTransactionsToReplica() {
+        //given facts
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(
+                markedDatabase("routing-primary"), markedDatabase("routing-replica")));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate readWrite = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+
+        //when
+        String readWriteDatabase = readWrite.execute(status ->
+                jdbcTemplate.queryForObject("select name from marker", String.class));
+        String readOnlyDatabase = readOnly.execute(status ->
+                jdbcTemplate.queryForObject("select name from marker", String.class));
+        String nonTransactionalDatabase = jdbcTemplate.queryForObject("select name from marker", String.class);
+
+        //then
+        assertEquals("routing-primary", readWriteDatabase);
+        assertEquals("routing-replica", readOnlyDatabase);
+        assertEquals("routing-primary", nonTransactionalDatabase);
+    }
+
+    // a database holding its own name, so a query tells which one it ran on
+    private static DataSource markedDatabase(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table marker (name varchar(32))");
+        jdbcTemplate.update("insert into marker (name) values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,108 @@
+package io.acmebank.account_manager.binary;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.service.AccountService;
+import io.acmebank.account_manager.service.AdmissionProperties;
+import io.acmebank.account_manager.service.IdempotencyService;
+import io.acmebank.account_manager.service.TransferAdmission;
+import io.acmebank.account_manager.service.TransferStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.javamoney.moneta.FastMoney;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BinaryProtocolTest {
+    @Mock
+    AccountService accountService;
+
+    @Mock
+    IdempotencyService idempotencyService;
+
+    private BinaryProtocolServer server;
+    private BinaryProtocolClient client;
+
+    @BeforeEach
+    public void setUp() {
+        BinaryProtocolProperties properties = new BinaryProtocolProperties();
+        properties.setPort(0);
+        properties.setWorkers(4);
+        server = new BinaryProtocolServer(properties, accountService, idempotencyService,
+                new TransferAdmission(new AdmissionProperties(), new SimpleMeterRegistry()));
+        server.start();
+        client = BinaryProtocolClient.connect("localhost", server.getPort());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    public void shouldReturnBalances() throws Exception {
+        //given facts
+        when(accountService.findBalance(new AccountNumber("123456"))).thenReturn(Optional.of(amount(10_000L)));
+        when(accountService.findBalance(new AccountNumber("999999"))).thenReturn(Optional.empty());
+
+        //when
+        Optional<MonetaryAmount> balance = client.getBalance(new AccountNumber("123456")).get(5, TimeUnit.SECONDS);
+        Optional<MonetaryAmount> missing = client.getBalance(new AccountNumber("999999")).get(5, TimeUnit.SECONDS);
+
+        //then
+        assertEquals(Optional.of(amount(10_000L)), balance);
+        assertEquals(Optional.empty(), missing);
+    }
+
+    @Test
+    public void shouldMatchPipelinedTransfersToTheirOutcomes() throws Exception {
+        //given facts
+        AccountNumber source = new AccountNumber("123456");
+        AccountNumber destination = new AccountNumber("111111");
+        when(accountService.tryTransferMoney(source, destination, amount(50L))).thenReturn(TransferStatus.COMPLETED);
+        when(accountService.tryTransferMoney(source, destination, amount(1_000_000L))).thenReturn(TransferStatus.NOT_ENOUGH_FUNDS);
+
+        //when
+        List<CompletableFuture<TransferStatus>> outcomes = IntStream.range(0, 100)
+                .mapToObj(i -> client.transfer(source, destination, amount(i % 2 == 0 ? 50L : 1_000_000L)))
+                .toList();
+
+        //then
+        for (int i = 0; i < outcomes.size(); i++) {
+            assertEquals(i % 2 == 0 ? TransferStatus.COMPLETED : TransferStatus.NOT_ENOUGH_FUNDS,
+                    outcomes.get(i).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void shouldReportNonPositiveAmountAsInvalid() throws Exception {
+        //given facts
+        AccountNumber source = new AccountNumber("123456");
+        AccountNumber destination = new AccountNumber("111111");
+
+        //when
+        CompletableFuture<TransferStatus> outcome = client.transfer(source, destination, amount(-50L));
+
+        //then
+        assertEquals(TransferStatus.INVALID_AMOUNT, outcome.get(5, TimeUnit.SECONDS));
+    }
+
+    private MonetaryAmount amount(long minorUnits) {
+        return FastMoney.ofMinor(Monetary.getCurrency("HKD"), minorUnits);
+    }
+}
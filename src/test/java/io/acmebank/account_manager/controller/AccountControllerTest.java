@@ -1,21 +1,39 @@
 package io.acmebank.account_manager.controller;
 
 import io.acmebank.account_manager.controller.AccountController.AccountResponse;
+import io.acmebank.account_manager.controller.AccountController.AccountTransferRequest;
+import io.acmebank.account_manager.controller.AccountController.BalanceLookupRequest;
+import io.acmebank.account_manager.controller.AccountController.BalanceLookupResponse;
+import io.acmebank.account_manager.controller.AccountController.BalanceLookupResult;
+import io.acmebank.account_manager.controller.AccountController.BatchTransferItem;
+import io.acmebank.account_manager.controller.AccountController.BatchTransferRequest;
+import io.acmebank.account_manager.controller.AccountController.BatchTransferResponse;
+import io.acmebank.account_manager.controller.AccountController.BatchTransferResult;
+import io.acmebank.account_manager.controller.AccountController.ErrorResponse;
 import io.acmebank.account_manager.domain.AccountNumber;
 import io.acmebank.account_manager.service.AccountService;
-import io.acmebank.account_manager.service.NoAccountFoundException;
+import io.acmebank.account_manager.service.AsyncTransferService;
+import io.acmebank.account_manager.service.IdempotencyService;
+import io.acmebank.account_manager.service.TransferQueueFullException;
+import io.acmebank.account_manager.service.TransferStatus;
 import org.javamoney.moneta.FastMoney;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import javax.money.Monetary;
 import javax.money.MonetaryAmount;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,12 +41,18 @@ public class AccountControllerTest {
     @Mock
     AccountService accountService;
 
+    @Mock
+    IdempotencyService idempotencyService;
+
+    @Mock
+    AsyncTransferService asyncTransferService;
+
     @Test
     public void shouldReturn200WithBalanceForValidRequest() throws Exception {
         //given facts
-        when(accountService.getBalance(new AccountNumber("123456")))
-                .thenReturn(mockBalance());
-        AccountController controller = new AccountController(accountService);
+        when(accountService.findBalance(new AccountNumber("123456")))
+                .thenReturn(Optional.of(mockBalance()));
+        AccountController controller = new AccountController(accountService, idempotencyService, asyncTransferService);
 
         //when
         ResponseEntity<AccountResponse> response = controller.getAccount("123456");
@@ -42,9 +66,9 @@ public class AccountControllerTest {
     @Test
     public void shouldReturn404WithNoBodyForMissingAccountNumber() throws Exception {
         //given facts
-        when(accountService.getBalance(new AccountNumber("123456")))
-                .thenThrow(NoAccountFoundException.class);
-        AccountController controller = new AccountController(accountService);
+        when(accountService.findBalance(new AccountNumber("123456")))
+                .thenReturn(Optional.empty());
+        AccountController controller = new AccountController(accountService, idempotencyService, asyncTransferService);
 
         //when
         ResponseEntity<AccountResponse> response = controller.getAccount("123456");
@@ -54,6 +78,95 @@ public class AccountControllerTest {
         assertNull(response.getBody());
     }
 
+    @Test
+    public void shouldMarkMissingAccountsInBalanceLookup() {
+        //given facts
+        when(accountService.getBalances(List.of(new AccountNumber("123456"), new AccountNumber("999999"))))
+                .thenReturn(Map.of(new AccountNumber("123456"), mockBalance()));
+        AccountController controller = new AccountController(accountService, idempotencyService, asyncTransferService);
+
+        //when
+        ResponseEntity<BalanceLookupResponse> response = controller.lookupBalances(
+                new BalanceLookupRequest(List.of("123456", "999999")));
+
+        //then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        Map<String, BalanceLookupResult> balances = response.getBody().getBalances();
+        assertEquals(List.of("123456", "999999"), List.copyOf(balances.keySet()));
+        assertEquals(mockBalance(), balances.get("123456").getBalance());
+        assertNull(balances.get("123456").getError());
+        assertNull(balances.get("999999").getBalance());
+        assertEquals(ApiError.ACCOUNT_NOT_FOUND.name(), balances.get("999999").getError());
+    }
+
+    @Test
+    public void shouldReturn400WithErrorForNotEnoughFunds() {
+        //given facts
+        when(accountService.tryTransferMoney(new AccountNumber("123456"), new AccountNumber("111111"), mockBalance()))
+                .thenReturn(TransferStatus.NOT_ENOUGH_FUNDS);
+        AccountController controller = new AccountController(accountService, idempotencyService, asyncTransferService);
+
+        //when
+        ResponseEntity<?> response = controller.transfer("123456", null, null,
+                new AccountTransferRequest("111111", mockBalance()));
+
+        //then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ApiError.NOT_ENOUGH_FUNDS.name(), ((ErrorResponse) response.getBody()).getError());
+    }
+
+    @Test
+    public void shouldReturn429WhenTransferQueueIsFull() throws Exception {
+        //given facts
+        when(asyncTransferService.submit(any())).thenThrow(new TransferQueueFullException(1));
+        AccountController controller = new AccountController(accountService, idempotencyService, asyncTransferService);
+
+        //when
+        ResponseEntity<?> response = controller.transfer("123456", null, "respond-async",
+                new AccountTransferRequest("111111", mockBalance()));
+
+        //then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(ApiError.TRANSFER_QUEUE_FULL.name(), ((ErrorResponse) response.getBody()).getError());
+    }
+
+    @Test
+    public void shouldFailNegativeBatchItemAlone() {
+        //given facts
+        when(accountService.transferMoney(anyList()))
+                .thenReturn(List.of(TransferStatus.COMPLETED, TransferStatus.INVALID_AMOUNT));
+        AccountController controller = new AccountController(accountService, idempotencyService, asyncTransferService);
+
+        //when
+        ResponseEntity<BatchTransferResponse> response = controller.transferBatch(new BatchTransferRequest(List.of(
+                new BatchTransferItem("123456", "111111", mockBalance()),
+                new BatchTransferItem("111111", "123456", FastMoney.ofMinor(Monetary.getCurrency("HKD"), -10_000L)))));
+
+        //then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        List<BatchTransferResult> results = response.getBody().getResults();
+        assertEquals("COMPLETED", results.get(0).getStatus());
+        assertEquals("FAILED", results.get(1).getStatus());
+        assertEquals(ApiError.INVALID_AMOUNT.name(), results.get(1).getError());
+    }
+
+    @Test
+    public void shouldReturn400WithoutTransferringForZeroAmount() {
+        //given facts
+        AccountController controller = new AccountController(accountService, idempotencyService, asyncTransferService);
+
+        //when
+        ResponseEntity<?> response = controller.transfer("123456", null, null,
+                new AccountTransferRequest("111111", FastMoney.ofMinor(Monetary.getCurrency("HKD"), 0L)));
+
+        //then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ApiError.INVALID_AMOUNT.name(), ((ErrorResponse) response.getBody()).getError());
+    }
+
     private MonetaryAmount mockBalance() {
         return FastMoney.ofMinor(Monetary.getCurrency("HKD"), 10_000L);
     }
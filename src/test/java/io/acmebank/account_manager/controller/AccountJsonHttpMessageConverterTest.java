@@ -0,0 +1,90 @@
+package io.acmebank.account_manager.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import io.acmebank.account_manager.controller.AccountController.AccountResponse;
+import io.acmebank.account_manager.controller.AccountController.AccountTransferRequest;
+import io.acmebank.account_manager.controller.AccountController.ErrorResponse;
+import org.javamoney.moneta.FastMoney;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.zalando.jackson.datatype.money.MoneyModule;
+
+import javax.money.Monetary;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountJsonHttpMessageConverterTest {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .modulesToInstall(new MoneyModule().withDefaultFormatting())
+            .build();
+    private final AccountJsonHttpMessageConverter converter = new AccountJsonHttpMessageConverter(objectMapper);
+
+    @Test
+    public void shouldWriteTheSameJsonAsJackson() throws Exception {
+        //given facts
+        AccountResponse accountResponse = new AccountResponse(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 100_000_050L));
+        ErrorResponse errorResponse = new ErrorResponse(ApiError.NOT_ENOUGH_FUNDS);
+
+        //when
+        String account = write(accountResponse, MediaType.APPLICATION_JSON);
+        String error = write(errorResponse, MediaType.APPLICATION_JSON);
+
+        //then
+        assertEquals(objectMapper.writeValueAsString(accountResponse), account);
+        assertEquals(objectMapper.writeValueAsString(errorResponse), error);
+    }
+
+    @Test
+    public void shouldOmitFormattedAmountWhenAskedTo() throws Exception {
+        //given facts
+        AccountResponse accountResponse = new AccountResponse(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 100_000_000L));
+
+        //when
+        String account = write(accountResponse, MediaType.parseMediaType("application/json;formatted=false"));
+
+        //then
+        assertEquals("{\"balance\":{\"amount\":1000000.00,\"currency\":\"HKD\"}}", account);
+    }
+
+    @Test
+    public void shouldReadTransferRequestLikeJackson() throws Exception {
+        //given facts
+        String json = """
+                {"ignored":{"nested":[1,2]},"amount":{"currency":"HKD","amount":20000.5,"formatted":"HKD20,000.50"},
+                 "destination_account_number":"88888888"}""";
+
+        //when
+        AccountTransferRequest request = (AccountTransferRequest) converter.read(AccountTransferRequest.class,
+                new MockHttpInputMessage(json.getBytes(StandardCharsets.UTF_8)));
+
+        //then
+        AccountTransferRequest expected = objectMapper.readValue(json, AccountTransferRequest.class);
+        assertEquals(expected.getDestinationAccountNumber(), request.getDestinationAccountNumber());
+        assertEquals(expected.getAmount(), request.getAmount());
+    }
+
+    @Test
+    public void shouldRejectAmountWithoutCurrency() {
+        //given facts
+        String json = """
+                {"destination_account_number":"88888888","amount":{"amount":100}}""";
+
+        //when
+        //then
+        assertThrows(HttpMessageNotReadableException.class, () -> converter.read(AccountTransferRequest.class,
+                new MockHttpInputMessage(json.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private String write(Object body, MediaType contentType) throws Exception {
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+        converter.write(body, contentType, outputMessage);
+        return outputMessage.getBodyAsString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,82 @@
+package io.acmebank.account_manager.domain;
+
+import io.acmebank.account_manager.domain.FxRates.FxRate;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FxRatesTest {
+
+    @Test
+    public void shouldConvertMinorUnitsBothWays() {
+        //given facts
+        FxRates rates = FxRates.of(List.of(new FxRate("USD", "HKD", new BigDecimal("7.8"))));
+
+        //when
+        long hkdCents = rates.conversion("USD", "HKD").convert(10_000L);
+        long usdCents = rates.conversion("HKD", "USD").convert(7_800L);
+
+        //then
+        assertEquals(78_000L, hkdCents);
+        assertEquals(1_000L, usdCents);
+    }
+
+    @Test
+    public void shouldAdjustForFractionDigitsAndRoundHalfUp() {
+        //given facts
+        FxRates rates = FxRates.of(List.of(new FxRate("USD", "JPY", new BigDecimal("150.25"))));
+
+        //when
+        long yen = rates.conversion("USD", "JPY").convert(101L);
+        long cents = rates.conversion("JPY", "USD").convert(1L);
+
+        //then
+        // 1.01 USD is 151.7525 JPY, 1 JPY is 0.0066555... USD
+        assertEquals(152L, yen);
+        assertEquals(1L, cents);
+    }
+
+    @Test
+    public void shouldRoundSubUnitConversionsInTheGivenDirection() {
+        //given facts
+        FxRates rates = FxRates.of(List.of(new FxRate("HKD", "JPY", new BigDecimal("19"))));
+        FxRates.Conversion hkdToJpy = rates.conversion("HKD", "JPY");
+
+        //when
+        //then
+        // 0.01 HKD is 0.19 JPY
+        assertEquals(0L, hkdToJpy.convert(1L));
+        assertEquals(1L, hkdToJpy.convert(1L, RoundingMode.CEILING));
+        assertEquals(0L, hkdToJpy.convert(1L, RoundingMode.FLOOR));
+        assertEquals(-1L, hkdToJpy.convert(-1L, RoundingMode.FLOOR));
+        assertEquals(19_000_000_000_001L, hkdToJpy.convert(100_000_000_000_001L, RoundingMode.CEILING));
+        assertEquals(19_000_000_000_000L, hkdToJpy.convert(100_000_000_000_001L, RoundingMode.FLOOR));
+    }
+
+    @Test
+    public void shouldConvertAmountsWhoseProductOverflowsALong() {
+        //given facts
+        FxRates rates = FxRates.of(List.of(new FxRate("USD", "HKD", new BigDecimal("7.8"))));
+
+        //when
+        long hkdCents = rates.conversion("USD", "HKD").convert(100_000_000_000_000L);
+
+        //then
+        assertEquals(780_000_000_000_000L, hkdCents);
+    }
+
+    @Test
+    public void shouldHaveNoConversionWithoutRate() {
+        //given facts
+        FxRates rates = FxRates.of(List.of(new FxRate("USD", "HKD", new BigDecimal("7.8"))));
+
+        //when
+        //then
+        assertNull(rates.conversion("EUR", "HKD"));
+        assertEquals(123L, rates.conversion("EUR", "EUR").convert(123L));
+    }
+}
@@ -0,0 +1,109 @@
+package io.acmebank.account_manager.engine;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.repository.AccountRepository;
+import io.acmebank.account_manager.repository.entity.Account;
+import org.javamoney.moneta.FastMoney;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import javax.money.Monetary;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InMemoryAccountExportServiceTest {
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @TempDir
+    Path directory;
+
+    private InMemoryAccountService accountService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        InMemoryEngineProperties properties = new InMemoryEngineProperties();
+        properties.setDirectory(directory);
+        properties.setShards(4);
+        properties.setSegmentSize(DataSize.ofKilobytes(64));
+        accountService = new InMemoryAccountService(accountRepository, properties);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        accountService.destroy();
+    }
+
+    @Test
+    public void shouldExportBalancesHeldByTheEngine() throws Exception {
+        //given facts
+        when(accountRepository.findByAccountNumber(eq("123456")))
+                .thenReturn(Optional.of(sampleAccount("123456")));
+        accountService.getBalance(new AccountNumber("123456"));
+        when(accountRepository.findPageAfter(eq(""), eq(InMemoryAccountExportService.PAGE_SIZE)))
+                .thenReturn(List.of(sampleAccount("111111"), withBalance(sampleAccount("123456"), 1L)));
+        List<String> exported = new ArrayList<>();
+
+        //when
+        new InMemoryAccountExportService(accountRepository, accountService)
+                .exportAccounts(account -> exported.add(account.getAccountNumber() + ":" + account.getBalanceMinorUnits()));
+
+        //then
+        assertEquals(List.of("111111:10000", "123456:10000"), exported);
+    }
+
+    @Test
+    public void shouldNotTakeOverAccountsWhileExporting() throws Exception {
+        //given facts
+        List<Account> page = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            page.add(sampleAccount(String.valueOf(100_000 + i)));
+        }
+        when(accountRepository.findPageAfter(eq(""), eq(InMemoryAccountExportService.PAGE_SIZE)))
+                .thenReturn(page);
+
+        //when
+        new InMemoryAccountExportService(accountRepository, accountService).exportAccounts(account -> {
+        });
+
+        //then
+        assertEquals(0, accountService.size());
+        assertEquals(0, loggedRecords());
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+    }
+
+    private int loggedRecords() throws Exception {
+        AtomicInteger records = new AtomicInteger();
+        for (long index : WriteAheadLog.segmentIndexes(directory)) {
+            WriteAheadLog.read(WriteAheadLog.segmentFile(directory, index), record -> records.incrementAndGet());
+        }
+        return records.get();
+    }
+
+    private Account withBalance(Account account, long minorUnits) {
+        account.setBalanceMinorUnits(minorUnits);
+        return account;
+    }
+
+    private Account sampleAccount(String accountNumber) {
+        Account account = new Account(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 10_000L));
+        account.setAccountNumber(accountNumber);
+        return account;
+    }
+}
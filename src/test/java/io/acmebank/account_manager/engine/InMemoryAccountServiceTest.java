@@ -0,0 +1,174 @@
+package io.acmebank.account_manager.engine;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.repository.entity.Account;
+import io.acmebank.account_manager.service.AccountService;
+import io.acmebank.account_manager.service.AccountServiceContractTest;
+import org.javamoney.moneta.function.MonetaryQueries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import javax.money.MonetaryAmount;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class InMemoryAccountServiceTest extends AccountServiceContractTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<InMemoryAccountService> services = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        for (InMemoryAccountService service : services) {
+            service.destroy();
+        }
+    }
+
+    @Test
+    public void shouldLoadAccountFromDatabaseOnce() throws Exception {
+        //given facts
+        AccountNumber accountNumber = new AccountNumber("123456");
+        stubAccounts(accountNumber);
+        InMemoryAccountService service = newService();
+
+        //when
+        service.getBalance(accountNumber);
+        service.getBalance(accountNumber);
+
+        //then
+        verify(accountRepository, times(1)).findByAccountNumber(accountNumber.value());
+    }
+
+    @Test
+    public void shouldRecoverBalancesFromLogAfterRestart() throws Exception {
+        //given facts
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
+        stubAccounts(sourceAccountNumber, destinationAccountNumber);
+        InMemoryAccountService service = newService();
+        service.transferMoney(sourceAccountNumber, destinationAccountNumber, hkd(50L));
+        service.transferMoney(destinationAccountNumber, sourceAccountNumber, hkd(20L));
+        service.destroy();
+        services.remove(service);
+
+        //when
+        InMemoryAccountService recovered = newService();
+
+        //then
+        assertEquals(9_970L, balance(recovered, sourceAccountNumber));
+        assertEquals(10_030L, balance(recovered, destinationAccountNumber));
+        verify(accountRepository, times(1)).findByAccountNumber(sourceAccountNumber.value());
+        verify(accountRepository, times(1)).findByAccountNumber(destinationAccountNumber.value());
+    }
+
+    @Test
+    public void shouldRecoverBalancesFromSnapshotAndLaterLog() throws Exception {
+        //given facts
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
+        stubAccounts(sourceAccountNumber, destinationAccountNumber);
+        InMemoryAccountService service = newService();
+        service.transferMoney(sourceAccountNumber, destinationAccountNumber, hkd(50L));
+        service.snapshot();
+        service.transferMoney(sourceAccountNumber, destinationAccountNumber, hkd(50L));
+        service.destroy();
+        services.remove(service);
+
+        //when
+        InMemoryAccountService recovered = newService();
+
+        //then
+        assertEquals(9_900L, balance(recovered, sourceAccountNumber));
+        assertEquals(10_100L, balance(recovered, destinationAccountNumber));
+        assertFalse(Files.exists(WriteAheadLog.segmentFile(directory, 0)));
+    }
+
+    @Test
+    public void shouldLogAccountsOnFirstChangeRatherThanOnRead() throws Exception {
+        //given facts
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
+        stubAccounts(sourceAccountNumber, destinationAccountNumber);
+        InMemoryAccountService service = newService();
+        service.getBalance(sourceAccountNumber);
+        service.getBalances(List.of(sourceAccountNumber, destinationAccountNumber));
+        int loggedByReads = loggedRecords();
+
+        //when
+        service.transferMoney(sourceAccountNumber, destinationAccountNumber, hkd(50L));
+        service.destroy();
+        services.remove(service);
+        InMemoryAccountService recovered = newService();
+
+        //then
+        assertEquals(0, loggedByReads);
+        assertEquals(9_950L, balance(recovered, sourceAccountNumber));
+        assertEquals(10_050L, balance(recovered, destinationAccountNumber));
+    }
+
+    @Test
+    public void shouldKeepOneSegmentWhileIdle() throws Exception {
+        //given facts
+        InMemoryAccountService service = newService();
+        service.snapshot();
+        service.destroy();
+        services.remove(service);
+        InMemoryAccountService restarted = newService();
+
+        //when
+        restarted.snapshot();
+        restarted.snapshot();
+
+        //then
+        assertEquals(List.of(0L), WriteAheadLog.segmentIndexes(directory));
+    }
+
+    @Override
+    protected InMemoryAccountService newService() throws Exception {
+        InMemoryEngineProperties properties = new InMemoryEngineProperties();
+        properties.setDirectory(directory);
+        properties.setShards(4);
+        properties.setSegmentSize(DataSize.ofKilobytes(64));
+        InMemoryAccountService service = new InMemoryAccountService(accountRepository, properties);
+        services.add(service);
+        return service;
+    }
+
+    private int loggedRecords() throws Exception {
+        AtomicInteger records = new AtomicInteger();
+        for (long index : WriteAheadLog.segmentIndexes(directory)) {
+            WriteAheadLog.read(WriteAheadLog.segmentFile(directory, index), record -> records.incrementAndGet());
+        }
+        return records.get();
+    }
+
+    @Override
+    protected void stubAccounts(AccountNumber... accountNumbers) {
+        for (AccountNumber accountNumber : accountNumbers) {
+            lenient().when(accountRepository.findByAccountNumber(eq(accountNumber.value())))
+                    .thenReturn(Optional.of(new Account(mockBalance())));
+        }
+    }
+
+    @Override
+    protected long balance(AccountService service, AccountNumber accountNumber) throws Exception {
+        return service.getBalance(accountNumber).query(MonetaryQueries.convertMinorPart());
+    }
+
+    private MonetaryAmount mockBalance() {
+        return hkd(10_000L);
+    }
+}
@@ -0,0 +1,56 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AccountIdIndexTest {
+
+    @Test
+    public void shouldResolveIdsPastInitialCapacity() {
+        //given facts
+        AccountIdIndex index = new AccountIdIndex(16);
+
+        //when
+        for (int i = 0; i < 10_000; i++) {
+            index.put(Integer.toString(10_000_000 + i), i);
+        }
+
+        //then
+        assertEquals(10_000L, index.size());
+        assertEquals(0L, index.get(new AccountNumber("10000000")));
+        assertEquals(9_999L, index.get(new AccountNumber("10009999")));
+        assertEquals(AccountIdIndex.NO_ID, index.get(new AccountNumber("10010000")));
+    }
+
+    @Test
+    public void shouldKeepNonNumericAccountNumbersApart() {
+        //given facts
+        AccountIdIndex index = new AccountIdIndex(16);
+
+        //when
+        index.put("123456", 1L);
+        index.put("0123456", 2L);
+        index.put("HK-123456", 3L);
+
+        //then
+        assertEquals(1L, index.get(new AccountNumber("123456")));
+        assertEquals(2L, index.get(new AccountNumber("0123456")));
+        assertEquals(3L, index.get(new AccountNumber("HK-123456")));
+        assertEquals(3L, index.size());
+    }
+
+    @Test
+    public void shouldNotIndexWhenDisabled() {
+        //given facts
+        AccountIdIndex index = AccountIdIndex.disabled();
+
+        //when
+        index.put("123456", 1L);
+
+        //then
+        assertEquals(AccountIdIndex.NO_ID, index.get(new AccountNumber("123456")));
+        assertEquals(0L, index.offHeapBytes());
+    }
+}
@@ -0,0 +1,51 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.NewAccount;
+import io.acmebank.account_manager.repository.AccountBalanceView;
+import io.acmebank.account_manager.repository.AccountRepository;
+import org.javamoney.moneta.FastMoney;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import javax.money.Monetary;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountOpeningServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountBalanceView existing;
+
+    @Test
+    public void shouldReportAccountOpenedConcurrentlyAsAlreadyExisting() {
+        //given facts
+        when(existing.getAccountNumber()).thenReturn("200001");
+        // free when checked, taken by a concurrent request by the time of the insert
+        when(accountRepository.findBalancesByAccountNumberIn(anySet())).thenReturn(List.of(), List.of(existing));
+        when(accountRepository.saveAllAndFlush(anyList()))
+                .thenThrow(new DataIntegrityViolationException("accounts_account_number_uk"));
+        AccountIdIndex accountIdIndex = new AccountIdIndex(16);
+        AccountOpeningService service = new AccountOpeningService.AccountOpeningServiceImpl(accountRepository,
+                TransactionOperations.withoutTransaction(), accountIdIndex);
+
+        //when
+        //then
+        assertThrows(AccountAlreadyExistsException.class, () -> service.openAccounts(List.of(
+                new NewAccount(new AccountNumber("200001"), FastMoney.ofMinor(Monetary.getCurrency("HKD"), 100L)))));
+        assertEquals(0L, accountIdIndex.size());
+    }
+}
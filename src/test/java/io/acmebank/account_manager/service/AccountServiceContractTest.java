@@ -0,0 +1,163 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.Transfer;
+import io.acmebank.account_manager.repository.AccountRepository;
+import org.javamoney.moneta.FastMoney;
+import org.javamoney.moneta.function.MonetaryQueries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Behaviour every {@link AccountService} implementation shares, run once per implementation by its subclass.
+ * Accounts that are not stubbed do not exist.
+ */
+@ExtendWith(MockitoExtension.class)
+public abstract class AccountServiceContractTest {
+
+    @Mock
+    protected AccountRepository accountRepository;
+
+    protected abstract AccountService newService() throws Exception;
+
+    /**
+     * Makes the accounts exist with 10 000 HKD minor units, for whichever queries the implementation makes.
+     */
+    protected abstract void stubAccounts(AccountNumber... accountNumbers);
+
+    /**
+     * Balance of an account in minor units as the implementation stores it.
+     */
+    protected abstract long balance(AccountService service, AccountNumber accountNumber) throws Exception;
+
+    @Test
+    public void shouldReturnBalanceForAccount() throws Exception {
+        //given facts
+        AccountNumber accountNumber = new AccountNumber("123456");
+        stubAccounts(accountNumber);
+
+        //when
+        AccountService service = newService();
+        service.getBalance(accountNumber);
+        var balance = service.getBalance(accountNumber);
+
+        //then
+        assertEquals(10_000L, balance.query(MonetaryQueries.convertMinorPart()));
+        assertEquals("HKD", balance.getCurrency().getCurrencyCode());
+    }
+
+    @Test
+    public void shouldThrowNoAccountFoundWhenQueryReturnsNoResults() throws Exception {
+        //given facts
+        AccountNumber accountNumber = new AccountNumber("123456");
+
+        //when
+        AccountService service = newService();
+
+        //then
+        assertThrows(NoAccountFoundException.class, () -> service.getBalance(accountNumber));
+    }
+
+    @Test
+    public void shouldTransferAmountCorrectlyFromOneAccountToAnotherAccount() throws Exception {
+        //given facts
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
+        stubAccounts(sourceAccountNumber, destinationAccountNumber);
+
+        //when
+        AccountService service = newService();
+        service.transferMoney(sourceAccountNumber, destinationAccountNumber, hkd(50L));
+
+        //then
+        assertEquals(9_950L, balance(service, sourceAccountNumber));
+        assertEquals(10_050L, balance(service, destinationAccountNumber));
+    }
+
+    @Test
+    public void shouldThrowNoAccountNotFoundForMissingSourceAccount() throws Exception {
+        //given facts
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+
+        //when
+        AccountService service = newService();
+
+        //then
+        assertThrows(NoAccountFoundException.class, () -> service.transferMoney(
+                sourceAccountNumber, new AccountNumber("123123"), hkd(50L)));
+    }
+
+    @Test
+    public void shouldThrowNotEnoughMoneyForNotSufficientBalance() throws Exception {
+        //given facts
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
+        stubAccounts(sourceAccountNumber, destinationAccountNumber);
+
+        //when
+        AccountService service = newService();
+
+        //then
+        assertThrows(NotEnoughMoneyException.class, () -> service.transferMoney(
+                sourceAccountNumber, destinationAccountNumber, hkd(10_001L)));
+        assertEquals(10_000L, balance(service, sourceAccountNumber));
+        assertEquals(10_000L, balance(service, destinationAccountNumber));
+    }
+
+    @Test
+    public void shouldThrowDestinationAccountNotFoundForMissingDestinationAccount() throws Exception {
+        //given facts
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
+        stubAccounts(sourceAccountNumber);
+
+        //when
+        AccountService service = newService();
+
+        //then
+        assertThrows(DestinationAccountNotFoundException.class, () -> service.transferMoney(
+                sourceAccountNumber, destinationAccountNumber, hkd(50L)));
+    }
+
+    @Test
+    public void shouldApplyBatchTransfersInOrderWithStatusPerTransfer() throws Exception {
+        //given facts
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
+        AccountNumber missingAccountNumber = new AccountNumber("999999");
+        stubAccounts(sourceAccountNumber, destinationAccountNumber);
+        MonetaryAmount amount = hkd(6_000L);
+
+        //when
+        AccountService service = newService();
+        List<TransferStatus> statuses = service.transferMoney(List.of(
+                new Transfer(sourceAccountNumber, destinationAccountNumber, amount),
+                new Transfer(sourceAccountNumber, destinationAccountNumber, amount),
+                new Transfer(sourceAccountNumber, missingAccountNumber, amount),
+                new Transfer(missingAccountNumber, destinationAccountNumber, amount)
+        ));
+
+        //then
+        assertEquals(List.of(
+                TransferStatus.COMPLETED,
+                TransferStatus.NOT_ENOUGH_FUNDS,
+                TransferStatus.DESTINATION_ACCOUNT_NOT_FOUND,
+                TransferStatus.SOURCE_ACCOUNT_NOT_FOUND
+        ), statuses);
+        assertEquals(4_000L, balance(service, sourceAccountNumber));
+        assertEquals(16_000L, balance(service, destinationAccountNumber));
+    }
+
+    protected MonetaryAmount hkd(long minorUnits) {
+        return FastMoney.ofMinor(Monetary.getCurrency("HKD"), minorUnits);
+    }
+}
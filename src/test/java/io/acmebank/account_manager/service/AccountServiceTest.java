@@ -1,64 +1,118 @@
 package io.acmebank.account_manager.service;
 
 import io.acmebank.account_manager.domain.AccountNumber;
-import io.acmebank.account_manager.repository.AccountRepository;
+import io.acmebank.account_manager.domain.FxRates;
+import io.acmebank.account_manager.domain.FxRates.FxRate;
+import io.acmebank.account_manager.domain.Transfer;
+import io.acmebank.account_manager.repository.AccountBalanceView;
 import io.acmebank.account_manager.repository.entity.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.javamoney.moneta.FastMoney;
 import org.javamoney.moneta.function.MonetaryQueries;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
 
 import javax.money.Monetary;
 import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
-@ExtendWith(MockitoExtension.class)
-public class AccountServiceTest {
+public class AccountServiceTest extends AccountServiceContractTest {
 
     @Mock
-    AccountRepository accountRepository;
+    LedgerService ledgerService;
+
+    private final Map<String, Account> accounts = new HashMap<>();
+
+    @Override
+    protected AccountService newService() {
+        return new AccountService.AccountServiceImpl(accountRepository, ledgerService);
+    }
+
+    @Override
+    protected void stubAccounts(AccountNumber... accountNumbers) {
+        for (AccountNumber accountNumber : accountNumbers) {
+            Account account = new Account(mockBalance());
+            account.setAccountNumber(accountNumber.value());
+            accounts.put(accountNumber.value(), account);
+            lenient().when(accountRepository.findByAccountNumber(eq(accountNumber.value())))
+                    .thenReturn(Optional.of(account));
+            lenient().when(accountRepository.findBalanceByAccountNumber(eq(accountNumber.value())))
+                    .thenAnswer(invocation -> Optional.of(new BalanceView(accountNumber.value(), "HKD",
+                            account.getBalanceMinorUnits(), 0L, 1L)));
+        }
+        lenient().when(accountRepository.findAllForBatch(anyCollection(), eq(false))).thenAnswer(invocation -> {
+            Collection<String> requested = invocation.getArgument(0);
+            return requested.stream().map(accounts::get).filter(Objects::nonNull).toList();
+        });
+    }
+
+    @Override
+    protected long balance(AccountService service, AccountNumber accountNumber) {
+        return accountAmount(accounts.get(accountNumber.value()));
+    }
 
     @Test
-    public void shouldReturnBalanceForAccount() throws Exception {
+    public void shouldFlushAccountsAndRecordLedgerWhenTransferring() throws Exception {
         //given facts
-        AccountNumber accountNumber = new AccountNumber("123456");
-        when(accountRepository.findByAccountNumber(eq(accountNumber.value())))
-                .thenReturn(Optional.of(new Account(mockBalance())));
+        Account sourceAccount = new Account(mockBalance());
+        Account destinationAccount = new Account(mockBalance());
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
+        when(accountRepository.findByAccountNumber(eq(sourceAccountNumber.value())))
+                .thenReturn(Optional.of(sourceAccount));
+        when(accountRepository.findByAccountNumber(eq(destinationAccountNumber.value())))
+                .thenReturn(Optional.of(destinationAccount));
 
         //when
-        AccountService service = new AccountService.AccountServiceImpl(accountRepository);
-        var balance = service.getBalance(new AccountNumber("123456"));
+        AccountService service = new AccountService.AccountServiceImpl(accountRepository, ledgerService);
+        service.transferMoney(
+                sourceAccountNumber,
+                destinationAccountNumber,
+                FastMoney.ofMinor(Monetary.getCurrency("HKD"), 50L)
+        );
 
         //then
-        assertEquals(10_000L, balance.query(MonetaryQueries.convertMinorPart()));
-        assertEquals("HKD", balance.getCurrency().getCurrencyCode());
+        verify(accountRepository, times(1)).saveAllAndFlush(anyList());
+        verify(ledgerService, times(1)).record(anyString(), eq(sourceAccountNumber), eq(destinationAccountNumber), eq("HKD"), eq(50L), eq("HKD"), eq(50L));
+        assertEquals(9950L, service.getBalance(sourceAccountNumber).query(MonetaryQueries.convertMinorPart()));
+        verify(accountRepository, times(1)).findByAccountNumber(sourceAccountNumber.value());
     }
 
     @Test
-    public void shouldThrowNoAccountFoundWhenQueryReturnsNoResults() {
+    public void shouldServeRepeatedBalanceReadsFromCache() throws Exception {
         //given facts
         AccountNumber accountNumber = new AccountNumber("123456");
-        when(accountRepository.findByAccountNumber(eq(accountNumber.value())))
-                .thenReturn(Optional.empty());
+        when(accountRepository.findBalanceByAccountNumber(eq(accountNumber.value())))
+                .thenReturn(Optional.of(new BalanceView(accountNumber.value(), "HKD", 10_000L, 0L, 1L)));
 
         //when
-        AccountService service = new AccountService.AccountServiceImpl(accountRepository);
+        AccountService service = new AccountService.AccountServiceImpl(accountRepository, ledgerService);
+        service.getBalance(accountNumber);
+        var balance = service.getBalance(accountNumber);
 
         //then
-        assertThrows(NoAccountFoundException.class, () -> service.getBalance(accountNumber));
+        assertEquals(10_000L, balance.query(MonetaryQueries.convertMinorPart()));
+        verify(accountRepository, times(1)).findBalanceByAccountNumber(accountNumber.value());
     }
 
     @Test
-    public void shouldTransferAmountCorrectlyFromOneAccountToAnotherAccount() throws Exception{
+    public void shouldRunOnCompletedAfterLedgerOnlyForCompletedTransfer() {
         //given facts
-        Account sourceAccount = new Account(mockBalance());
+        Account sourceAccount = new Account(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 100L));
         Account destinationAccount = new Account(mockBalance());
         AccountNumber sourceAccountNumber = new AccountNumber("123456");
         AccountNumber destinationAccountNumber = new AccountNumber("111111");
@@ -66,41 +120,87 @@ public class AccountServiceTest {
                 .thenReturn(Optional.of(sourceAccount));
         when(accountRepository.findByAccountNumber(eq(destinationAccountNumber.value())))
                 .thenReturn(Optional.of(destinationAccount));
+        Runnable onCompleted = mock(Runnable.class);
+        AccountService service = new AccountService.AccountServiceImpl(accountRepository, ledgerService);
 
         //when
-        AccountService service = new AccountService.AccountServiceImpl(accountRepository);
-        service.transferMoney(
-                sourceAccountNumber,
-                destinationAccountNumber,
-                FastMoney.ofMinor(Monetary.getCurrency("HKD"), 50L)
-        );
+        TransferStatus completed = service.tryTransferMoney(sourceAccountNumber, destinationAccountNumber,
+                FastMoney.ofMinor(Monetary.getCurrency("HKD"), 60L), "key-1", onCompleted);
+        TransferStatus notEnoughFunds = service.tryTransferMoney(sourceAccountNumber, destinationAccountNumber,
+                FastMoney.ofMinor(Monetary.getCurrency("HKD"), 60L), "key-2", onCompleted);
 
         //then
-        assertEquals(9950L, accountAmount(sourceAccount));
-        assertEquals(10050L, accountAmount(destinationAccount));
-        verify(accountRepository, times(1)).saveAllAndFlush(anyList());
+        assertEquals(TransferStatus.COMPLETED, completed);
+        assertEquals(TransferStatus.NOT_ENOUGH_FUNDS, notEnoughFunds);
+        InOrder inOrder = inOrder(ledgerService, onCompleted);
+        inOrder.verify(ledgerService).record(eq("key-1"), eq(sourceAccountNumber), eq(destinationAccountNumber),
+                eq("HKD"), eq(60L), eq("HKD"), eq(60L));
+        inOrder.verify(onCompleted).run();
+        verifyNoMoreInteractions(onCompleted);
     }
 
     @Test
-    public void shouldThrowNoAccountNotFoundForMissingSourceAccount() {
+    public void shouldConvertCrossCurrencyTransferIntoEachAccountsCurrency() {
         //given facts
+        Account sourceAccount = new Account(FastMoney.ofMinor(Monetary.getCurrency("USD"), 10_000L));
+        Account destinationAccount = new Account(mockBalance());
         AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
         when(accountRepository.findByAccountNumber(eq(sourceAccountNumber.value())))
-                .thenReturn(Optional.empty());
+                .thenReturn(Optional.of(sourceAccount));
+        when(accountRepository.findByAccountNumber(eq(destinationAccountNumber.value())))
+                .thenReturn(Optional.of(destinationAccount));
+        FxRates rates = FxRates.of(List.of(new FxRate("USD", "HKD", new BigDecimal("7.8"))));
+        AccountService service = new AccountService.AccountServiceImpl(accountRepository, ledgerService, () -> rates);
 
         //when
-        AccountService service = new AccountService.AccountServiceImpl(accountRepository);
+        TransferStatus converted = service.tryTransferMoney(sourceAccountNumber, destinationAccountNumber,
+                FastMoney.ofMinor(Monetary.getCurrency("HKD"), 7_800L));
+        TransferStatus unsupported = service.tryTransferMoney(sourceAccountNumber, destinationAccountNumber,
+                FastMoney.ofMinor(Monetary.getCurrency("EUR"), 100L));
 
         //then
-        assertThrows(NoAccountFoundException.class, () -> service.transferMoney(
-                sourceAccountNumber,
-                new AccountNumber("123123"),
-                FastMoney.ofMinor(Monetary.getCurrency("HKD"), 50L)
-        ));
+        assertEquals(TransferStatus.COMPLETED, converted);
+        assertEquals(TransferStatus.UNSUPPORTED_CURRENCY_PAIR, unsupported);
+        assertEquals(9_000L, accountAmount(sourceAccount));
+        assertEquals(17_800L, accountAmount(destinationAccount));
+        verify(ledgerService, times(1)).record(anyString(), eq(sourceAccountNumber), eq(destinationAccountNumber),
+                eq("USD"), eq(1_000L), eq("HKD"), eq(7_800L));
+    }
+
+    @Test
+    public void shouldRoundDebitsUpAndCreditsDownAndRefuseAmountsConvertingToNothing() {
+        //given facts
+        Account yenAccount = new Account(FastMoney.ofMinor(Monetary.getCurrency("JPY"), 100L));
+        Account dollarAccount = new Account(mockBalance());
+        AccountNumber yenAccountNumber = new AccountNumber("123456");
+        AccountNumber dollarAccountNumber = new AccountNumber("111111");
+        when(accountRepository.findByAccountNumber(eq(yenAccountNumber.value())))
+                .thenReturn(Optional.of(yenAccount));
+        when(accountRepository.findByAccountNumber(eq(dollarAccountNumber.value())))
+                .thenReturn(Optional.of(dollarAccount));
+        FxRates rates = FxRates.of(List.of(new FxRate("HKD", "JPY", new BigDecimal("19"))));
+        AccountService service = new AccountService.AccountServiceImpl(accountRepository, ledgerService, () -> rates);
+        long dollarBalance = accountAmount(dollarAccount);
+
+        //when
+        // 0.01 HKD is 0.19 JPY
+        TransferStatus toDollars = service.tryTransferMoney(yenAccountNumber, dollarAccountNumber,
+                FastMoney.ofMinor(Monetary.getCurrency("HKD"), 1L));
+        TransferStatus toYen = service.tryTransferMoney(dollarAccountNumber, yenAccountNumber,
+                FastMoney.ofMinor(Monetary.getCurrency("HKD"), 1L));
+
+        //then
+        assertEquals(TransferStatus.COMPLETED, toDollars);
+        assertEquals(TransferStatus.AMOUNT_TOO_SMALL, toYen);
+        assertEquals(99L, accountAmount(yenAccount));
+        assertEquals(dollarBalance + 1L, accountAmount(dollarAccount));
+        verify(ledgerService, times(1)).record(anyString(), eq(yenAccountNumber), eq(dollarAccountNumber),
+                eq("JPY"), eq(1L), eq("HKD"), eq(1L));
     }
 
     @Test
-    public void shouldThrowNotEnoughMoneyForNotSufficientBalance() {
+    public void shouldReturnNotEnoughFundsWithoutThrowing() {
         //given facts
         Account sourceAccount = new Account(FastMoney.of(0L, "HKD"));
         Account destinationAccount = new Account(mockBalance());
@@ -110,38 +210,245 @@ public class AccountServiceTest {
                 .thenReturn(Optional.of(sourceAccount));
         when(accountRepository.findByAccountNumber(eq(destinationAccountNumber.value())))
                 .thenReturn(Optional.of(destinationAccount));
+        AccountService service = new AccountService.AccountServiceImpl(accountRepository, ledgerService);
 
         //when
-        AccountService service = new AccountService.AccountServiceImpl(accountRepository);
+        TransferStatus status = service.tryTransferMoney(sourceAccountNumber, destinationAccountNumber,
+                FastMoney.ofMinor(Monetary.getCurrency("HKD"), 50L));
 
         //then
-        assertThrows(NotEnoughMoneyException.class, () -> service.transferMoney(
-                sourceAccountNumber,
-                new AccountNumber("111111"),
-                FastMoney.ofMinor(Monetary.getCurrency("HKD"), 50L)
+        assertEquals(TransferStatus.NOT_ENOUGH_FUNDS, status);
+        assertEquals(0L, accountAmount(sourceAccount));
+        verify(accountRepository, never()).saveAllAndFlush(any());
+    }
+
+    @Test
+    public void shouldUpdateBatchAtOnceAndRecordLedgerOfCompletedTransfersOnly() {
+        //given facts
+        Account sourceAccount = new Account(mockBalance());
+        sourceAccount.setAccountNumber("123456");
+        Account destinationAccount = new Account(mockBalance());
+        destinationAccount.setAccountNumber("111111");
+        when(accountRepository.findAllForBatch(anyCollection(), eq(false)))
+                .thenReturn(List.of(sourceAccount, destinationAccount));
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
+        MonetaryAmount amount = FastMoney.ofMinor(Monetary.getCurrency("HKD"), 6_000L);
+
+        //when
+        AccountService service = new AccountService.AccountServiceImpl(accountRepository, ledgerService);
+        List<TransferStatus> statuses = service.transferMoney(List.of(
+                new Transfer(sourceAccountNumber, destinationAccountNumber, amount),
+                new Transfer(sourceAccountNumber, destinationAccountNumber, amount),
+                new Transfer(sourceAccountNumber, new AccountNumber("999999"), amount),
+                new Transfer(new AccountNumber("999999"), destinationAccountNumber, amount)
         ));
+
+        //then
+        assertEquals(TransferStatus.COMPLETED, statuses.get(0));
+        verify(accountRepository, times(1)).updateBalances(anyList());
+        verify(ledgerService, times(1)).record(anyString(), eq(sourceAccountNumber), eq(destinationAccountNumber), eq("HKD"), eq(6_000L), eq("HKD"), eq(6_000L));
     }
 
     @Test
-    public void shouldThrowDestinationAccountNotFoundForMissingDestinationAccount() {
+    public void shouldWriteIdempotencyKeyOfBatchTransferToLedger() {
+        //given facts
+        Account sourceAccount = new Account(mockBalance());
+        sourceAccount.setAccountNumber("123456");
+        Account destinationAccount = new Account(mockBalance());
+        destinationAccount.setAccountNumber("111111");
+        when(accountRepository.findAllForBatch(anyCollection(), eq(false)))
+                .thenReturn(List.of(sourceAccount, destinationAccount));
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
+        MonetaryAmount amount = FastMoney.ofMinor(Monetary.getCurrency("HKD"), 1_000L);
+
+        //when
+        AccountService service = new AccountService.AccountServiceImpl(accountRepository, ledgerService);
+        service.transferMoney(List.of(new Transfer(sourceAccountNumber, destinationAccountNumber, amount, "key-1")));
+
+        //then
+        verify(ledgerService, times(1)).record(eq("key-1"), eq(sourceAccountNumber), eq(destinationAccountNumber),
+                eq("HKD"), eq(1_000L), eq("HKD"), eq(1_000L));
+    }
+
+    @Test
+    public void shouldRefuseNegativeAmountsWithoutTouchingTheAccounts() {
+        //given facts
+        Account sourceAccount = new Account(mockBalance());
+        sourceAccount.setAccountNumber("123456");
+        Account destinationAccount = new Account(mockBalance());
+        destinationAccount.setAccountNumber("111111");
+        when(accountRepository.findAllForBatch(anyCollection(), eq(false)))
+                .thenReturn(List.of(sourceAccount, destinationAccount));
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
+        MonetaryAmount negative = FastMoney.ofMinor(Monetary.getCurrency("HKD"), -5_000L);
+
+        //when
+        AccountService service = new AccountService.AccountServiceImpl(accountRepository, ledgerService);
+        TransferStatus single = service.tryTransferMoney(sourceAccountNumber, destinationAccountNumber, negative);
+        List<TransferStatus> batch = service.transferMoney(List.of(
+                new Transfer(sourceAccountNumber, destinationAccountNumber, negative)));
+
+        //then
+        assertEquals(TransferStatus.INVALID_AMOUNT, single);
+        assertEquals(List.of(TransferStatus.INVALID_AMOUNT), batch);
+        assertEquals(10_000L, accountAmount(sourceAccount));
+        assertEquals(10_000L, accountAmount(destinationAccount));
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+        verifyNoInteractions(ledgerService);
+    }
+
+    @Test
+    public void shouldLookUpCacheMissesWithOneQuery() throws Exception {
+        //given facts
+        AccountNumber cachedAccountNumber = new AccountNumber("123456");
+        AccountNumber otherAccountNumber = new AccountNumber("111111");
+        when(accountRepository.findBalanceByAccountNumber(eq(cachedAccountNumber.value())))
+                .thenReturn(Optional.of(new BalanceView(cachedAccountNumber.value(), "HKD", 10_000L, 0L, 1L)));
+        when(accountRepository.findBalancesByAccountNumberIn(anyCollection()))
+                .thenReturn(List.of(new BalanceView(otherAccountNumber.value(), "HKD", 500L, 0L, 1L)));
+        AccountService service = new AccountService.AccountServiceImpl(accountRepository, ledgerService);
+        service.getBalance(cachedAccountNumber);
+
+        //when
+        Map<AccountNumber, MonetaryAmount> balances = service.getBalances(
+                List.of(cachedAccountNumber, otherAccountNumber, new AccountNumber("999999")));
+
+        //then
+        assertEquals(2, balances.size());
+        assertEquals(10_000L, balances.get(cachedAccountNumber).query(MonetaryQueries.convertMinorPart()));
+        assertEquals(500L, balances.get(otherAccountNumber).query(MonetaryQueries.convertMinorPart()));
+        verify(accountRepository, times(1)).findBalancesByAccountNumberIn(Set.of("111111", "999999"));
+    }
+
+    @Test
+    public void shouldCountTransferOutcomes() throws Exception {
         //given facts
-        Account sourceAccount = new Account(FastMoney.of(0L, "HKD"));
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
+        when(accountRepository.findByAccountNumber(eq(sourceAccountNumber.value())))
+                .thenReturn(Optional.of(new Account(mockBalance())));
+        when(accountRepository.findByAccountNumber(eq(destinationAccountNumber.value())))
+                .thenReturn(Optional.of(new Account(mockBalance())));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AccountService service = new AccountService.AccountServiceImpl(accountRepository,
+                TransactionOperations.withoutTransaction(), new TransferProperties(),
+                new BalanceCache(new BalanceCacheProperties()), ledgerService, new TransferMetrics(registry),
+                FxRates::empty);
+
+        //when
+        service.transferMoney(sourceAccountNumber, destinationAccountNumber, FastMoney.ofMinor(Monetary.getCurrency("HKD"), 50L));
+        assertThrows(NotEnoughMoneyException.class, () -> service.transferMoney(sourceAccountNumber,
+                destinationAccountNumber, FastMoney.ofMinor(Monetary.getCurrency("HKD"), 1_000_000L)));
+
+        //then
+        assertEquals(1.0, registry.get("account_manager.transfers").tag("outcome", "completed").counter().count());
+        assertEquals(1.0, registry.get("account_manager.transfers").tag("outcome", "not_enough_funds").counter().count());
+        assertEquals(2L, registry.get("account_manager.transfer.phase").tag("phase", "total").timer().count());
+        assertEquals(1L, registry.get("account_manager.transfer.phase").tag("phase", "flush").timer().count());
+    }
+
+    @Test
+    public void shouldCreditHotDestinationThroughSlotWithoutChangingItsRow() throws Exception {
+        //given facts
+        Account sourceAccount = new Account(mockBalance());
+        Account destinationAccount = new Account(mockBalance());
         AccountNumber sourceAccountNumber = new AccountNumber("123456");
         AccountNumber destinationAccountNumber = new AccountNumber("111111");
         when(accountRepository.findByAccountNumber(eq(sourceAccountNumber.value())))
                 .thenReturn(Optional.of(sourceAccount));
         when(accountRepository.findByAccountNumber(eq(destinationAccountNumber.value())))
-                .thenReturn(Optional.empty());
+                .thenReturn(Optional.of(destinationAccount));
+        AccountService service = hotAccountService(destinationAccountNumber);
 
         //when
-        AccountService service = new AccountService.AccountServiceImpl(accountRepository);
+        service.transferMoney(sourceAccountNumber, destinationAccountNumber, FastMoney.ofMinor(Monetary.getCurrency("HKD"), 50L));
 
         //then
-        assertThrows(DestinationAccountNotFoundException.class, () -> service.transferMoney(
-                sourceAccountNumber,
-                new AccountNumber("111111"),
-                FastMoney.ofMinor(Monetary.getCurrency("HKD"), 50L)
+        assertEquals(9_950L, accountAmount(sourceAccount));
+        assertEquals(10_000L, accountAmount(destinationAccount));
+        verify(accountRepository, times(1)).createSlots(destinationAccountNumber.value(), 16);
+        verify(accountRepository, times(1)).creditSlot(eq(destinationAccountNumber.value()), anyInt(), eq(50L));
+    }
+
+    @Test
+    public void shouldDrainSlotsWhenRowOfHotSourceIsShort() throws Exception {
+        //given facts
+        Account sourceAccount = new Account(mockBalance());
+        Account destinationAccount = new Account(mockBalance());
+        AccountNumber sourceAccountNumber = new AccountNumber("123456");
+        AccountNumber destinationAccountNumber = new AccountNumber("111111");
+        when(accountRepository.findByAccountNumber(eq(sourceAccountNumber.value())))
+                .thenReturn(Optional.of(sourceAccount));
+        when(accountRepository.findByAccountNumber(eq(destinationAccountNumber.value())))
+                .thenReturn(Optional.of(destinationAccount));
+        when(accountRepository.drainSlots(sourceAccountNumber.value(), 2_000L)).thenReturn(3_000L);
+        AccountService service = hotAccountService(sourceAccountNumber);
+
+        //when
+        service.transferMoney(sourceAccountNumber, destinationAccountNumber, FastMoney.ofMinor(Monetary.getCurrency("HKD"), 12_000L));
+
+        //then
+        assertEquals(1_000L, accountAmount(sourceAccount));
+        assertEquals(22_000L, accountAmount(destinationAccount));
+    }
+
+    @Test
+    public void shouldCreditHotAccountSlotsAndDrainOnlyShortfallInBatch() {
+        //given facts
+        AccountNumber hotAccountNumber = new AccountNumber("123456");
+        AccountNumber otherAccountNumber = new AccountNumber("111111");
+        stubAccounts(hotAccountNumber, otherAccountNumber);
+        when(accountRepository.drainSlots(hotAccountNumber.value(), 50L)).thenReturn(50L);
+        AccountService service = hotAccountService(hotAccountNumber);
+
+        //when
+        List<TransferStatus> statuses = service.transferMoney(List.of(
+                new Transfer(otherAccountNumber, hotAccountNumber, hkd(50L)),
+                new Transfer(otherAccountNumber, hotAccountNumber, hkd(50L)),
+                new Transfer(hotAccountNumber, otherAccountNumber, hkd(10_150L)),
+                new Transfer(otherAccountNumber, hotAccountNumber, hkd(30L))
         ));
+
+        //then
+        assertEquals(List.of(TransferStatus.COMPLETED, TransferStatus.COMPLETED, TransferStatus.COMPLETED,
+                TransferStatus.COMPLETED), statuses);
+        assertEquals(0L, balance(service, hotAccountNumber));
+        assertEquals(20_020L, balance(service, otherAccountNumber));
+        verify(accountRepository, times(1)).drainSlots(hotAccountNumber.value(), 50L);
+        verify(accountRepository, times(1)).creditSlot(eq(hotAccountNumber.value()), anyInt(), eq(30L));
+    }
+
+    @Test
+    public void shouldConsolidateSlotsOfAccountsNoLongerListedAsHot() {
+        //given facts
+        Account account = new Account(mockBalance());
+        account.setAccountNumber("111111");
+        AccountNumber accountNumber = new AccountNumber("111111");
+        when(accountRepository.findAccountNumbersWithSlotBalance()).thenReturn(List.of(accountNumber.value()));
+        when(accountRepository.findByAccountNumber(eq(accountNumber.value()))).thenReturn(Optional.of(account));
+        when(accountRepository.drainSlots(accountNumber.value(), Long.MAX_VALUE)).thenReturn(500L);
+        AccountService.AccountServiceImpl service = new AccountService.AccountServiceImpl(accountRepository, ledgerService);
+
+        //when
+        service.consolidateHotAccounts();
+
+        //then
+        assertEquals(10_500L, accountAmount(account));
+        verify(accountRepository, times(1)).saveAndFlush(account);
+        assertEquals(Optional.of(FastMoney.ofMinor(Monetary.getCurrency("HKD"), 10_500L)), service.findBalance(accountNumber));
+    }
+
+    private AccountService hotAccountService(AccountNumber hotAccountNumber) {
+        TransferProperties properties = new TransferProperties();
+        properties.setHotAccounts(Set.of(hotAccountNumber.value()));
+        AccountService.AccountServiceImpl service = new AccountService.AccountServiceImpl(accountRepository,
+                TransactionOperations.withoutTransaction(), properties, new BalanceCache(new BalanceCacheProperties()),
+                ledgerService, new TransferMetrics(new SimpleMeterRegistry()), FxRates::empty);
+        service.prepareSlots();
+        return service;
     }
 
     private long accountAmount(Account account){
@@ -151,4 +458,33 @@ public class AccountServiceTest {
     private MonetaryAmount mockBalance() {
         return FastMoney.ofMinor(Monetary.getCurrency("HKD"), 10_000L);
     }
-}
\ No newline at end of file
+
+    private record BalanceView(String accountNumber, String currency, long balance, long version, long id)
+            implements AccountBalanceView {
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+
+        @Override
+        public String getCurrency() {
+            return currency;
+        }
+
+        @Override
+        public long getBalance() {
+            return balance;
+        }
+
+        @Override
+        public long getVersion() {
+            return version;
+        }
+    }
+}
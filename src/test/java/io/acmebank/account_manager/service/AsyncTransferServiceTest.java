@@ -0,0 +1,71 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.Transfer;
+import io.acmebank.account_manager.service.AsyncTransferService.AsyncTransferServiceImpl;
+import io.acmebank.account_manager.service.AsyncTransferService.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.javamoney.moneta.FastMoney;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.money.Monetary;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncTransferServiceTest {
+
+    @Mock
+    AccountService accountService;
+
+    @Test
+    public void shouldFailTransfersStillQueuedWhenStopping() throws Exception {
+        //given facts
+        AsyncTransferProperties properties = new AsyncTransferProperties();
+        properties.setWorkers(1);
+        AsyncTransferServiceImpl service = new AsyncTransferServiceImpl(accountService, properties,
+                new TransferProperties(), new TransferAdmission(new AdmissionProperties(), new SimpleMeterRegistry()),
+                new SimpleMeterRegistry());
+        CountDownLatch executing = new CountDownLatch(1);
+        when(accountService.transferMoney(anyList())).thenAnswer(invocation -> {
+            executing.countDown();
+            try {
+                // until the worker is stopped
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(TransferStatus.COMPLETED);
+        });
+        service.submit(UUID.randomUUID(), transfer(), outcome -> {
+        });
+        assertTrue(executing.await(5, TimeUnit.SECONDS));
+        UUID queuedId = UUID.randomUUID();
+        CompletableFuture<TransferStatus> queuedOutcome = new CompletableFuture<>();
+        service.submit(queuedId, transfer(), queuedOutcome::complete);
+
+        //when
+        service.destroy();
+
+        //then
+        assertNull(queuedOutcome.get(5, TimeUnit.SECONDS));
+        assertEquals(State.FAILED, service.getTransfer(queuedId).orElseThrow().state());
+    }
+
+    private Transfer transfer() {
+        return new Transfer(new AccountNumber("123456"), new AccountNumber("111111"),
+                FastMoney.ofMinor(Monetary.getCurrency("HKD"), 100L));
+    }
+}
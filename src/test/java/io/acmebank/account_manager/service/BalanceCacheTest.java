@@ -0,0 +1,63 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.repository.entity.Account;
+import org.javamoney.moneta.FastMoney;
+import org.junit.jupiter.api.Test;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BalanceCacheTest {
+
+    @Test
+    public void shouldNotReplaceNewerBalanceWithOlderOne() {
+        //given facts
+        BalanceCache cache = new BalanceCache(new BalanceCacheProperties());
+        AccountNumber accountNumber = new AccountNumber("123456");
+        cache.put(accountNumber, new SnapshotAccount(balance(500L), 2L));
+
+        //when
+        cache.put(accountNumber, new SnapshotAccount(balance(900L), 1L));
+
+        //then
+        assertEquals(Optional.of(balance(500L)), cache.get(accountNumber));
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses() {
+        //given facts
+        BalanceCache cache = new BalanceCache(new BalanceCacheProperties());
+        AccountNumber accountNumber = new AccountNumber("123456");
+
+        //when
+        cache.get(accountNumber);
+        cache.put(accountNumber, new SnapshotAccount(balance(500L), 0L));
+        cache.get(accountNumber);
+
+        //then
+        assertEquals(1L, cache.stats().hitCount());
+        assertEquals(1L, cache.stats().missCount());
+    }
+
+    private MonetaryAmount balance(long minorUnits) {
+        return FastMoney.ofMinor(Monetary.getCurrency("HKD"), minorUnits);
+    }
+
+    private static class SnapshotAccount extends Account {
+        private final long version;
+
+        SnapshotAccount(MonetaryAmount balance, long version) {
+            super(balance);
+            this.version = version;
+        }
+
+        @Override
+        public long getVersion() {
+            return version;
+        }
+    }
+}
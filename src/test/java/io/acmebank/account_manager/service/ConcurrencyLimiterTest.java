@@ -0,0 +1,81 @@
+package io.acmebank.account_manager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyLimiterTest {
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void shouldRejectOverLimit() {
+        //given facts
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10, Duration.ofMillis(50));
+
+        //when
+        boolean first = limiter.tryAcquire();
+        boolean second = limiter.tryAcquire();
+        boolean third = limiter.tryAcquire();
+
+        //then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    public void shouldShrinkOnceForBurstOfSlowSamples() {
+        //given facts
+        AtomicLong clock = new AtomicLong();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 1, 100, Duration.ofMillis(50), clock::get);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+        }
+
+        //when
+        for (int i = 0; i < 10; i++) {
+            limiter.release(SLOW);
+        }
+
+        //then
+        assertEquals(18, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void shouldGrowOnFastSamplesUnderLoad() {
+        //given facts
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 3, Duration.ofMillis(50));
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        //when
+        limiter.release(FAST);
+        limiter.release(FAST);
+
+        //then
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    public void shouldIgnoreReleaseWithoutSample() {
+        //given facts
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10, Duration.ofMillis(50));
+        limiter.tryAcquire();
+
+        //when
+        limiter.release(-1);
+
+        //then
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
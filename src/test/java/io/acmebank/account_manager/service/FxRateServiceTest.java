@@ -0,0 +1,35 @@
+package io.acmebank.account_manager.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class FxRateServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void shouldKeepPreviousRatesWhenTheFileDisappears() throws IOException {
+        //given facts
+        Path rates = Files.writeString(directory.resolve("rates.csv"), "BASE,QUOTE,RATE\nUSD,HKD,7.8\n");
+        FxRateProperties properties = new FxRateProperties();
+        properties.setRatesLocation(rates.toUri().toString());
+        FxRateService.FxRateServiceImpl service = new FxRateService.FxRateServiceImpl(new DefaultResourceLoader(), properties);
+
+        //when
+        Files.delete(rates);
+        service.refresh();
+
+        //then
+        assertNotNull(service.getRates().conversion("USD", "HKD"));
+        assertEquals(78_000L, service.getRates().conversion("USD", "HKD").convert(10_000L));
+    }
+}
@@ -0,0 +1,47 @@
+package io.acmebank.account_manager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketsTest {
+
+    @Test
+    public void shouldAdmitBurstThenRejectUntilRefilled() {
+        //given facts
+        AtomicLong clock = new AtomicLong();
+        TokenBuckets buckets = new TokenBuckets(10, 3, 100, Duration.ofMinutes(1), clock::get);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire("123456"));
+        }
+
+        //when
+        long wait = buckets.tryAcquire("123456");
+        clock.addAndGet(wait);
+
+        //then
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), wait);
+        assertEquals(0, buckets.tryAcquire("123456"));
+        assertTrue(buckets.tryAcquire("123456") > 0);
+    }
+
+    @Test
+    public void shouldKeepSeparateBucketPerKey() {
+        //given facts
+        AtomicLong clock = new AtomicLong();
+        TokenBuckets buckets = new TokenBuckets(1, 1, 100, Duration.ofMinutes(1), clock::get);
+        buckets.tryAcquire("123456");
+
+        //when
+        long otherKeyWait = buckets.tryAcquire("654321");
+
+        //then
+        assertEquals(0, otherKeyWait);
+        assertTrue(buckets.tryAcquire("123456") > 0);
+    }
+}
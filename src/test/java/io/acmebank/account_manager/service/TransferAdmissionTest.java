@@ -0,0 +1,62 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.service.TransferAdmission.Kind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransferAdmissionTest {
+
+    @Test
+    public void shouldNotShrinkTransferLimitForSlowBatches() {
+        //given facts
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setEnabled(true);
+        properties.setInitialConcurrency(2);
+        properties.setBatchInitialConcurrency(1);
+        properties.setBatchMinConcurrency(1);
+        properties.setTargetLatency(Duration.ofMillis(50));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransferAdmission admission = new TransferAdmission(properties, registry);
+        assertTrue(admission.tryAcquire(Kind.BATCH));
+
+        //when
+        admission.release(Kind.BATCH, TimeUnit.SECONDS.toNanos(5));
+        boolean batch = admission.tryAcquire(Kind.BATCH);
+        boolean secondBatch = admission.tryAcquire(Kind.BATCH);
+        boolean transfer = admission.tryAcquire(Kind.TRANSFER);
+        boolean secondTransfer = admission.tryAcquire(Kind.TRANSFER);
+
+        //then
+        assertTrue(batch);
+        assertFalse(secondBatch);
+        assertTrue(transfer);
+        assertTrue(secondTransfer);
+        assertEquals(2.0, registry.get("account_manager.admission.concurrency.limit").tag("kind", "transfer").gauge().value());
+        assertEquals(1.0, registry.get("account_manager.admission.rejected").tag("limit", "batch_concurrency").counter().count());
+    }
+
+    @Test
+    public void shouldAdmitEverythingWhenDisabled() throws Exception {
+        //given facts
+        TransferAdmission admission = new TransferAdmission(new AdmissionProperties(), new SimpleMeterRegistry());
+
+        //when
+        int admitted = 0;
+        for (int i = 0; i < 1_000; i++) {
+            if (admission.tryAcquire(Kind.TRANSFER)) {
+                admitted++;
+            }
+            admission.acquire(Kind.BATCH);
+        }
+
+        //then
+        assertEquals(1_000, admitted);
+    }
+}
@@ -0,0 +1,141 @@
+package io.acmebank.account_manager.service;
+
+import io.acmebank.account_manager.domain.AccountNumber;
+import io.acmebank.account_manager.domain.FxRates;
+import io.acmebank.account_manager.repository.AccountRepository;
+import io.acmebank.account_manager.repository.entity.Account;
+import io.acmebank.account_manager.service.TransferProperties.Locking;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.javamoney.moneta.FastMoney;
+import org.javamoney.moneta.function.MonetaryQueries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.money.Monetary;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class TransferConcurrencyTest {
+    private static final int ACCOUNTS = 8;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS = 4_000;
+    private static final long STARTING_BALANCE = 10_000L;
+
+    @Autowired
+    private AccountRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        repository.deleteAll();
+        jdbcTemplate.update("delete from account_slots");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Locking.class)
+    public void shouldConserveTotalBalanceUnderParallelTransfers(Locking locking) throws Exception {
+        shouldConserveTotalBalance(locking, Set.of());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Locking.class)
+    public void shouldConserveTotalBalanceWithHotAccountUnderParallelTransfers(Locking locking) throws Exception {
+        shouldConserveTotalBalance(locking, Set.of("stress-0", "stress-1"));
+    }
+
+    private void shouldConserveTotalBalance(Locking locking, Set<String> hotAccounts) throws Exception {
+        //given facts
+        List<AccountNumber> accountNumbers = IntStream.range(0, ACCOUNTS)
+                .mapToObj(i -> new AccountNumber("stress-" + i))
+                .toList();
+        repository.saveAllAndFlush(accountNumbers.stream().map(this::sampleAccount).toList());
+
+        TransferProperties properties = new TransferProperties();
+        properties.setLocking(locking);
+        properties.setLockStripes(4);
+        properties.setHotAccounts(hotAccounts);
+        properties.setHotAccountSlots(4);
+        AccountService.AccountServiceImpl service = new AccountService.AccountServiceImpl(repository,
+                transactionTemplate, properties, new BalanceCache(new BalanceCacheProperties()), ledgerService,
+                new TransferMetrics(new SimpleMeterRegistry()), FxRates::empty);
+        service.prepareSlots();
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Callable<Void>> transfers = IntStream.range(0, TRANSFERS)
+                .mapToObj(i -> (Callable<Void>) () -> {
+                    if (i % 100 == 0) {
+                        // slots are consolidated while transfers keep crediting and draining them
+                        service.consolidateHotAccounts();
+                        return null;
+                    }
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    AccountNumber source = accountNumbers.get(random.nextInt(ACCOUNTS));
+                    AccountNumber destination = accountNumbers.get(random.nextInt(ACCOUNTS));
+                    try {
+                        service.transferMoney(source, destination,
+                                FastMoney.ofMinor(Monetary.getCurrency("HKD"), random.nextLong(1, 500)));
+                        completed.incrementAndGet();
+                    } catch (NotEnoughMoneyException e) {
+                        // rejected transfers must leave both balances untouched
+                    } catch (ConcurrencyFailureException e) {
+                        conflicts.incrementAndGet();
+                    }
+                    return null;
+                })
+                .toList();
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<Void> transfer : executor.invokeAll(transfers)) {
+                transfer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        //then
+        long total = repository.findAll().stream()
+                .filter(account -> account.getAccountNumber().startsWith("stress-"))
+                .mapToLong(account -> account.getBalance().query(MonetaryQueries.convertMinorPart())
+                        + repository.sumSlots(account.getAccountNumber()))
+                .sum();
+        assertEquals(ACCOUNTS * STARTING_BALANCE, total);
+        assertTrue(completed.get() > 0);
+        if (locking == Locking.STRIPED) {
+            assertEquals(0, conflicts.get());
+        }
+    }
+
+    private Account sampleAccount(AccountNumber accountNumber) {
+        Account account = new Account(FastMoney.ofMinor(Monetary.getCurrency("HKD"), STARTING_BALANCE));
+        account.setAccountNumber(accountNumber.value());
+        return account;
+    }
+}